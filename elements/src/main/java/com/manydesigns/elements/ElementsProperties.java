@@ -67,6 +67,11 @@ public final class ElementsProperties {
     public static final String FIELDS_DECIMAL_FORMAT =
             "elements.fields.format.decimal";
 
+    public static final String OGNL_CACHE_SIZE =
+            "ognl.cache.size";
+    public static final String OGNL_COMPILE_THRESHOLD =
+            "ognl.compile.threshold";
+
     //**************************************************************************
     // Static fields, singleton initialization and retrieval
     //**************************************************************************
@@ -29,6 +29,10 @@ public abstract class BlobUtils {
     }
 
     public static void loadBlobs(TableForm form, BlobManager blobManager, boolean loadContents) {
+        if(form.isFlyweight()) {
+            //The rows are bound one at a time; their blobs must be loaded by a TableForm.RowBindListener
+            return;
+        }
         for(TableForm.Row row : form.getRows()) {
             loadBlobs(row, blobManager, loadContents);
         }
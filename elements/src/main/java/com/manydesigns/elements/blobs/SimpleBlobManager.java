@@ -81,6 +81,16 @@ public class SimpleBlobManager implements BlobManager {
         return RandomUtil.getCodeFile(blobsDir, dataFileNamePattern, code);
     }
 
+    /**
+     * Returns the file holding the blob's content, so that it can be served without going through
+     * {@link #openStream(Blob)}.
+     * @since 4.2.3
+     */
+    public File getDataFile(Blob blob) {
+        ensureValidCode(blob.getCode());
+        return getDataFile(blob.getCode());
+    }
+
     public void ensureValidCode(String code) {
         if (!StringUtils.isAlphanumeric(code)) {
             throw new IllegalArgumentException(
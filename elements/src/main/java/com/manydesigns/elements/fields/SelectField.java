@@ -487,6 +487,17 @@ public class SelectField extends AbstractField<Object> {
     }
 
     public String jsonSelectFieldOptions(boolean includeSelectPrompt) {
+        return jsonSelectFieldOptions(includeSelectPrompt, 0, null);
+    }
+
+    /**
+     * Returns a page of the active options of this field as JSON.
+     * @param includeSelectPrompt whether to include the "select" prompt as the first option.
+     * @param offset the number of active options to skip.
+     * @param maxOptions the maximum number of options to return, or null to return all of them.
+     * @return the JSON array of the options.
+     */
+    public String jsonSelectFieldOptions(boolean includeSelectPrompt, int offset, Integer maxOptions) {
         Map<Object, SelectionModel.Option> options =
                 selectionModel.getOptions(selectionModelIndex);
         // prepariamo Json
@@ -503,10 +514,20 @@ public class SelectField extends AbstractField<Object> {
             jb.closeObject();
         }
 
+        int skipped = 0;
+        int written = 0;
         for (Map.Entry<Object,SelectionModel.Option> option : options.entrySet()) {
             if(!option.getValue().active) {
                 continue;
             }
+            if(skipped < offset) {
+                skipped++;
+                continue;
+            }
+            if(maxOptions != null && written >= maxOptions) {
+                break;
+            }
+            written++;
             jb.openObject();
             Object optionValue = option.getKey();
             String optionStringValue = OgnlUtils.convertValueToString(optionValue);
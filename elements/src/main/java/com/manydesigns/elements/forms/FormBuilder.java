@@ -31,6 +31,7 @@ import com.manydesigns.elements.options.SelectionProvider;
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.JavaClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
+import com.manydesigns.elements.util.ReflectionUtil;
 import org.apache.commons.lang.ArrayUtils;
 
 import java.util.*;
@@ -145,7 +146,7 @@ public class FormBuilder extends AbstractFormBuilder {
 
         ArrayList<PropertyAccessor> currentGroup = null;
         String currentGroupName = null;
-        for (PropertyAccessor current : classAccessor.getProperties()) {
+        for (PropertyAccessor current : ReflectionUtil.getPropertyList(classAccessor)) {
             // check if field is enabled
             Enabled enabled = current.getAnnotation(Enabled.class);
             if(enabled != null && !enabled.value()) {
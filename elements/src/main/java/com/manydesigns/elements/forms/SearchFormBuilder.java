@@ -29,6 +29,7 @@ import com.manydesigns.elements.options.SelectionProvider;
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.JavaClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
+import com.manydesigns.elements.util.ReflectionUtil;
 import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -105,7 +106,7 @@ public class SearchFormBuilder extends AbstractFormBuilder {
 
         propertyAccessors = new ArrayList<PropertyAccessor>();
 
-        for (PropertyAccessor current : classAccessor.getProperties()) {
+        for (PropertyAccessor current : ReflectionUtil.getPropertyList(classAccessor)) {
             if(!isPropertyEnabled(current)) {
                 continue;
             }
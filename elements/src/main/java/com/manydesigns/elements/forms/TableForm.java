@@ -38,6 +38,7 @@ import javax.servlet.http.HttpServletRequest;
 import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /*
@@ -64,6 +65,11 @@ public class TableForm implements Element {
     protected boolean condensed = false;
     protected boolean striped = true;
 
+    protected List<?> boundObjects;
+    protected RowBindListener rowBindListener;
+    protected String[] templateIdSuffixes;
+    protected String[] templateInputNameSuffixes;
+
     private static final String SELECTION_CELL_CLASS = "selection-cell";
 
     //**************************************************************************
@@ -144,10 +150,11 @@ public class TableForm implements Element {
         xb.closeElement("tr");
         xb.closeElement("thead");
 
-        if(rows.length > 0) {
+        int rowCount = getRowCount();
+        if(rowCount > 0) {
             xb.openElement("tbody");
-            for (Row row : rows) {
-                row.toXhtml(xb);
+            for (int i = 0; i < rowCount; i++) {
+                getRow(i).toXhtml(xb);
             }
             xb.closeElement("tbody");
         }
@@ -225,6 +232,93 @@ public class TableForm implements Element {
         }
     }
 
+    //**************************************************************************
+    // Flyweight mode
+    //**************************************************************************
+
+    /**
+     * Puts the form in flyweight mode: instead of a row of fields per object, the form keeps a single template row,
+     * which is bound in turn to each object as the form is rendered. This way, the number of fields does not
+     * depend on the number of objects. The form must have been built with exactly one row, and is meant for
+     * read-only (VIEW) rendering; use {@link #getRowCount()} and {@link #getRow(int)} to visit its rows.
+     * @param objects the objects to display, one per row.
+     */
+    public void bindObjects(List<?> objects) {
+        if (rows.length != 1) {
+            throw new IllegalStateException("A flyweight table form must have exactly one row, not " + rows.length);
+        }
+        //The template fields are named after row 0; keep what follows the row prefix, to rename them for each row
+        String templatePrefix = getRowPrefix(0);
+        Row template = rows[0];
+        templateIdSuffixes = new String[template.size()];
+        templateInputNameSuffixes = new String[template.size()];
+        for (int i = 0; i < template.size(); i++) {
+            Field field = template.get(i);
+            templateIdSuffixes[i] = removeRowPrefix(field.getId(), templatePrefix);
+            templateInputNameSuffixes[i] = removeRowPrefix(field.getInputName(), templatePrefix);
+        }
+        boundObjects = objects;
+    }
+
+    protected String getRowPrefix(int index) {
+        return StringUtils.join(new Object[]{prefix, "row", index, "_"});
+    }
+
+    protected static String removeRowPrefix(String name, String rowPrefix) {
+        if (name != null && name.startsWith(rowPrefix)) {
+            return name.substring(rowPrefix.length());
+        } else {
+            return null;
+        }
+    }
+
+    public boolean isFlyweight() {
+        return boundObjects != null;
+    }
+
+    public int getRowCount() {
+        return boundObjects != null ? boundObjects.size() : rows.length;
+    }
+
+    /**
+     * Returns a row of the form. In flyweight mode, this is the template row, bound to the object with the given
+     * index and with its fields renamed as those of the corresponding row of a regular form (rowN_ prefix);
+     * it is only valid until the next call.
+     * @param index the index of the row.
+     * @return the row.
+     */
+    public Row getRow(int index) {
+        if (boundObjects == null) {
+            return rows[index];
+        }
+        Row row = rows[0];
+        Object obj = boundObjects.get(index);
+        row.index = index;
+        String rowPrefix = getRowPrefix(index);
+        for (int i = 0; i < row.size(); i++) {
+            Field field = row.get(i);
+            if (templateIdSuffixes[i] != null) {
+                field.setId(rowPrefix + templateIdSuffixes[i]);
+            }
+            if (templateInputNameSuffixes[i] != null) {
+                field.setInputName(rowPrefix + templateInputNameSuffixes[i]);
+            }
+        }
+        row.readFromObject(obj);
+        if (rowBindListener != null) {
+            rowBindListener.rowBound(row, obj);
+        }
+        return row;
+    }
+
+    /**
+     * Completes the setup of the template row of a flyweight form each time it is bound to an object, e.g. with
+     * data that is not read by the fields themselves.
+     */
+    public interface RowBindListener {
+        void rowBound(Row row, Object obj);
+    }
+
     //**************************************************************************
     // Getter/setter
     //**************************************************************************
@@ -293,6 +387,14 @@ public class TableForm implements Element {
         this.striped = striped;
     }
 
+    public RowBindListener getRowBindListener() {
+        return rowBindListener;
+    }
+
+    public void setRowBindListener(RowBindListener rowBindListener) {
+        this.rowBindListener = rowBindListener;
+    }
+
     //**************************************************************************
     // Inner class: Row
     //**************************************************************************
@@ -302,7 +404,7 @@ public class TableForm implements Element {
                 "Copyright (C) 2005-2016, ManyDesigns srl";
 
         protected String key;
-        protected final int index;
+        protected int index;
 
         public Row(int index) {
             super(columns.length);
@@ -30,6 +30,7 @@ import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.JavaClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.elements.text.TextFormat;
+import com.manydesigns.elements.util.ReflectionUtil;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -133,7 +134,7 @@ public class TableFormBuilder extends AbstractFormBuilder {
 
     public void configReflectiveFields() {
         propertyAccessors = new ArrayList<PropertyAccessor>();
-        for (PropertyAccessor current : classAccessor.getProperties()) {
+        for (PropertyAccessor current : ReflectionUtil.getPropertyList(classAccessor)) {
             if (!isPropertyVisible(current)) {
                 continue;
             }
@@ -20,13 +20,19 @@
 
 package com.manydesigns.elements.ognl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.manydesigns.elements.ElementsProperties;
 import com.manydesigns.elements.ElementsThreadLocals;
 import ognl.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -41,9 +47,47 @@ public class OgnlUtils {
     public final static Logger logger =
             LoggerFactory.getLogger(OgnlUtils.class);
 
+    //**************************************************************************
+    // Caches
+    //**************************************************************************
+
+    /**
+     * Parsed expression trees, by expression. Trees are not modified by evaluation, so they can be shared.
+     */
+    protected static final Cache<String, Object> parsedExpressions;
+    /**
+     * Expressions compiled to bytecode, by expression and class of the root object, since compiled code is specific
+     * to the types it was compiled against.
+     */
+    protected static final Cache<List<Object>, CompiledExpression> compiledExpressions;
+    protected static final int compileThreshold;
+
+    static {
+        int cacheSize = ElementsProperties.getConfiguration().getInt(ElementsProperties.OGNL_CACHE_SIZE, 1000);
+        parsedExpressions = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+        compiledExpressions = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+        compileThreshold = ElementsProperties.getConfiguration().getInt(ElementsProperties.OGNL_COMPILE_THRESHOLD, 0);
+    }
+
     public static Object getValueQuietly(String expression,
                                          Map ognlContext,
                                          Object root) {
+        if (isCompilationEnabled() && expression != null &&
+            ognlContext instanceof OgnlContext && root != null) {
+            CompiledExpression compiled = getCompiledExpression(expression, root);
+            Node node = compiled.getNode(expression, (OgnlContext) ognlContext, root);
+            if (node != null) {
+                try {
+                    return Ognl.getValue(node, ognlContext, root);
+                } catch (OgnlException e) {
+                    logger.debug("Error during evaluation of ognl expression: " + expression, e);
+                    return null;
+                } catch (RuntimeException e) {
+                    logger.debug("Compiled ognl expression failed, falling back to the interpreter: " + expression, e);
+                    compiled.disable();
+                }
+            }
+        }
         Object parsedOgnlExpression = parseExpressionQuietly(expression);
         return getValueQuietly(
                 parsedOgnlExpression, ognlContext, root);
@@ -55,9 +99,13 @@ public class OgnlUtils {
             return null;
         }
 
-        Object result;
+        Object result = parsedExpressions.getIfPresent(expression);
+        if (result != null) {
+            return result;
+        }
         try {
             result = Ognl.parseExpression(expression);
+            parsedExpressions.put(expression, result);
         } catch (OgnlException e) {
             result = null;
             logger.warn("Error during parsing of ognl expression: " +
@@ -66,6 +114,62 @@ public class OgnlUtils {
         return result;
     }
 
+    /**
+     * @return whether hot expressions are compiled to bytecode, as configured by
+     * {@link ElementsProperties#OGNL_COMPILE_THRESHOLD}.
+     */
+    public static boolean isCompilationEnabled() {
+        return compileThreshold > 0;
+    }
+
+    protected static CompiledExpression getCompiledExpression(String expression, Object root) {
+        List<Object> key = Arrays.<Object>asList(expression, root.getClass());
+        CompiledExpression compiled = compiledExpressions.getIfPresent(key);
+        if (compiled == null) {
+            compiled = new CompiledExpression();
+            CompiledExpression existing = compiledExpressions.asMap().putIfAbsent(key, compiled);
+            if (existing != null) {
+                compiled = existing;
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * An expression that is compiled once it has been evaluated enough times on the same class of root object.
+     * If compilation fails, or the compiled code fails when evaluated, the expression is interpreted from then on.
+     */
+    protected static class CompiledExpression {
+        protected final AtomicInteger evaluations = new AtomicInteger();
+        protected volatile Node node;
+        protected volatile boolean disabled;
+
+        public Node getNode(String expression, OgnlContext ognlContext, Object root) {
+            if (disabled) {
+                return null;
+            }
+            Node node = this.node;
+            if (node != null || evaluations.incrementAndGet() != compileThreshold) {
+                return node;
+            }
+            try {
+                node = Ognl.compileExpression(ognlContext, root, expression);
+                logger.debug("Compiled ognl expression {} for {}", expression, root.getClass());
+                this.node = node;
+                return node;
+            } catch (Throwable e) {
+                logger.debug("Could not compile ognl expression, it will be interpreted: " + expression, e);
+                disable();
+                return null;
+            }
+        }
+
+        public void disable() {
+            disabled = true;
+            node = null;
+        }
+    }
+
     public static Object getValueQuietly(Object parsedExpression,
                                          Map ognlContext, Object root) {
         if (parsedExpression == null) {
@@ -110,6 +214,8 @@ public class OgnlUtils {
     }
 
     public static void clearCache() {
+        parsedExpressions.invalidateAll();
+        compiledExpressions.invalidateAll();
         OgnlRuntime.clearCache();
         clearOGNLCache("cacheGetMethod");
         clearOGNLCache("cacheSetMethod");
@@ -53,6 +53,12 @@ public class DefaultSelectionProvider implements SelectionProvider {
     protected String createNewValueHref;
     protected String createNewValueText;
 
+    /**
+     * Holds the index of the rows, or is null if the provider is not indexed (see {@link #enableIndex()}).
+     * It is shared with the copies of this provider, and replaced when the rows change.
+     */
+    protected IndexHolder indexHolder;
+
     public final static Logger logger =
             LoggerFactory.getLogger(DefaultSelectionProvider.class);
     public static final String NON_WORD_CHARACTERS =
@@ -86,7 +92,18 @@ public class DefaultSelectionProvider implements SelectionProvider {
     }
 
     public DefaultSelectionProvider(DefaultSelectionProvider copy) {
-        this(copy.getName(), copy.getFieldCount(), new ArrayList<Row>(copy.rows));
+        this(copy.getName(), copy);
+    }
+
+    /**
+     * Creates a copy of a selection provider with a different name. If the original is indexed, the copy shares
+     * the index of the rows with it, until either of them is modified.
+     * @param name the name of the copy.
+     * @param copy the selection provider to copy.
+     */
+    public DefaultSelectionProvider(String name, DefaultSelectionProvider copy) {
+        this(name, copy.getFieldCount(), new ArrayList<Row>(copy.rows));
+        indexHolder = copy.indexHolder;
     }
 
     //**************************************************************************
@@ -110,6 +127,7 @@ public class DefaultSelectionProvider implements SelectionProvider {
             throw new IllegalArgumentException("Field count mismatch");
         }
         rows.add(row);
+        resetIndex();
     }
 
     public void appendRow(Object[] values, String[] labels, boolean active) {
@@ -147,6 +165,11 @@ public class DefaultSelectionProvider implements SelectionProvider {
             row = new Row(values, labels, true);
             rows.add(row);
         }
+        resetIndex();
+    }
+
+    public List<Row> getRows() {
+        return Collections.unmodifiableList(rows);
     }
 
     public void sortByLabel() {
@@ -162,6 +185,32 @@ public class DefaultSelectionProvider implements SelectionProvider {
             }
         };
         Collections.sort(rows, comparator);
+        resetIndex();
+    }
+
+    //**************************************************************************
+    // Index management
+    //**************************************************************************
+
+    /**
+     * Makes this provider index its rows, so that the options are computed without scanning all of them.
+     * The index is built the first time it is needed and it is only worth its cost when it is reused by many
+     * selection models, e.g. for providers shared through a cache; per-request providers should not enable it.
+     */
+    public void enableIndex() {
+        if(indexHolder == null) {
+            indexHolder = new IndexHolder();
+        }
+    }
+
+    public boolean isIndexEnabled() {
+        return indexHolder != null;
+    }
+
+    protected void resetIndex() {
+        if(indexHolder != null) {
+            indexHolder = new IndexHolder();
+        }
     }
 
     //**************************************************************************
@@ -250,6 +299,15 @@ public class DefaultSelectionProvider implements SelectionProvider {
                 optionsArray[j].clear();
             }
 
+            IndexHolder holder = indexHolder;
+            if(holder != null) {
+                validateWithIndex(holder.getIndex(rows, fieldCount));
+            } else {
+                validateByScanning();
+            }
+        }
+
+        private void validateByScanning() {
             int maxMatchingIndex = -1;
             for (Row row : rows) {
                 Object[] currentValueRow = row.getValues();
@@ -290,6 +348,41 @@ public class DefaultSelectionProvider implements SelectionProvider {
                 values[i] = null;
             }
         }
+
+        private void validateWithIndex(Index index) {
+            BitSet candidates = new BitSet(rows.size());
+            candidates.set(0, rows.size());
+            int maxMatchingIndex = -1;
+            for (int j = 0; j < fieldCount; j++) {
+                //Options come from the rows matching all the previous values
+                BitSet optionRows = index.matchLabel(j, labelSearches[j]);
+                optionRows.and(candidates);
+                for (int i = optionRows.nextSetBit(0); i >= 0; i = optionRows.nextSetBit(i + 1)) {
+                    Row row = rows.get(i);
+                    Object cellValue = row.getValues()[j];
+                    Option currentOption = optionsArray[j].get(cellValue);
+                    if(currentOption == null || !currentOption.active) {
+                        optionsArray[j].put(cellValue, new Option(cellValue, row.getLabels()[j], row.isActive()));
+                    }
+                }
+
+                Object value = values[j];
+                if (value == null) {
+                    break;
+                }
+                BitSet matchingRows = index.matchValue(j, value);
+                matchingRows.and(candidates);
+                if (matchingRows.isEmpty()) {
+                    break;
+                }
+                maxMatchingIndex = j;
+                candidates = matchingRows;
+            }
+
+            for (int i = maxMatchingIndex + 1; i < fieldCount; i++) {
+                values[i] = null;
+            }
+        }
     }
 
     private boolean matchLabel(String cellLabel, String labelSearch2) {
@@ -314,6 +407,166 @@ public class DefaultSelectionProvider implements SelectionProvider {
         return false;
     }
 
+    //**************************************************************************
+    // Index
+    //**************************************************************************
+
+    protected static class IndexHolder {
+        private Index index;
+
+        public synchronized Index getIndex(List<Row> rows, int fieldCount) {
+            if (index == null) {
+                index = new Index(rows, fieldCount);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Index of the rows of a selection provider, built once and then only read. For each field it keeps the
+     * lowercase words of every label, all those words sorted, so that a label search only looks at the rows
+     * having a word that starts with the first searched word, and the rows having each value.
+     */
+    protected static class Index {
+        protected final int rowCount;
+        protected final String[][][] rowTokens;
+        protected final String[][] sortedTokens;
+        protected final int[][] tokenRows;
+        protected final int[][] tokenPositions;
+        protected final List<Map<Object, BitSet>> valueRows;
+
+        public Index(List<Row> rows, int fieldCount) {
+            rowCount = rows.size();
+            rowTokens = new String[fieldCount][rowCount][];
+            sortedTokens = new String[fieldCount][];
+            tokenRows = new int[fieldCount][];
+            tokenPositions = new int[fieldCount][];
+            valueRows = new ArrayList<Map<Object, BitSet>>(fieldCount);
+            for (int j = 0; j < fieldCount; j++) {
+                List<Token> tokens = new ArrayList<Token>();
+                Map<Object, BitSet> fieldValueRows = new HashMap<Object, BitSet>();
+                for (int i = 0; i < rowCount; i++) {
+                    Row row = rows.get(i);
+                    String label = row.getLabels()[j];
+                    //#163 rows without a label are never options
+                    if (label != null) {
+                        String[] words = StringUtils.split(label.toLowerCase(), NON_WORD_CHARACTERS);
+                        rowTokens[j][i] = words;
+                        for (int k = 0; k < words.length; k++) {
+                            tokens.add(new Token(words[k], i, k));
+                        }
+                    }
+                    Object value = row.getValues()[j];
+                    BitSet bits = fieldValueRows.get(value);
+                    if (bits == null) {
+                        bits = new BitSet(rowCount);
+                        fieldValueRows.put(value, bits);
+                    }
+                    bits.set(i);
+                }
+                valueRows.add(fieldValueRows);
+                Collections.sort(tokens);
+                int size = tokens.size();
+                sortedTokens[j] = new String[size];
+                tokenRows[j] = new int[size];
+                tokenPositions[j] = new int[size];
+                for (int k = 0; k < size; k++) {
+                    Token token = tokens.get(k);
+                    sortedTokens[j][k] = token.word;
+                    tokenRows[j][k] = token.row;
+                    tokenPositions[j][k] = token.position;
+                }
+            }
+        }
+
+        /**
+         * Returns the rows whose label for a field contains consecutive words starting with the words of the
+         * search, in order.
+         */
+        public BitSet matchLabel(int field, String labelSearch) {
+            BitSet result = new BitSet(rowCount);
+            String[] searchWords = StringUtils.isEmpty(labelSearch) ?
+                    ArrayUtils.EMPTY_STRING_ARRAY :
+                    StringUtils.split(labelSearch.toLowerCase(), NON_WORD_CHARACTERS);
+            String[][] fieldRowTokens = rowTokens[field];
+            if (searchWords.length == 0) {
+                for (int i = 0; i < rowCount; i++) {
+                    if (fieldRowTokens[i] != null) {
+                        result.set(i);
+                    }
+                }
+                return result;
+            }
+            String[] words = sortedTokens[field];
+            String first = searchWords[0];
+            for (int k = lowerBound(words, first); k < words.length && words[k].startsWith(first); k++) {
+                int row = tokenRows[field][k];
+                if (!result.get(row) && matchesAt(fieldRowTokens[row], tokenPositions[field][k], searchWords)) {
+                    result.set(row);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the rows having a given value for a field, or any of the given values if it is an array.
+         */
+        public BitSet matchValue(int field, Object value) {
+            BitSet result = new BitSet(rowCount);
+            Map<Object, BitSet> fieldValueRows = valueRows.get(field);
+            Object[] values = value instanceof Object[] ? (Object[]) value : new Object[] { value };
+            for (Object current : values) {
+                BitSet bits = fieldValueRows.get(current);
+                if (bits != null) {
+                    result.or(bits);
+                }
+            }
+            return result;
+        }
+
+        protected static boolean matchesAt(String[] words, int position, String[] searchWords) {
+            if (position + searchWords.length > words.length) {
+                return false;
+            }
+            for (int i = 1; i < searchWords.length; i++) {
+                if (!words[position + i].startsWith(searchWords[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        protected static int lowerBound(String[] words, String key) {
+            int low = 0;
+            int high = words.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (words[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    protected static class Token implements Comparable<Token> {
+        protected final String word;
+        protected final int row;
+        protected final int position;
+
+        public Token(String word, int row, int position) {
+            this.word = word;
+            this.row = row;
+            this.position = position;
+        }
+
+        public int compareTo(Token o) {
+            return word.compareTo(o.word);
+        }
+    }
+
     public DisplayMode getDisplayMode() {
         return displayMode;
     }
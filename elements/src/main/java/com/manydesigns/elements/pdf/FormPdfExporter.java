@@ -32,15 +32,14 @@ package com.manydesigns.elements.pdf;
 import com.manydesigns.elements.fields.Field;
 import com.manydesigns.elements.forms.FieldSet;
 import com.manydesigns.elements.forms.Form;
-import com.manydesigns.elements.xml.XmlBuffer;
 import org.apache.fop.apps.FOPException;
-import org.apache.fop.apps.Fop;
-import org.apache.fop.apps.FopFactory;
-import org.apache.fop.apps.MimeConstants;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
-import javax.xml.transform.*;
-import javax.xml.transform.sax.SAXResult;
-import javax.xml.transform.stream.StreamSource;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 
 /**
@@ -63,71 +62,66 @@ public class FormPdfExporter {
     }
 
     public void export(OutputStream out) throws FOPException, IOException, TransformerException {
-        FopFactory fopFactory = FopFactory.newInstance();
-
-        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, out);
-
-        // Setup XSLT
-        TransformerFactory Factory = TransformerFactory.newInstance();
-        Transformer transformer = Factory.newTransformer(xsltSource);
+        TransformerHandler handler = PdfUtil.newPdfHandler(xsltSource, out);
 
         // Set the value of a <param> in the stylesheet
-        transformer.setParameter("versionParam", "2.0");
-
-        // Setup input for XSLT transformation
-        Reader reader = composeXml();
-        Source src = new StreamSource(reader);
+        handler.getTransformer().setParameter("versionParam", "2.0");
 
-        // Resulting SAX events (the generated FO) must be piped through to
-        // FOP
-        Result res = new SAXResult(fop.getDefaultHandler());
-
-        // Start XSLT transformation and FOP processing
-        transformer.transform(src, res);
+        // Feed the XML representing the object straight to the XSLT transformation and FOP processing
+        try {
+            writeXml(handler);
+        } catch (SAXException e) {
+            throw new TransformerException(e);
+        }
 
-        reader.close();
         out.flush();
     }
 
     /**
-     * Composes an XML document representing the current object.
+     * Writes an XML document representing the current object, as SAX events.
      *
-     * @return
-     * @throws java.io.IOException
+     * @param handler the handler receiving the events.
+     * @throws SAXException if the handler fails.
      */
-    protected Reader composeXml() throws IOException {
-        XmlBuffer xb = new XmlBuffer();
-        xb.writeXmlHeader("UTF-8");
-        xb.openElement("class");
-        xb.openElement("table");
-        if (title != null) {
-            xb.write(title);
-        }
-        xb.closeElement("table");
+    protected void writeXml(ContentHandler handler) throws SAXException {
+        handler.startDocument();
+        PdfUtil.startElement(handler, "class");
+        PdfUtil.element(handler, "table", title);
 
         for (FieldSet fieldset : form) {
-            xb.openElement("tableData");
-            xb.openElement("rows");
+            PdfUtil.startElement(handler, "tableData");
+            PdfUtil.startElement(handler, "rows");
 
             for (Field field : fieldset.fields()) {
-                xb.openElement("row");
-                xb.openElement("nameColumn");
-                xb.write(field.getLabel());
-                xb.closeElement("nameColumn");
-
-                xb.openElement("value");
-                xb.write(field.getStringValue());
-                xb.closeElement("value");
-                xb.closeElement("row");
-
+                PdfUtil.startElement(handler, "row");
+                PdfUtil.element(handler, "nameColumn", field.getLabel());
+                PdfUtil.element(handler, "value", field.getStringValue());
+                PdfUtil.endElement(handler, "row");
             }
-            xb.closeElement("rows");
-            xb.closeElement("tableData");
+            PdfUtil.endElement(handler, "rows");
+            PdfUtil.endElement(handler, "tableData");
         }
 
-        xb.closeElement("class");
+        PdfUtil.endElement(handler, "class");
+        handler.endDocument();
+    }
 
-        return new StringReader(xb.toString());
+    /**
+     * Composes an XML document representing the current object.
+     *
+     * @deprecated the export no longer uses it; override {@link #writeXml(ContentHandler)} to customize the XML.
+     * @return
+     * @throws java.io.IOException
+     */
+    @Deprecated
+    protected Reader composeXml() throws IOException {
+        StringWriter writer = new StringWriter();
+        try {
+            writeXml(PdfUtil.newSerializingHandler(new StreamResult(writer)));
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+        return new StringReader(writer.toString());
     }
 
     public Form getForm() {
@@ -0,0 +1,193 @@
+/*
+* Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+* http://www.manydesigns.com/
+*
+* Unless you have purchased a commercial license agreement from ManyDesigns srl,
+* the following license terms apply:
+*
+* This program is free software; you can redistribute it and/or modify
+* it under the terms of the GNU General Public License version 3 as published by
+* the Free Software Foundation.
+*
+* There are special exceptions to the terms and conditions of the GPL
+* as it is applied to this software. View the full text of the
+* exception in file OPEN-SOURCE-LICENSE.txt in the directory of this
+* software distribution.
+*
+* This program is distributed WITHOUT ANY WARRANTY; and without the
+* implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program; if not, see http://www.gnu.org/licenses/gpl.txt
+* or write to:
+* Free Software Foundation, Inc.,
+* 59 Temple Place - Suite 330,
+* Boston, MA  02111-1307  USA
+*
+*/
+
+package com.manydesigns.elements.pdf;
+
+import org.apache.fop.apps.FOPException;
+import org.apache.fop.apps.Fop;
+import org.apache.fop.apps.FopFactory;
+import org.apache.fop.apps.MimeConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.transform.*;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared machinery for PDF exports: a single {@link FopFactory}, and a cache of compiled XSLT stylesheets.
+ * Stylesheets are cached by system id; those loaded from files are recompiled when the file changes.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class PdfUtil {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    public static final Logger logger = LoggerFactory.getLogger(PdfUtil.class);
+
+    protected static final AttributesImpl NO_ATTRIBUTES = new AttributesImpl();
+
+    protected static final FopFactory fopFactory = FopFactory.newInstance();
+    protected static final SAXTransformerFactory transformerFactory =
+            (SAXTransformerFactory) TransformerFactory.newInstance();
+    protected static final ConcurrentMap<String, CachedTemplates> templatesCache =
+            new ConcurrentHashMap<String, CachedTemplates>();
+
+    public static FopFactory getFopFactory() {
+        return fopFactory;
+    }
+
+    /**
+     * Returns the compiled form of a stylesheet. If the source has a system id, the compiled stylesheet is cached
+     * and reused until the stylesheet changes (if it's a file) or the cache is cleared.
+     * @param xsltSource the stylesheet.
+     * @return the compiled stylesheet.
+     * @throws TransformerConfigurationException if the stylesheet cannot be compiled.
+     */
+    public static Templates getTemplates(Source xsltSource) throws TransformerConfigurationException {
+        String systemId = xsltSource.getSystemId();
+        if(systemId == null) {
+            logger.debug("Stylesheet without a system id, not caching it");
+            return newTemplates(xsltSource);
+        }
+        File file = getFile(systemId);
+        long lastModified = file != null ? file.lastModified() : 0;
+        CachedTemplates cached = templatesCache.get(systemId);
+        if(cached == null || cached.lastModified != lastModified) {
+            logger.debug("Compiling stylesheet {}", systemId);
+            cached = new CachedTemplates(newTemplates(xsltSource), lastModified);
+            templatesCache.put(systemId, cached);
+        }
+        return cached.templates;
+    }
+
+    public static void clearTemplatesCache() {
+        templatesCache.clear();
+    }
+
+    /**
+     * Creates a handler that transforms the SAX events it receives with a stylesheet, and renders the resulting
+     * XSL-FO as PDF.
+     * @param xsltSource the stylesheet, producing XSL-FO.
+     * @param outputStream the stream to write the PDF to.
+     * @return the handler. Its transformer can be used to set stylesheet parameters.
+     */
+    public static TransformerHandler newPdfHandler(Source xsltSource, OutputStream outputStream)
+            throws TransformerConfigurationException, FOPException {
+        Templates templates = getTemplates(xsltSource);
+        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, outputStream);
+        TransformerHandler handler;
+        synchronized (transformerFactory) {
+            handler = transformerFactory.newTransformerHandler(templates);
+        }
+        // Resulting SAX events (the generated FO) must be piped through to FOP
+        handler.setResult(new SAXResult(fop.getDefaultHandler()));
+        return handler;
+    }
+
+    /**
+     * Creates a handler that serializes the SAX events it receives as XML.
+     * @param result where to write the XML.
+     * @return the handler.
+     */
+    public static TransformerHandler newSerializingHandler(Result result)
+            throws TransformerConfigurationException {
+        TransformerHandler handler;
+        synchronized (transformerFactory) {
+            handler = transformerFactory.newTransformerHandler();
+        }
+        handler.setResult(result);
+        return handler;
+    }
+
+    protected static Templates newTemplates(Source xsltSource) throws TransformerConfigurationException {
+        synchronized (transformerFactory) {
+            return transformerFactory.newTemplates(xsltSource);
+        }
+    }
+
+    protected static File getFile(String systemId) {
+        try {
+            URI uri = new URI(systemId);
+            if("file".equals(uri.getScheme())) {
+                return new File(uri);
+            }
+        } catch (Exception e) {
+            logger.debug("Not a file URI: " + systemId, e);
+        }
+        return null;
+    }
+
+    //**************************************************************************
+    // SAX helpers
+    //**************************************************************************
+
+    public static void startElement(ContentHandler handler, String name) throws SAXException {
+        handler.startElement("", name, name, NO_ATTRIBUTES);
+    }
+
+    public static void endElement(ContentHandler handler, String name) throws SAXException {
+        handler.endElement("", name, name);
+    }
+
+    public static void characters(ContentHandler handler, String text) throws SAXException {
+        if(text != null) {
+            handler.characters(text.toCharArray(), 0, text.length());
+        }
+    }
+
+    public static void element(ContentHandler handler, String name, String text) throws SAXException {
+        startElement(handler, name);
+        characters(handler, text);
+        endElement(handler, name);
+    }
+
+    protected static class CachedTemplates {
+        public final Templates templates;
+        public final long lastModified;
+
+        public CachedTemplates(Templates templates, long lastModified) {
+            this.templates = templates;
+            this.lastModified = lastModified;
+        }
+    }
+}
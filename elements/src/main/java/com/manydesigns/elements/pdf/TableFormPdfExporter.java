@@ -31,20 +31,16 @@ package com.manydesigns.elements.pdf;
 
 import com.manydesigns.elements.fields.Field;
 import com.manydesigns.elements.forms.TableForm;
-import com.manydesigns.elements.xml.XmlBuffer;
 import org.apache.commons.lang.StringUtils;
 import org.apache.fop.apps.FOPException;
-import org.apache.fop.apps.Fop;
-import org.apache.fop.apps.FopFactory;
-import org.apache.fop.apps.MimeConstants;
-
-import javax.xml.transform.*;
-import javax.xml.transform.sax.SAXResult;
-import javax.xml.transform.stream.StreamSource;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.io.Reader;
-import java.io.StringReader;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import java.io.*;
 
 /**
  * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -67,81 +63,74 @@ public class TableFormPdfExporter {
 
     public void export(OutputStream outputStream) throws FOPException,
             IOException, TransformerException {
-        FopFactory fopFactory = FopFactory.newInstance();
-
-        Fop fop = fopFactory.newFop(MimeConstants.MIME_PDF, outputStream);
-
-        // Setup XSLT
-        TransformerFactory Factory = TransformerFactory.newInstance();
-        Transformer transformer = Factory.newTransformer(xsltSource);
+        TransformerHandler handler = PdfUtil.newPdfHandler(xsltSource, outputStream);
 
         // Set the value of a <param> in the stylesheet
-        transformer.setParameter("versionParam", "2.0");
-
-        // Setup input for XSLT transformation
-        Reader reader = composeXml();
-        Source src = new StreamSource(reader);
-
-        // Resulting SAX events (the generated FO) must be piped through to
-        // FOP
-        Result res = new SAXResult(fop.getDefaultHandler());
+        handler.getTransformer().setParameter("versionParam", "2.0");
 
-        // Start XSLT transformation and FOP processing
-        transformer.transform(src, res);
-        reader.close();
+        // Feed the XML representing the results straight to the XSLT transformation and FOP processing
+        try {
+            writeXml(handler);
+        } catch (SAXException e) {
+            throw new TransformerException(e);
+        }
 
         outputStream.flush();
     }
 
     /**
-     * Composes an XML document representing the current search results.
-     * @return
-     * @throws IOException
+     * Writes an XML document representing the current search results, as SAX events.
+     * @param handler the handler receiving the events.
+     * @throws SAXException if the handler fails.
      */
-    protected Reader composeXml() throws IOException {
-        XmlBuffer xb = new XmlBuffer();
-        xb.writeXmlHeader("UTF-8");
-        xb.openElement("class");
-        xb.openElement("table");
-        if(title != null) {
-            xb.write(title);
-        }
-        xb.closeElement("table");
+    protected void writeXml(ContentHandler handler) throws SAXException {
+        handler.startDocument();
+        PdfUtil.startElement(handler, "class");
+        PdfUtil.element(handler, "table", title);
 
         double[] columnSizes = setupColumnSizes();
 
         for (double columnSize : columnSizes) {
-            xb.openElement("column");
-            xb.openElement("width");
-            xb.write(columnSize + "em");
-            xb.closeElement("width");
-            xb.closeElement("column");
+            PdfUtil.startElement(handler, "column");
+            PdfUtil.element(handler, "width", columnSize + "em");
+            PdfUtil.endElement(handler, "column");
         }
 
         for (TableForm.Column col : form.getColumns()) {
-            xb.openElement("header");
-            xb.openElement("nameColumn");
-            xb.write(col.getLabel());
-            xb.closeElement("nameColumn");
-            xb.closeElement("header");
+            PdfUtil.startElement(handler, "header");
+            PdfUtil.element(handler, "nameColumn", col.getLabel());
+            PdfUtil.endElement(handler, "header");
         }
 
-
         for (TableForm.Row row : form.getRows()) {
-            xb.openElement("rows");
+            PdfUtil.startElement(handler, "rows");
             for (Field field : row) {
-                xb.openElement("row");
-                xb.openElement("value");
-                xb.write(field.getStringValue());
-                xb.closeElement("value");
-                xb.closeElement("row");
+                PdfUtil.startElement(handler, "row");
+                PdfUtil.element(handler, "value", field.getStringValue());
+                PdfUtil.endElement(handler, "row");
             }
-            xb.closeElement("rows");
+            PdfUtil.endElement(handler, "rows");
         }
 
-        xb.closeElement("class");
+        PdfUtil.endElement(handler, "class");
+        handler.endDocument();
+    }
 
-        return new StringReader(xb.toString());
+    /**
+     * Composes an XML document representing the current search results.
+     * @deprecated the export no longer uses it; override {@link #writeXml(ContentHandler)} to customize the XML.
+     * @return
+     * @throws IOException
+     */
+    @Deprecated
+    protected Reader composeXml() throws IOException {
+        StringWriter writer = new StringWriter();
+        try {
+            writeXml(PdfUtil.newSerializingHandler(new StreamResult(writer)));
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+        return new StringReader(writer.toString());
     }
 
     /**
@@ -46,7 +46,7 @@ import java.util.*;
  * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
  * @author Alessio Stalla       - alessio.stalla@manydesigns.com
 */
-public class JavaClassAccessor implements ClassAccessor {
+public class JavaClassAccessor implements PropertyListAccessor {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
@@ -63,6 +63,8 @@ public class JavaClassAccessor implements ClassAccessor {
     protected final Class javaClass;
     protected final PropertyAccessor[] propertyAccessors;
     protected final PropertyAccessor[] keyPropertyAccessors;
+    protected final List<PropertyAccessor> propertyList;
+    protected final List<PropertyAccessor> keyPropertyList;
 
     //**************************************************************************
     // Static fields and methods
@@ -106,6 +108,9 @@ public class JavaClassAccessor implements ClassAccessor {
         List<PropertyAccessor> keyAccessors = setupKeyPropertyAccessors();
         keyPropertyAccessors = new PropertyAccessor[keyAccessors.size()];
         keyAccessors.toArray(keyPropertyAccessors);
+
+        propertyList = Collections.unmodifiableList(Arrays.asList(propertyAccessors));
+        keyPropertyList = Collections.unmodifiableList(Arrays.asList(keyPropertyAccessors));
     }
 
     protected List<PropertyAccessor> setupPropertyAccessors() {
@@ -245,6 +250,14 @@ public class JavaClassAccessor implements ClassAccessor {
         return keyPropertyAccessors.clone();
     }
 
+    public List<PropertyAccessor> getPropertyList() {
+        return propertyList;
+    }
+
+    public List<PropertyAccessor> getKeyPropertyList() {
+        return keyPropertyList;
+    }
+
     public Object newInstance() {
         return ReflectionUtil.newInstance(javaClass);
     }
@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.elements.reflection;
+
+import java.util.List;
+
+/**
+ * A ClassAccessor that can expose its properties as read-only lists, without the copy made by
+ * {@link #getProperties()} and {@link #getKeyProperties()}. Callers that only read the properties should go through
+ * {@link com.manydesigns.elements.util.ReflectionUtil#getPropertyList(ClassAccessor)}, which falls back to the
+ * arrays for other accessors.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ * @since 4.2.3
+ */
+public interface PropertyListAccessor extends ClassAccessor {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    /**
+     * @return a read-only view of the properties, in the same order as {@link #getProperties()}.
+     */
+    public List<PropertyAccessor> getPropertyList();
+
+    /**
+     * @return a read-only view of the key properties, in the same order as {@link #getKeyProperties()}.
+     */
+    public List<PropertyAccessor> getKeyPropertyList();
+}
@@ -20,6 +20,9 @@
 
 package com.manydesigns.elements.text;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.manydesigns.elements.ElementsProperties;
 import com.manydesigns.elements.ElementsThreadLocals;
 import com.manydesigns.elements.ognl.OgnlUtils;
 import ognl.OgnlContext;
@@ -27,6 +30,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -55,6 +59,15 @@ public abstract class AbstractOgnlFormat {
     public static final Logger logger =
             LoggerFactory.getLogger(AbstractOgnlFormat.class);
 
+    /**
+     * Parsed formats, by format class, format string and initial index, so that formats created over and over
+     * (e.g. once per row or per query) do not parse the same string again. Only the immutable parse results are
+     * shared; each format instance keeps its own settings.
+     */
+    protected static final Cache<List<Object>, ParsedFormat> parsedFormats =
+            CacheBuilder.newBuilder().maximumSize(
+                    ElementsProperties.getConfiguration().getInt(ElementsProperties.OGNL_CACHE_SIZE, 1000)).build();
+
     //**************************************************************************
     // Constructors
     //**************************************************************************
@@ -64,6 +77,15 @@ public abstract class AbstractOgnlFormat {
     }
 
     protected AbstractOgnlFormat(String ognlFormat, int index) {
+        List<Object> key = Arrays.<Object>asList(getClass(), ognlFormat, index);
+        ParsedFormat parsed = parsedFormats.getIfPresent(key);
+        if (parsed != null) {
+            formatString = parsed.formatString;
+            ognlExpressions = parsed.ognlExpressions;
+            parsedOgnlExpressions = parsed.parsedOgnlExpressions;
+            return;
+        }
+
         List<String> ognlExpressionList = new ArrayList<String>();
         List<Object> parsedOgnlExpressionList = new ArrayList<Object>();
         Matcher m = pattern.matcher(ognlFormat);
@@ -97,6 +119,20 @@ public abstract class AbstractOgnlFormat {
         parsedOgnlExpressions =
                 new Object[parsedOgnlExpressionList.size()];
         parsedOgnlExpressionList.toArray(parsedOgnlExpressions);
+
+        parsedFormats.put(key, new ParsedFormat(formatString, ognlExpressions, parsedOgnlExpressions));
+    }
+
+    protected static class ParsedFormat {
+        protected final String formatString;
+        protected final String[] ognlExpressions;
+        protected final Object[] parsedOgnlExpressions;
+
+        public ParsedFormat(String formatString, String[] ognlExpressions, Object[] parsedOgnlExpressions) {
+            this.formatString = formatString;
+            this.ognlExpressions = ognlExpressions;
+            this.parsedOgnlExpressions = parsedOgnlExpressions;
+        }
     }
 
     protected String escapeText(String text) {
@@ -120,9 +156,14 @@ public abstract class AbstractOgnlFormat {
                                            Map ognlContext,
                                            Object[] result,
                                            int i) {
-        Object parsedOgnlExpression = parsedOgnlExpressions[i];
-        Object ognlResult = OgnlUtils.getValueQuietly(
-                parsedOgnlExpression, ognlContext, root);
+        Object ognlResult;
+        if (OgnlUtils.isCompilationEnabled()) {
+            ognlResult = OgnlUtils.getValueQuietly(ognlExpressions[i], ognlContext, root);
+        } else {
+            Object parsedOgnlExpression = parsedOgnlExpressions[i];
+            ognlResult = OgnlUtils.getValueQuietly(
+                    parsedOgnlExpression, ognlContext, root);
+        }
         result[i] = ognlResult;
     }
 
@@ -22,6 +22,7 @@ package com.manydesigns.elements.util;
 
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
+import com.manydesigns.elements.reflection.PropertyListAccessor;
 import org.json.JSONObject;
 import org.json.JSONStringer;
 import org.json.JSONWriter;
@@ -35,6 +36,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -195,16 +197,40 @@ public class ReflectionUtil {
         }
     }
 
+    /**
+     * Returns the properties of a class accessor for reading, without copying them if the accessor supports it
+     * (see {@link PropertyListAccessor}).
+     * @since 4.2.3
+     */
+    public static List<PropertyAccessor> getPropertyList(ClassAccessor accessor) {
+        if(accessor instanceof PropertyListAccessor) {
+            return ((PropertyListAccessor) accessor).getPropertyList();
+        }
+        return Arrays.asList(accessor.getProperties());
+    }
+
+    /**
+     * Returns the key properties of a class accessor for reading, without copying them if the accessor supports
+     * it (see {@link PropertyListAccessor}).
+     * @since 4.2.3
+     */
+    public static List<PropertyAccessor> getKeyPropertyList(ClassAccessor accessor) {
+        if(accessor instanceof PropertyListAccessor) {
+            return ((PropertyListAccessor) accessor).getKeyPropertyList();
+        }
+        return Arrays.asList(accessor.getKeyProperties());
+    }
+
     public static JSONWriter classAccessorToJson(ClassAccessor accessor, JSONStringer js) {
         js.object();
         js.key("name").value(accessor.getName());
         js.key("keyProperties").array();
-        for(PropertyAccessor p : accessor.getKeyProperties()) {
+        for(PropertyAccessor p : getKeyPropertyList(accessor)) {
             js.value(p.getName());
         }
         js.endArray();
         js.key("properties").array();
-        for(PropertyAccessor p : accessor.getProperties()) {
+        for(PropertyAccessor p : getPropertyList(accessor)) {
             propertyAccessorToJson(js, p);
         }
         js.endArray();
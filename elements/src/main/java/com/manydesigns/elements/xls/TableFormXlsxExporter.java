@@ -0,0 +1,532 @@
+/*
+* Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+* http://www.manydesigns.com/
+*
+* Unless you have purchased a commercial license agreement from ManyDesigns srl,
+* the following license terms apply:
+*
+* This program is free software; you can redistribute it and/or modify
+* it under the terms of the GNU General Public License version 3 as published by
+* the Free Software Foundation.
+*
+* There are special exceptions to the terms and conditions of the GPL
+* as it is applied to this software. View the full text of the
+* exception in file OPEN-SOURCE-LICENSE.txt in the directory of this
+* software distribution.
+*
+* This program is distributed WITHOUT ANY WARRANTY; and without the
+* implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program; if not, see http://www.gnu.org/licenses/gpl.txt
+* or write to:
+* Free Software Foundation, Inc.,
+* 59 Temple Place - Suite 330,
+* Boston, MA  02111-1307  USA
+*
+*/
+
+package com.manydesigns.elements.xls;
+
+import com.manydesigns.elements.fields.Field;
+import com.manydesigns.elements.forms.TableForm;
+import com.manydesigns.elements.xml.XmlBuffer;
+import org.apache.commons.lang.StringUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports a {@link TableForm} to an Office Open XML (xlsx) workbook. Unlike {@link TableFormXlsExporter}, the sheet
+ * is written to the output stream row by row, so that rows can be exported as they are produced - typically by
+ * reading each object into the same one-row form - with no limit on their number and without keeping them in
+ * memory. Cells are formatted according to the type of their field through
+ * {@link XlsUtil#addFieldToCell(Field, XlsUtil.CellHandler)}, as in the xls exports. A sheet holds at most
+ * {@link #MAX_ROWS_PER_SHEET} rows, header included; further rows continue on additional sheets.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class TableFormXlsxExporter {
+    public static final String copyright = "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    public static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    public static final String SPREADSHEETML_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    public static final String RELATIONSHIPS_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    /**
+     * The maximum number of rows of an Excel sheet.
+     */
+    public static final int MAX_ROWS_PER_SHEET = 1048576;
+
+    protected static final int HEADER_STYLE = 1;
+    protected static final int FIRST_CUSTOM_STYLE = 2;
+    protected static final int FIRST_CUSTOM_NUMBER_FORMAT = 164;
+    protected static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+    protected static final int EXCEL_EPOCH_DAYS = 25569; //1970-01-01 as an Excel serial date
+
+    private final TableForm form;
+    private String title;
+
+    private ZipOutputStream zipOutputStream;
+    private Writer writer;
+    private XmlBuffer xb;
+    private int rowIndex;
+    private int sheetCount;
+    private final Map<String, Integer> numberFormatStyles = new LinkedHashMap<String, Integer>();
+    private final TimeZone timeZone = TimeZone.getDefault();
+
+    public TableFormXlsxExporter(TableForm form) {
+        this.form = form;
+    }
+
+    /**
+     * Writes a workbook with all the rows of the form.
+     * @param outputStream the stream to write the workbook to. It is not closed.
+     */
+    public void export(OutputStream outputStream) throws IOException {
+        start(outputStream);
+        for (TableForm.Row row : form.getRows()) {
+            writeRow(row);
+        }
+        finish();
+    }
+
+    /**
+     * Starts writing a workbook, up to the column headers.
+     * @param outputStream the stream to write the workbook to. It is not closed.
+     */
+    public void start(OutputStream outputStream) throws IOException {
+        if(StringUtils.isBlank(title)) {
+            title = "export";
+        }
+        zipOutputStream = new ZipOutputStream(outputStream);
+        writer = new OutputStreamWriter(zipOutputStream, "UTF-8");
+        sheetCount = 0;
+        numberFormatStyles.clear();
+        startSheet();
+    }
+
+    private void startSheet() throws IOException {
+        sheetCount++;
+        rowIndex = 0;
+        zipOutputStream.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetCount + ".xml"));
+        xb = new XmlBuffer(writer);
+        xb.writeXmlHeader("UTF-8");
+        xb.openElement("worksheet");
+        xb.addAttribute("xmlns", SPREADSHEETML_NS);
+        addColumnsToSheet();
+        xb.openElement("sheetData");
+        addHeaderToSheet();
+    }
+
+    private void finishSheet() throws IOException {
+        xb.closeElement("sheetData");
+        xb.closeElement("worksheet");
+        closeEntry();
+    }
+
+    /**
+     * Writes a row of the sheet, taking the values from the fields of a row of the form. The row need not
+     * belong to the form passed to the constructor, as long as it has the same columns.
+     * @param row the row.
+     */
+    public void writeRow(TableForm.Row row) throws IOException {
+        if (rowIndex + 1 >= MAX_ROWS_PER_SHEET) {
+            finishSheet();
+            startSheet();
+        }
+        rowIndex++;
+        xb.openElement("row");
+        xb.addAttribute("r", Integer.toString(rowIndex + 1));
+        int j = 0;
+        for (Field field : row) {
+            addFieldToCell(j, field);
+            j++;
+        }
+        xb.closeElement("row");
+    }
+
+    /**
+     * Completes the workbook, writing the parts that follow the sheets.
+     */
+    public void finish() throws IOException {
+        finishSheet();
+
+        StringBuilder contentTypes = new StringBuilder();
+        StringBuilder workbookRelationships = new StringBuilder();
+        for (int i = 1; i <= sheetCount; i++) {
+            contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(i).append(".xml\" ")
+                    .append("ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+            workbookRelationships.append("<Relationship Id=\"rId").append(i).append("\" ")
+                    .append("Type=\"").append(RELATIONSHIPS_NS).append("/worksheet\" ")
+                    .append("Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+        }
+        writeEntry("[Content_Types].xml",
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+                "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+                "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+                "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" +
+                contentTypes +
+                "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>" +
+                "</Types>");
+        writeEntry("_rels/.rels",
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\" Type=\"" + RELATIONSHIPS_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>");
+        writeEntry("xl/_rels/workbook.xml.rels",
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                workbookRelationships +
+                "<Relationship Id=\"rId" + (sheetCount + 1) + "\" Type=\"" + RELATIONSHIPS_NS + "/styles\" Target=\"styles.xml\"/>" +
+                "</Relationships>");
+
+        zipOutputStream.putNextEntry(new ZipEntry("xl/workbook.xml"));
+        xb = new XmlBuffer(writer);
+        xb.writeXmlHeader("UTF-8");
+        xb.openElement("workbook");
+        xb.addAttribute("xmlns", SPREADSHEETML_NS);
+        xb.addAttribute("xmlns:r", RELATIONSHIPS_NS);
+        xb.openElement("sheets");
+        for (int i = 1; i <= sheetCount; i++) {
+            xb.openElement("sheet");
+            xb.addAttribute("name", getSheetName(i));
+            xb.addAttribute("sheetId", Integer.toString(i));
+            xb.addAttribute("r:id", "rId" + i);
+            xb.closeElement("sheet");
+        }
+        xb.closeElement("sheets");
+        xb.closeElement("workbook");
+        closeEntry();
+
+        zipOutputStream.putNextEntry(new ZipEntry("xl/styles.xml"));
+        xb = new XmlBuffer(writer);
+        xb.writeXmlHeader("UTF-8");
+        writeStyles();
+        closeEntry();
+
+        zipOutputStream.finish();
+        zipOutputStream.flush();
+        xb = null;
+        writer = null;
+        zipOutputStream = null;
+    }
+
+    private void addColumnsToSheet() {
+        xb.openElement("cols");
+        int c = 1;
+        for (TableForm.Column col : form.getColumns()) {
+            String label = col.getLabel();
+            int width = Math.max(10, (label != null ? label.length() : 0) + 4);
+            xb.openElement("col");
+            xb.addAttribute("min", Integer.toString(c));
+            xb.addAttribute("max", Integer.toString(c));
+            xb.addAttribute("width", Integer.toString(width));
+            xb.addAttribute("customWidth", "1");
+            xb.closeElement("col");
+            c++;
+        }
+        xb.closeElement("cols");
+    }
+
+    private void addHeaderToSheet() {
+        xb.openElement("row");
+        xb.addAttribute("r", "1");
+        int l = 0;
+        for (TableForm.Column col : form.getColumns()) {
+            addStringCell(l, col.getLabel(), HEADER_STYLE);
+            l++;
+        }
+        xb.closeElement("row");
+    }
+
+    private void addFieldToCell(final int j, Field field) {
+        XlsUtil.addFieldToCell(field, new XlsUtil.CellHandler<RuntimeException>() {
+            public void addNumberCell(BigDecimal value, DecimalFormat decimalFormat) {
+                int style = 0;
+                if (decimalFormat != null) {
+                    style = getNumberFormatStyle(decimalFormat.toPattern());
+                }
+                TableFormXlsxExporter.this.addNumberCell(j, value.toPlainString(), style);
+            }
+
+            public void addDateCell(Date value, String datePattern) {
+                long millis = value.getTime() + timeZone.getOffset(value.getTime());
+                double serial = EXCEL_EPOCH_DAYS + (double) millis / MILLIS_PER_DAY;
+                int style = getNumberFormatStyle(toExcelDateFormat(datePattern));
+                TableFormXlsxExporter.this.addNumberCell(j, Double.toString(serial), style);
+            }
+
+            public void addTextCell(String value) {
+                addStringCell(j, value, 0);
+            }
+        });
+    }
+
+    private void addNumberCell(int j, String value, int style) {
+        xb.openElement("c");
+        xb.addAttribute("r", getCellReference(j));
+        if (style != 0) {
+            xb.addAttribute("s", Integer.toString(style));
+        }
+        xb.openElement("v");
+        xb.write(value);
+        xb.closeElement("v");
+        xb.closeElement("c");
+    }
+
+    private void addStringCell(int j, String value, int style) {
+        if (value == null) {
+            return;
+        }
+        xb.openElement("c");
+        xb.addAttribute("r", getCellReference(j));
+        xb.addAttribute("t", "inlineStr");
+        if (style != 0) {
+            xb.addAttribute("s", Integer.toString(style));
+        }
+        xb.openElement("is");
+        xb.openElement("t");
+        xb.writeNoHtmlEscape(escapeText(value));
+        xb.closeElement("t");
+        xb.closeElement("is");
+        xb.closeElement("c");
+    }
+
+    private int getNumberFormatStyle(String formatCode) {
+        Integer style = numberFormatStyles.get(formatCode);
+        if (style == null) {
+            style = FIRST_CUSTOM_STYLE + numberFormatStyles.size();
+            numberFormatStyles.put(formatCode, style);
+        }
+        return style;
+    }
+
+    private void writeStyles() {
+        xb.openElement("styleSheet");
+        xb.addAttribute("xmlns", SPREADSHEETML_NS);
+        if (!numberFormatStyles.isEmpty()) {
+            xb.openElement("numFmts");
+            xb.addAttribute("count", Integer.toString(numberFormatStyles.size()));
+            int id = FIRST_CUSTOM_NUMBER_FORMAT;
+            for (String formatCode : numberFormatStyles.keySet()) {
+                xb.openElement("numFmt");
+                xb.addAttribute("numFmtId", Integer.toString(id));
+                xb.addAttribute("formatCode", formatCode);
+                xb.closeElement("numFmt");
+                id++;
+            }
+            xb.closeElement("numFmts");
+        }
+        xb.writeNoHtmlEscape(
+                "<fonts count=\"2\"><font><sz val=\"10\"/><name val=\"Arial\"/></font>" +
+                "<font><b/><sz val=\"12\"/><name val=\"Arial\"/></font></fonts>" +
+                "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill>" +
+                "<fill><patternFill patternType=\"gray125\"/></fill></fills>" +
+                "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>" +
+                "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>");
+        xb.openElement("cellXfs");
+        xb.addAttribute("count", Integer.toString(FIRST_CUSTOM_STYLE + numberFormatStyles.size()));
+        xb.writeNoHtmlEscape(
+                "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>" +
+                "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>");
+        for (int i = 0; i < numberFormatStyles.size(); i++) {
+            xb.openElement("xf");
+            xb.addAttribute("numFmtId", Integer.toString(FIRST_CUSTOM_NUMBER_FORMAT + i));
+            xb.addAttribute("fontId", "0");
+            xb.addAttribute("fillId", "0");
+            xb.addAttribute("borderId", "0");
+            xb.addAttribute("xfId", "0");
+            xb.addAttribute("applyNumberFormat", "1");
+            xb.closeElement("xf");
+        }
+        xb.closeElement("cellXfs");
+        xb.closeElement("styleSheet");
+    }
+
+    private void writeEntry(String name, String xml) throws IOException {
+        zipOutputStream.putNextEntry(new ZipEntry(name));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        writer.write(xml);
+        closeEntry();
+    }
+
+    private void closeEntry() throws IOException {
+        writer.flush();
+        zipOutputStream.closeEntry();
+    }
+
+    private String getCellReference(int column) {
+        StringBuilder sb = new StringBuilder();
+        int c = column + 1;
+        while (c > 0) {
+            int remainder = (c - 1) % 26;
+            sb.insert(0, (char) ('A' + remainder));
+            c = (c - 1) / 26;
+        }
+        return sb.append(rowIndex + 1).toString();
+    }
+
+    private String getSheetName(int sheetNumber) {
+        //Excel sheet names are unique, at most 31 characters long and cannot contain some characters
+        String name = title.replaceAll("[\\\\/?*\\[\\]:]", "_");
+        String suffix = sheetNumber > 1 ? " (" + sheetNumber + ")" : "";
+        return StringUtils.abbreviate(name, 31 - suffix.length()) + suffix;
+    }
+
+    /**
+     * Converts a {@link java.text.SimpleDateFormat} pattern to an Excel number format. Quoted literals are kept
+     * as literals; fields with no Excel equivalent (e.g. time zones and week numbers) are dropped.
+     */
+    protected static String toExcelDateFormat(String datePattern) {
+        if (datePattern == null) {
+            return "yyyy-mm-dd";
+        }
+        StringBuilder sb = new StringBuilder();
+        int length = datePattern.length();
+        int i = 0;
+        while (i < length) {
+            char c = datePattern.charAt(i);
+            if (c == '\'') {
+                //'' is a quote, 'text' is literal text (where '' is a quote as well)
+                StringBuilder literal = new StringBuilder();
+                if (i + 1 < length && datePattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i += 2;
+                } else {
+                    i++;
+                    while (i < length) {
+                        if (datePattern.charAt(i) == '\'') {
+                            if (i + 1 < length && datePattern.charAt(i + 1) == '\'') {
+                                literal.append('\'');
+                                i += 2;
+                            } else {
+                                i++;
+                                break;
+                            }
+                        } else {
+                            literal.append(datePattern.charAt(i));
+                            i++;
+                        }
+                    }
+                }
+                appendExcelLiteral(sb, literal.toString());
+                continue;
+            }
+            int count = 1;
+            while (i + count < length && datePattern.charAt(i + count) == c) {
+                count++;
+            }
+            i += count;
+            switch (c) {
+                case 'y':
+                    sb.append(count == 2 ? "yy" : "yyyy");
+                    break;
+                case 'M':
+                case 'L':
+                    sb.append(StringUtils.repeat("m", Math.min(count, 4)));
+                    break;
+                case 'd':
+                    sb.append(count == 1 ? "d" : "dd");
+                    break;
+                case 'E':
+                    sb.append(count >= 4 ? "dddd" : "ddd");
+                    break;
+                case 'H':
+                case 'h':
+                case 'k':
+                case 'K':
+                    sb.append(count == 1 ? "h" : "hh");
+                    break;
+                case 'm':
+                    sb.append(count == 1 ? "m" : "mm");
+                    break;
+                case 's':
+                    sb.append(count == 1 ? "s" : "ss");
+                    break;
+                case 'S':
+                    //Excel shows fractions of a second as digits after the seconds and a decimal point
+                    if (sb.length() > 0 && sb.charAt(sb.length() - 1) == '.') {
+                        sb.append(StringUtils.repeat("0", Math.min(count, 3)));
+                    }
+                    break;
+                case 'a':
+                    sb.append("AM/PM");
+                    break;
+                default:
+                    if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                        //G, w, W, D, F, u, z, Z, X: no Excel equivalent
+                        break;
+                    }
+                    appendExcelLiteral(sb, StringUtils.repeat(String.valueOf(c), count));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Appends literal text to an Excel number format: characters that Excel displays as they are are appended
+     * directly, the others are escaped with a backslash.
+     */
+    protected static void appendExcelLiteral(StringBuilder sb, String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (" -/:.,()".indexOf(c) < 0) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+    }
+
+    /**
+     * Escapes text for inclusion in XML, dropping the control characters that XML does not allow. Unlike
+     * {@link XmlBuffer#escape(String)}, it does not turn non-ASCII characters into entities, since the sheet is
+     * written in UTF-8.
+     */
+    protected static String escapeText(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '&':
+                    sb.append("&amp;");
+                    break;
+                case '<':
+                    sb.append("&lt;");
+                    break;
+                case '>':
+                    sb.append("&gt;");
+                    break;
+                default:
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+
+    public TableForm getForm() {
+        return form;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+}
@@ -36,8 +36,10 @@ import com.manydesigns.elements.fields.PasswordField;
 import jxl.CellView;
 import jxl.write.*;
 import jxl.write.Number;
+import org.jetbrains.annotations.Nullable;
 
 import java.math.BigDecimal;
+import java.text.DecimalFormat;
 import java.util.Date;
 
 /**
@@ -51,51 +53,70 @@ public class XlsUtil {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
-    public static void addFieldToCell(WritableSheet sheet, int i, int j, Field field) throws WriteException {
+    /**
+     * Receives the content of a cell, as computed from a field by {@link #addFieldToCell(Field, CellHandler)}, and
+     * writes it in a specific spreadsheet format.
+     * @param <E> the exception thrown when writing a cell.
+     */
+    public interface CellHandler<E extends Exception> {
+        void addNumberCell(BigDecimal value, @Nullable DecimalFormat decimalFormat) throws E;
+        void addDateCell(Date value, String datePattern) throws E;
+        void addTextCell(@Nullable String value) throws E;
+    }
+
+    /**
+     * Computes the content of a cell from a field, according to the type of the field, and passes it to a handler.
+     * Empty numeric and date fields produce no cell.
+     * @param field the field.
+     * @param handler the handler that writes the cell.
+     */
+    public static <E extends Exception> void addFieldToCell(Field field, CellHandler<E> handler) throws E {
         if (field instanceof NumericField) {
             NumericField numField = (NumericField) field;
-            if (numField.getValue() != null) {
+            BigDecimal decimalValue = numField.getValue();
+            if (decimalValue != null) {
+                handler.addNumberCell(decimalValue, numField.getDecimalFormat());
+            }
+        } else if (field instanceof PasswordField) {
+            handler.addTextCell(PasswordField.PASSWORD_PLACEHOLDER);
+        } else if (field instanceof DateField) {
+            DateField dateField = (DateField) field;
+            Date date = dateField.getValue();
+            if (date != null) {
+                handler.addDateCell(date, dateField.getDatePattern());
+            }
+        } else {
+            handler.addTextCell(field.getStringValue());
+        }
+    }
+
+    public static void addFieldToCell(final WritableSheet sheet, final int i, final int j, Field field)
+            throws WriteException {
+        addFieldToCell(field, new CellHandler<WriteException>() {
+            public void addNumberCell(BigDecimal value, DecimalFormat decimalFormat) throws WriteException {
                 jxl.write.Number number;
-                BigDecimal decimalValue = numField.getValue();
-                if (numField.getDecimalFormat() == null) {
-                    number = new Number(j, i,
-                            decimalValue == null
-                                    ? null : decimalValue.doubleValue());
+                if (decimalFormat == null) {
+                    number = new Number(j, i, value.doubleValue());
                 } else {
-                    NumberFormat numberFormat = new NumberFormat(
-                            numField.getDecimalFormat().toPattern());
+                    NumberFormat numberFormat = new NumberFormat(decimalFormat.toPattern());
                     WritableCellFormat writeCellNumberFormat =
                             new WritableCellFormat(numberFormat);
-                    number = new Number(j, i,
-                            decimalValue == null
-                                    ? null : decimalValue.doubleValue(),
-                            writeCellNumberFormat);
+                    number = new Number(j, i, value.doubleValue(), writeCellNumberFormat);
                 }
                 sheet.addCell(number);
             }
-        } else if (field instanceof PasswordField) {
-            Label label = new Label(j, i,
-                    PasswordField.PASSWORD_PLACEHOLDER);
-            sheet.addCell(label);
-        } else if (field instanceof DateField) {
-            DateField dateField = (DateField) field;
-            DateTime dateCell;
-            Date date = dateField.getValue();
-            if (date != null) {
-                DateFormat dateFormat = new DateFormat(
-                        dateField.getDatePattern());
+
+            public void addDateCell(Date value, String datePattern) throws WriteException {
+                DateFormat dateFormat = new DateFormat(datePattern);
                 WritableCellFormat wDateFormat =
                         new WritableCellFormat(dateFormat);
-                dateCell = new DateTime(j, i,
-                        dateField.getValue() == null
-                                ? null : dateField.getValue(),
-                        wDateFormat);
-                sheet.addCell(dateCell);
+                sheet.addCell(new DateTime(j, i, value, wDateFormat));
             }
-        } else {
-            Label label = new Label(j, i, field.getStringValue());
-            sheet.addCell(label);
-        }
+
+            public void addTextCell(String value) throws WriteException {
+                sheet.addCell(new Label(j, i, value));
+            }
+        });
     }
 
     public static  void autoSizeColumns(WritableSheet sheet, int columns){
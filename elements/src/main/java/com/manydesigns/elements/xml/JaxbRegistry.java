@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.elements.xml;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe registry of JAXB contexts. Creating a JAXBContext is very expensive, so one is created per
+ * context path (and class loader) or per set of classes, and shared by the whole application. Marshallers and
+ * unmarshallers, which are not thread-safe, are pooled per context:
+ * <pre>
+ * Unmarshaller unmarshaller = JaxbRegistry.acquireUnmarshaller(context);
+ * try {
+ *     ...
+ * } finally {
+ *     JaxbRegistry.release(context, unmarshaller);
+ * }
+ * </pre>
+ * Pooled objects must not be reconfigured by their users, except for the properties that are reset on acquire.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class JaxbRegistry {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    public static final Logger logger = LoggerFactory.getLogger(JaxbRegistry.class);
+
+    /**
+     * The maximum number of idle marshallers (and, separately, unmarshallers) kept for each context.
+     */
+    public static final int MAX_POOL_SIZE = 16;
+
+    protected static final ConcurrentMap<Object, JAXBContext> contexts =
+            new ConcurrentHashMap<Object, JAXBContext>();
+    protected static final ConcurrentMap<JAXBContext, Pool<Marshaller>> marshallers =
+            new ConcurrentHashMap<JAXBContext, Pool<Marshaller>>();
+    protected static final ConcurrentMap<JAXBContext, Pool<Unmarshaller>> unmarshallers =
+            new ConcurrentHashMap<JAXBContext, Pool<Unmarshaller>>();
+
+    //**************************************************************************
+    // Contexts
+    //**************************************************************************
+
+    /**
+     * Returns the context for the given context path (a colon-separated list of packages), as
+     * {@link JAXBContext#newInstance(String)} would do using the current context class loader.
+     */
+    public static JAXBContext getContext(String contextPath) throws JAXBException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        Object key = Arrays.asList(contextPath, classLoader);
+        JAXBContext context = contexts.get(key);
+        if(context == null) {
+            logger.debug("Creating JAXB context for {}", contextPath);
+            context = JAXBContext.newInstance(contextPath, classLoader);
+            JAXBContext existing = contexts.putIfAbsent(key, context);
+            if(existing != null) {
+                context = existing;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Returns the context for the given classes, as {@link JAXBContext#newInstance(Class[])} would do.
+     */
+    public static JAXBContext getContext(Class<?>... classes) throws JAXBException {
+        Object key = Arrays.asList(classes);
+        JAXBContext context = contexts.get(key);
+        if(context == null) {
+            logger.debug("Creating JAXB context for {}", key);
+            context = JAXBContext.newInstance(classes);
+            JAXBContext existing = contexts.putIfAbsent(key, context);
+            if(existing != null) {
+                context = existing;
+            }
+        }
+        return context;
+    }
+
+    /**
+     * Discards all the cached contexts, e.g. because the classes they were built from have been reloaded.
+     */
+    public static void clear() {
+        contexts.clear();
+        marshallers.clear();
+        unmarshallers.clear();
+    }
+
+    //**************************************************************************
+    // Marshallers and unmarshallers
+    //**************************************************************************
+
+    /**
+     * Returns a marshaller producing formatted output, either pooled or new.
+     * It must be returned with {@link #release(JAXBContext, Marshaller)} after use.
+     */
+    public static Marshaller acquireMarshaller(JAXBContext context) throws JAXBException {
+        Marshaller marshaller = getPool(marshallers, context).poll();
+        if(marshaller == null) {
+            marshaller = context.createMarshaller();
+        }
+        marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        return marshaller;
+    }
+
+    public static void release(JAXBContext context, Marshaller marshaller) {
+        if(marshaller != null) {
+            getPool(marshallers, context).offer(marshaller);
+        }
+    }
+
+    /**
+     * Returns an unmarshaller, either pooled or new.
+     * It must be returned with {@link #release(JAXBContext, Unmarshaller)} after use.
+     */
+    public static Unmarshaller acquireUnmarshaller(JAXBContext context) throws JAXBException {
+        Unmarshaller unmarshaller = getPool(unmarshallers, context).poll();
+        if(unmarshaller == null) {
+            unmarshaller = context.createUnmarshaller();
+        }
+        return unmarshaller;
+    }
+
+    public static void release(JAXBContext context, Unmarshaller unmarshaller) {
+        if(unmarshaller != null) {
+            getPool(unmarshallers, context).offer(unmarshaller);
+        }
+    }
+
+    protected static <T> Pool<T> getPool(ConcurrentMap<JAXBContext, Pool<T>> pools, JAXBContext context) {
+        Pool<T> pool = pools.get(context);
+        if(pool == null) {
+            pool = new Pool<T>();
+            Pool<T> existing = pools.putIfAbsent(context, pool);
+            if(existing != null) {
+                pool = existing;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * A bounded, lock-free pool of idle objects.
+     */
+    protected static class Pool<T> {
+        protected final Queue<T> idle = new ConcurrentLinkedQueue<T>();
+        protected final AtomicInteger size = new AtomicInteger();
+
+        public T poll() {
+            T object = idle.poll();
+            if(object != null) {
+                size.decrementAndGet();
+            }
+            return object;
+        }
+
+        public void offer(T object) {
+            if(size.incrementAndGet() <= MAX_POOL_SIZE) {
+                idle.offer(object);
+            } else {
+                size.decrementAndGet();
+            }
+        }
+    }
+}
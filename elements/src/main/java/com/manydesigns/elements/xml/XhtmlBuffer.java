@@ -21,12 +21,13 @@
 
 package com.manydesigns.elements.xml;
 
+import org.apache.commons.io.output.StringBuilderWriter;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.StringWriter;
+import java.io.IOException;
 import java.io.Writer;
 import java.math.BigDecimal;
 
@@ -60,7 +61,7 @@ public class XhtmlBuffer extends XmlBuffer implements XhtmlFragment {
     //**************************************************************************
 
     public XhtmlBuffer() {
-        this(new StringWriter());
+        this(new StringBuilderWriter());
     }
 
     public XhtmlBuffer(Writer writer) {
@@ -434,6 +435,11 @@ public class XhtmlBuffer extends XmlBuffer implements XhtmlFragment {
         return StringEscapeUtils.escapeHtml(s);
     }
 
+    @Override
+    protected void writeEscaped(String s) throws IOException {
+        StringEscapeUtils.escapeHtml(writer, s);
+    }
+
 
     public void toXhtml(@NotNull XhtmlBuffer xb) {
         xb.write(this);
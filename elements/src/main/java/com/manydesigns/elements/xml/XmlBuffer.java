@@ -21,11 +21,11 @@
 
 package com.manydesigns.elements.xml;
 
+import org.apache.commons.io.output.StringBuilderWriter;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
 import java.text.MessageFormat;
 import java.util.EmptyStackException;
@@ -44,6 +44,8 @@ public class XmlBuffer {
     private static final int OPEN = 2;
     private static final int CLOSE = 1;
 
+    private static final int COPY_CHUNK_SIZE = 8192;
+
     //**************************************************************************
     // Static fields
     //**************************************************************************
@@ -67,14 +69,16 @@ public class XmlBuffer {
 
 
     /**
-     * Creates a new instance of XmlBuffer
+     * Creates a new instance of XmlBuffer that accumulates its content in memory, in an unsynchronized buffer.
      */
     public XmlBuffer() {
-        this(new StringWriter());
+        this(new StringBuilderWriter());
     }
 
     /**
-     * Creates a new instance of XmlBuffer
+     * Creates a new instance of XmlBuffer that writes through to the given writer, e.g. the writer of a JSP or of
+     * the servlet response, without accumulating its content in memory. toString() is only meaningful if the
+     * writer supports it.
      * @param writer The writer
      */
     public XmlBuffer(Writer writer) {
@@ -98,7 +102,7 @@ public class XmlBuffer {
                         writer.write(" ");
                         writer.write(name);
                         writer.write("=\"");
-                        writer.write(escape(value));
+                        writeEscaped(value);
                         writer.write("\"");
                     }
                     break;
@@ -202,7 +206,27 @@ public class XmlBuffer {
     }
 
     public void write(String text) {
-        writeNoHtmlEscape(escape(text));
+        try {
+            switch (state) {
+                case OPEN:
+                    writer.write(">");
+                case START:
+                case CLOSE:
+                case TEXT:
+                    if (text != null) {
+                        writeEscaped(text);
+                    }
+
+                    break;
+
+                default:
+                    throw new IllegalStateException("XmlBuffer state " + state);
+            }
+
+            state = TEXT;
+        } catch (IOException e) {
+            throw new IOError(e);
+        }
     }
 
     public void write(XmlBuffer buffer) {
@@ -214,7 +238,7 @@ public class XmlBuffer {
                 case CLOSE:
                 case TEXT:
                     if (buffer != null) {
-                        writer.write(buffer.writer.toString());
+                        buffer.writeTo(writer);
                     }
 
                     break;
@@ -316,10 +340,84 @@ public class XmlBuffer {
         return toString();
     }
 
+    /**
+     * Copies the content of this buffer to a writer. Content accumulated in memory is copied straight from the
+     * buffer, without building an intermediate String.
+     * @param out the writer.
+     */
+    protected void writeTo(Writer out) throws IOException {
+        if (!(writer instanceof StringBuilderWriter)) {
+            out.write(writer.toString());
+            return;
+        }
+        StringBuilder content = ((StringBuilderWriter) writer).getBuilder();
+        if (out instanceof StringBuilderWriter) {
+            ((StringBuilderWriter) out).getBuilder().append(content);
+            return;
+        }
+        char[] chunk = new char[Math.min(content.length(), COPY_CHUNK_SIZE)];
+        for (int start = 0; start < content.length(); start += chunk.length) {
+            int end = Math.min(start + chunk.length, content.length());
+            content.getChars(start, end, chunk, 0);
+            out.write(chunk, 0, end - start);
+        }
+    }
+
     public String escape(String s) {
         return StringEscapeUtils.escapeXml(s);
     }
 
+    /**
+     * Writes a string escaped with the same rules as {@link #escape(String)}, straight to the writer. Subclasses
+     * that override escape(String) must override this method accordingly.
+     * @param s the string to escape, not null.
+     */
+    protected void writeEscaped(String s) throws IOException {
+        //Same output as StringEscapeUtils.escapeXml; runs of characters that need no escaping are written at once
+        int length = s.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            String entity;
+            switch (c) {
+                case '"':
+                    entity = "&quot;";
+                    break;
+                case '&':
+                    entity = "&amp;";
+                    break;
+                case '<':
+                    entity = "&lt;";
+                    break;
+                case '>':
+                    entity = "&gt;";
+                    break;
+                case '\'':
+                    entity = "&apos;";
+                    break;
+                default:
+                    if (c <= 0x7f) {
+                        continue;
+                    }
+                    entity = null;
+            }
+            if (i > start) {
+                writer.write(s, start, i - start);
+            }
+            if (entity != null) {
+                writer.write(entity);
+            } else {
+                writer.write("&#");
+                writer.write(Integer.toString(c));
+                writer.write(';');
+            }
+            start = i + 1;
+        }
+        if (start < length) {
+            writer.write(s, start, length - start);
+        }
+    }
+
     public String[] getAllowedEmptyTags() {
         return allowedEmptyTags;
     }
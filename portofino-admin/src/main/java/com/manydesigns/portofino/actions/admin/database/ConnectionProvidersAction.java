@@ -30,11 +30,13 @@ import com.manydesigns.elements.forms.TableFormBuilder;
 import com.manydesigns.elements.messages.SessionMessages;
 import com.manydesigns.elements.text.OgnlTextFormat;
 import com.manydesigns.portofino.actions.admin.appwizard.ApplicationWizard;
+import com.manydesigns.portofino.actions.admin.database.forms.CacheRegionTableForm;
 import com.manydesigns.portofino.actions.admin.database.forms.ConnectionProviderForm;
 import com.manydesigns.portofino.actions.admin.database.forms.ConnectionProviderTableForm;
 import com.manydesigns.portofino.actions.admin.database.forms.SelectableSchema;
 import com.manydesigns.portofino.buttons.annotations.Button;
 import com.manydesigns.portofino.buttons.annotations.Buttons;
+import com.manydesigns.portofino.database.ConnectionPool;
 import com.manydesigns.portofino.database.platforms.DatabasePlatform;
 import com.manydesigns.portofino.database.platforms.DatabasePlatformsRegistry;
 import com.manydesigns.portofino.di.Inject;
@@ -48,6 +50,7 @@ import net.sourceforge.stripes.action.*;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.apache.shiro.authz.annotation.RequiresAuthentication;
+import org.hibernate.stat.SecondLevelCacheStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,6 +58,7 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -79,6 +83,8 @@ public class ConnectionProvidersAction extends AbstractActionBean {
     public TableForm tableForm;
     public Form form;
     public Form detectedValuesForm;
+    public Form connectionPoolForm;
+    public TableForm cacheRegionsForm;
     public TableForm schemasForm;
     public TableForm databasePlatformsTableForm;
 
@@ -173,6 +179,8 @@ public class ConnectionProvidersAction extends AbstractActionBean {
                 .equals(connectionProvider.getStatus())) {
             configureDetected();
         }
+        configureConnectionPool();
+        configureCacheRegions();
 
         return new ForwardResolution("/m/admin/connectionProviders/read.jsp");
     }
@@ -226,6 +234,50 @@ public class ConnectionProvidersAction extends AbstractActionBean {
         detectedValuesForm.readFromObject(connectionProvider);
     }
 
+    protected void configureConnectionPool() {
+        if(!(connectionProvider instanceof JdbcConnectionProvider)) {
+            return;
+        }
+        ConnectionPool connectionPool = ((JdbcConnectionProvider) connectionProvider).getConnectionPool();
+        if(connectionPool == null) {
+            return;
+        }
+        connectionPoolForm = new FormBuilder(ConnectionPool.class)
+                .configFields(
+                        "minSize",
+                        "maxSize",
+                        "acquisitionTimeout",
+                        "validationQuery",
+                        "idleTimeout",
+                        "leakDetectionThreshold",
+                        "totalConnections",
+                        "busyConnections",
+                        "idleConnections",
+                        "threadsAwaitingConnection",
+                        "orphanedConnections"
+                        )
+                .configMode(Mode.VIEW)
+                .build();
+        connectionPoolForm.readFromObject(connectionPool);
+    }
+
+    protected void configureCacheRegions() {
+        Map<String, SecondLevelCacheStatistics> statistics = persistence.getSecondLevelCacheStatistics(databaseName);
+        if(statistics.isEmpty()) {
+            return;
+        }
+        List<CacheRegionTableForm> regions = new ArrayList<CacheRegionTableForm>();
+        for(Map.Entry<String, SecondLevelCacheStatistics> entry : statistics.entrySet()) {
+            regions.add(new CacheRegionTableForm(entry.getKey(), entry.getValue()));
+        }
+        cacheRegionsForm = new TableFormBuilder(CacheRegionTableForm.class)
+                .configFields("regionName", "hitCount", "missCount", "putCount", "elementCountInMemory")
+                .configNRows(regions.size())
+                .configMode(Mode.VIEW)
+                .build();
+        cacheRegionsForm.readFromObject(regions);
+    }
+
     protected void configureEditSchemas() {
         try {
             Connection conn = connectionProvider.acquireConnection();
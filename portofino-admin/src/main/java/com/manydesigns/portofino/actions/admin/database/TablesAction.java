@@ -562,7 +562,7 @@ public class TablesAction extends AbstractActionBean {
     protected com.manydesigns.portofino.actions.admin.tables.forms.TableForm setupTableForm(Mode mode) {
         table = findTable();
         tableForm = new FormBuilder(com.manydesigns.portofino.actions.admin.tables.forms.TableForm.class)
-                .configFields("entityName", "javaClass", "shortName", "hqlQuery")
+                .configFields("entityName", "javaClass", "shortName", "cached", "cacheConcurrencyStrategy", "cacheRegion", "hqlQuery")
                 .configMode(mode)
                 .build();
         com.manydesigns.portofino.actions.admin.tables.forms.TableForm tf =
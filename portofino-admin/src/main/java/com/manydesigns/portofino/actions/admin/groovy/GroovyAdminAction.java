@@ -23,14 +23,18 @@ package com.manydesigns.portofino.actions.admin.groovy;
 import com.manydesigns.elements.ElementsThreadLocals;
 import com.manydesigns.elements.messages.SessionMessages;
 import com.manydesigns.elements.ognl.OgnlUtils;
+import com.manydesigns.portofino.PortofinoProperties;
 import com.manydesigns.portofino.buttons.annotations.Button;
 import com.manydesigns.portofino.di.Inject;
+import com.manydesigns.portofino.dispatcher.DispatcherLogic;
 import com.manydesigns.portofino.modules.BaseModule;
+import com.manydesigns.portofino.modules.PageactionsModule;
 import com.manydesigns.portofino.scripting.ScriptingUtil;
 import com.manydesigns.portofino.security.RequiresAdministrator;
 import com.manydesigns.portofino.stripes.AbstractActionBean;
 import groovy.util.GroovyScriptEngine;
 import net.sourceforge.stripes.action.*;
+import org.apache.commons.configuration.Configuration;
 import org.apache.shiro.authz.annotation.RequiresAuthentication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +60,15 @@ public class GroovyAdminAction extends AbstractActionBean {
     @Inject(BaseModule.GROOVY_CLASS_PATH)
     File groovyClasspath;
 
+    @Inject(BaseModule.PORTOFINO_CONFIGURATION)
+    Configuration portofinoConfiguration;
+
+    @Inject(BaseModule.APPLICATION_DIRECTORY)
+    File applicationDirectory;
+
+    @Inject(PageactionsModule.PAGES_DIRECTORY)
+    File pagesDirectory;
+
     //--------------------------------------------------------------------------
     // Logging
     //--------------------------------------------------------------------------
@@ -75,11 +88,18 @@ public class GroovyAdminAction extends AbstractActionBean {
     public Resolution resetGroovyScriptEngine() {
         logger.info("Resetting Groovy script engine");
         ServletContext servletContext = context.getServletContext();
+        boolean frozen = portofinoConfiguration.getBoolean(PortofinoProperties.GROOVY_FROZEN, false);
         GroovyScriptEngine groovyScriptEngine =
-                ScriptingUtil.createScriptEngine(groovyClasspath, getClass().getClassLoader());
+                ScriptingUtil.createScriptEngine(groovyClasspath, getClass().getClassLoader(), !frozen);
         ClassLoader classLoader = groovyScriptEngine.getGroovyClassLoader();
         servletContext.setAttribute(BaseModule.CLASS_LOADER, classLoader);
         servletContext.setAttribute(BaseModule.GROOVY_SCRIPT_ENGINE, groovyScriptEngine);
+        if(frozen) {
+            logger.info("Recompiling frozen scripts");
+            DispatcherLogic.freezeScripts(
+                    portofinoConfiguration, applicationDirectory, pagesDirectory, groovyClasspath,
+                    groovyScriptEngine, true);
+        }
         SessionMessages.addInfoMessage(ElementsThreadLocals.getText("script.engine.successfully.reset"));
 
         logger.info("Clearing OGNL caches potentially holding Groovy objects");
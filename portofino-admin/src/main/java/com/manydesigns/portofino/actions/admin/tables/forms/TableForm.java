@@ -77,6 +77,27 @@ public class TableForm extends Table {
         return super.getShortName();
     }
 
+    @Override
+    @LabelI18N("second.level.cache")
+    public Boolean getCached() {
+        return super.getCached();
+    }
+
+    @Override
+    @Select(values = {"read-only", "nonstrict-read-write", "read-write", "transactional"},
+            labels = {"read-only", "nonstrict-read-write", "read-write", "transactional"})
+    @LabelI18N("cache.concurrency.strategy")
+    public String getCacheConcurrencyStrategy() {
+        return super.getCacheConcurrencyStrategy();
+    }
+
+    @Override
+    @FieldSize(50)
+    @LabelI18N("cache.region")
+    public String getCacheRegion() {
+        return super.getCacheRegion();
+    }
+
     @Insertable(false)
     @Updatable(false)
     public String getHqlQuery() {
@@ -29,6 +29,20 @@
                     <mde:write name="actionBean" property="detectedValuesForm"/>
                 </div>
             </c:if>
+            <c:if test="${actionBean.connectionPoolForm != null}">
+                <div class="horizontalSeparator"></div>
+                <h4><fmt:message key="connection.pool"/></h4>
+                <div id="connectionPoolForm">
+                    <mde:write name="actionBean" property="connectionPoolForm"/>
+                </div>
+            </c:if>
+            <c:if test="${actionBean.cacheRegionsForm != null}">
+                <div class="horizontalSeparator"></div>
+                <h4><fmt:message key="second.level.cache"/></h4>
+                <div id="cacheRegionsForm">
+                    <mde:write name="actionBean" property="cacheRegionsForm"/>
+                </div>
+            </c:if>
             <stripes:hidden name="databaseName" value="${actionBean.databaseName}"/>
             <div class="form-group">
                 <portofino:buttons list="connectionProviders-read" />
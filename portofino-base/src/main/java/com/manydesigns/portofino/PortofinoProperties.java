@@ -58,6 +58,18 @@ public final class PortofinoProperties {
     //Groovy
     public static final String GROOVY_PRELOAD_PAGES = "groovy.preloadPages";
     public static final String GROOVY_PRELOAD_CLASSES = "groovy.preloadClasses";
+    //If true, all scripts are compiled at startup and never checked for changes afterwards
+    public static final String GROOVY_FROZEN = "groovy.frozen";
+    //If true, frozen page scripts are compiled to a class cache on disk, reused across restarts
+    public static final String GROOVY_CLASS_CACHE = "groovy.classCache";
+    //How often, in seconds, Security.groovy is checked for changes (0 = never)
+    public static final String GROOVY_SECURITY_CHECK_FREQUENCY = "groovy.security.checkFrequency";
+
+    //If true, the parsed model and pages are saved to binary snapshots and reloaded from there at startup
+    public static final String SNAPSHOT_ENABLED = "snapshot.enabled";
+
+    //How many databases are set up concurrently when the model is loaded (default: the number of processors)
+    public static final String PERSISTENCE_INIT_THREADS = "persistence.init.threads";
 
     private PortofinoProperties() {}
 }
@@ -0,0 +1,175 @@
+/*
+* Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+* http://www.manydesigns.com/
+*
+* Unless you have purchased a commercial license agreement from ManyDesigns srl,
+* the following license terms apply:
+*
+* This program is free software; you can redistribute it and/or modify
+* it under the terms of the GNU General Public License version 3 as published by
+* the Free Software Foundation.
+*
+* There are special exceptions to the terms and conditions of the GPL
+* as it is applied to this software. View the full text of the
+* exception in file OPEN-SOURCE-LICENSE.txt in the directory of this
+* software distribution.
+*
+* This program is distributed WITHOUT ANY WARRANTY; and without the
+* implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU General Public License for more details.
+*
+* You should have received a copy of the GNU General Public License
+* along with this program; if not, see http://www.gnu.org/licenses/gpl.txt
+* or write to:
+* Free Software Foundation, Inc.,
+* 59 Temple Place - Suite 330,
+* Boston, MA  02111-1307  USA
+*
+*/
+
+package com.manydesigns.portofino.cache;
+
+import com.manydesigns.elements.util.ElementsFileUtils;
+import com.manydesigns.portofino.modules.ModuleRegistry;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A binary, serialized copy of objects that are expensive to build from a set of source files (e.g. by parsing
+ * XML), used to speed up application startup. A snapshot records the modification time and size of each source
+ * file; it can be used in place of the sources only as long as they are unchanged. Snapshots written by a
+ * different version of Portofino are ignored.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class Snapshot implements Serializable {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    private static final long serialVersionUID = 1L;
+
+    public static final Logger logger = LoggerFactory.getLogger(Snapshot.class);
+
+    protected final String version;
+    protected final Serializable content;
+    protected final HashMap<String, long[]> sources = new HashMap<String, long[]>();
+
+    public Snapshot(Serializable content, Collection<File> sources) {
+        this.version = ModuleRegistry.getPortofinoVersion();
+        this.content = content;
+        for(File source : sources) {
+            this.sources.put(source.getAbsolutePath(), stamp(source));
+        }
+    }
+
+    protected static long[] stamp(File source) {
+        if(!source.exists()) {
+            return new long[] { -1, -1 };
+        } else if(source.isDirectory()) {
+            //The length of a directory is unspecified; its modification time changes when entries are added/removed
+            return new long[] { source.lastModified(), 0 };
+        } else {
+            return new long[] { source.lastModified(), source.length() };
+        }
+    }
+
+    public Serializable getContent() {
+        return content;
+    }
+
+    /**
+     * Returns whether the given source file is recorded in this snapshot and is unchanged since then.
+     */
+    public boolean isUpToDate(File source) {
+        long[] recorded = sources.get(source.getAbsolutePath());
+        if(recorded == null) {
+            return false;
+        }
+        long[] current = stamp(source);
+        return recorded[0] == current[0] && recorded[1] == current[1];
+    }
+
+    /**
+     * Returns whether all the source files recorded in this snapshot are unchanged.
+     */
+    public boolean isUpToDate() {
+        for(Map.Entry<String, long[]> entry : sources.entrySet()) {
+            File source = new File(entry.getKey());
+            if(!isUpToDate(source)) {
+                logger.debug("Snapshot source {} has changed", source);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //**************************************************************************
+    // I/O
+    //**************************************************************************
+
+    /**
+     * Writes a snapshot to a file. The file is replaced only if the snapshot could be completely written.
+     * @return true if the snapshot was written.
+     */
+    public static boolean write(Snapshot snapshot, File file) {
+        File tempFile = null;
+        ObjectOutputStream out = null;
+        try {
+            tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            out = new ObjectOutputStream(
+                    new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))));
+            out.writeObject(snapshot);
+            out.close();
+            out = null;
+            ElementsFileUtils.moveFileSafely(tempFile, file.getAbsolutePath());
+            logger.info("Snapshot written to {}", file);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Could not write snapshot to " + file, e);
+            if(tempFile != null && tempFile.exists() && !tempFile.delete()) {
+                logger.warn("Cannot delete: {}", tempFile);
+            }
+            return false;
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * Reads a snapshot from a file.
+     * @return the snapshot, or null if the file does not exist, cannot be read, or was written by a different
+     * version of Portofino. Callers must still check whether the snapshot is up to date.
+     */
+    public static Snapshot read(File file) {
+        if(!file.isFile()) {
+            return null;
+        }
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+            Snapshot snapshot = (Snapshot) in.readObject();
+            if(!ObjectUtils.equals(snapshot.version, ModuleRegistry.getPortofinoVersion())) {
+                logger.info("Ignoring snapshot {} written by Portofino {}", file, snapshot.version);
+                return null;
+            }
+            return snapshot;
+        } catch (Exception e) {
+            logger.warn("Could not read snapshot from " + file, e);
+            return null;
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+}
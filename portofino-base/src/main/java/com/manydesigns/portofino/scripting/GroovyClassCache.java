@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.scripting;
+
+import com.manydesigns.elements.util.ElementsFileUtils;
+import com.manydesigns.portofino.modules.ModuleRegistry;
+import groovy.util.GroovyScriptEngine;
+import org.apache.commons.io.FileUtils;
+import org.codehaus.groovy.ast.ModuleNode;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * On-disk cache of compiled Groovy scripts, used when scripting is frozen. Each script is compiled to a
+ * directory named after a hash of its source, of the shared Groovy classpath and of the Portofino version, so that
+ * a restart reuses the bytecode as long as nothing it may depend on has changed.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class GroovyClassCache {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    public static final Logger logger = LoggerFactory.getLogger(GroovyClassCache.class);
+
+    public static final String MAIN_CLASS_FILE_NAME = "main-class.txt";
+
+    protected final File cacheDirectory;
+    protected final GroovyScriptEngine scriptEngine;
+    protected final byte[] classpathDigest;
+
+    public GroovyClassCache(File cacheDirectory, File classpathDirectory, GroovyScriptEngine scriptEngine)
+            throws IOException {
+        this.cacheDirectory = cacheDirectory;
+        this.scriptEngine = scriptEngine;
+        MessageDigest digest = newDigest();
+        digest.update(String.valueOf(ModuleRegistry.getPortofinoVersion()).getBytes("UTF-8"));
+        digestDirectory(digest, classpathDirectory);
+        classpathDigest = digest.digest();
+        ElementsFileUtils.ensureDirectoryExistsAndWarnIfNotWritable(cacheDirectory);
+    }
+
+    /**
+     * Loads the class of a script from the cache, compiling it first if it's not there.
+     * @param scriptFile the script.
+     * @return the class defined by the script.
+     */
+    public Class<?> loadClass(File scriptFile) throws IOException, ClassNotFoundException {
+        File classDirectory = new File(cacheDirectory, getKey(scriptFile));
+        File mainClassFile = new File(classDirectory, MAIN_CLASS_FILE_NAME);
+        if(!mainClassFile.isFile()) {
+            compile(scriptFile, classDirectory);
+        } else {
+            logger.debug("Loading {} from the class cache", scriptFile);
+        }
+        String mainClassName = FileUtils.readFileToString(mainClassFile, "UTF-8").trim();
+        ClassLoader classLoader =
+                new URLClassLoader(new URL[] { classDirectory.toURI().toURL() }, scriptEngine.getGroovyClassLoader());
+        return classLoader.loadClass(mainClassName);
+    }
+
+    protected void compile(File scriptFile, File classDirectory) throws IOException {
+        logger.debug("Compiling {} to {}", scriptFile, classDirectory);
+        File tempDirectory = new File(cacheDirectory, classDirectory.getName() + ".tmp");
+        FileUtils.deleteQuietly(tempDirectory);
+        CompilerConfiguration cc = new CompilerConfiguration(scriptEngine.getConfig());
+        cc.setTargetDirectory(tempDirectory);
+        CompilationUnit unit = new CompilationUnit(cc, null, scriptEngine.getGroovyClassLoader());
+        unit.addSource(scriptFile);
+        unit.compile(Phases.OUTPUT);
+        ModuleNode module = unit.getAST().getModules().get(0);
+        String mainClassName = module.getClasses().get(0).getName();
+        FileUtils.writeStringToFile(new File(tempDirectory, MAIN_CLASS_FILE_NAME), mainClassName, "UTF-8");
+        FileUtils.deleteQuietly(classDirectory);
+        if(!tempDirectory.renameTo(classDirectory)) {
+            throw new IOException("Cannot move " + tempDirectory + " to " + classDirectory);
+        }
+    }
+
+    /**
+     * Removes all the compiled classes from the cache.
+     */
+    public void clear() throws IOException {
+        logger.info("Clearing Groovy class cache {}", cacheDirectory);
+        FileUtils.cleanDirectory(cacheDirectory);
+    }
+
+    protected String getKey(File scriptFile) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(classpathDigest);
+        digest.update(scriptFile.getAbsolutePath().getBytes("UTF-8"));
+        digest.update(FileUtils.readFileToByteArray(scriptFile));
+        StringBuilder sb = new StringBuilder();
+        for(byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    protected static void digestDirectory(MessageDigest digest, File directory) throws IOException {
+        File[] files = directory.listFiles();
+        if(files == null) {
+            return;
+        }
+        Arrays.sort(files);
+        for(File file : files) {
+            digest.update(file.getName().getBytes("UTF-8"));
+            if(file.isDirectory()) {
+                digestDirectory(digest, file);
+            } else {
+                digest.update(FileUtils.readFileToByteArray(file));
+            }
+        }
+    }
+
+    protected static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new Error(e);
+        }
+    }
+}
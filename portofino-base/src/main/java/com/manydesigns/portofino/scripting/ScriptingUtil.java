@@ -33,6 +33,9 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -53,21 +56,87 @@ public class ScriptingUtil {
         return RandomUtil.getCodeFile(storageDir, GROOVY_FILE_NAME_PATTERN, pageId);
     }
 
+    /**
+     * Classes served without any recompilation check when scripting is frozen, keyed by script URI;
+     * null when scripting is not frozen.
+     */
+    protected static volatile Map<String, Class<?>> frozenClasses;
+
     public static Class<?> getGroovyClass(File scriptFile) throws IOException, ScriptException, ResourceException {
+        String scriptName = scriptFile.toURI().toString();
+        Map<String, Class<?>> frozenClasses = ScriptingUtil.frozenClasses;
+        if(frozenClasses != null) {
+            Class<?> frozenClass = frozenClasses.get(scriptName);
+            if(frozenClass != null) {
+                return frozenClass;
+            }
+        }
         if(!scriptFile.exists()) {
             return null;
         }
         GroovyScriptEngine scriptEngine =
                 (GroovyScriptEngine) ElementsThreadLocals.getServletContext().getAttribute(
                         BaseModule.GROOVY_SCRIPT_ENGINE);
-        return scriptEngine.loadScriptByName(scriptFile.toURI().toString());
+        Class<?> scriptClass = scriptEngine.loadScriptByName(scriptName);
+        if(frozenClasses != null) {
+            logger.info("Script {} was not compiled when scripting was frozen, adding it", scriptName);
+            synchronized (ScriptingUtil.class) {
+                if(ScriptingUtil.frozenClasses != null) {
+                    Map<String, Class<?>> classes = new HashMap<String, Class<?>>(ScriptingUtil.frozenClasses);
+                    classes.put(scriptName, scriptClass);
+                    ScriptingUtil.frozenClasses = Collections.unmodifiableMap(classes);
+                }
+            }
+        }
+        return scriptClass;
+    }
+
+    //**************************************************************************
+    // Frozen mode
+    //**************************************************************************
+
+    /**
+     * Freezes scripting: from now on, the given classes are returned by {@link #getGroovyClass(File)} without
+     * checking whether their sources have changed.
+     * @param classes the compiled classes, keyed by script file.
+     */
+    public static synchronized void freeze(Map<File, Class<?>> classes) {
+        Map<String, Class<?>> frozen = new HashMap<String, Class<?>>();
+        for(Map.Entry<File, Class<?>> entry : classes.entrySet()) {
+            frozen.put(entry.getKey().toURI().toString(), entry.getValue());
+        }
+        frozenClasses = Collections.unmodifiableMap(frozen);
+        logger.info("Scripting frozen with {} classes", frozen.size());
+    }
+
+    /**
+     * Discards the frozen classes, so that scripts are loaded (and recompiled if needed) by the script engine.
+     */
+    public static synchronized void unfreeze() {
+        frozenClasses = null;
+    }
+
+    public static boolean isFrozen() {
+        return frozenClasses != null;
     }
 
     public static GroovyScriptEngine createScriptEngine(File classpathFile, ClassLoader parent) {
+        return createScriptEngine(classpathFile, parent, true);
+    }
+
+    /**
+     * Creates a script engine for the given classpath.
+     * @param classpathFile the directory holding the shared Groovy sources.
+     * @param parent the parent class loader.
+     * @param recompile whether the engine checks the sources for changes and recompiles them. Frozen
+     * applications pass false, so that classes are compiled only once.
+     * @return the script engine.
+     */
+    public static GroovyScriptEngine createScriptEngine(File classpathFile, ClassLoader parent, boolean recompile) {
         CompilerConfiguration cc = new CompilerConfiguration(CompilerConfiguration.DEFAULT);
         String classpath = classpathFile.getAbsolutePath();
         cc.setClasspath(classpath);
-        cc.setRecompileGroovySource(true);
+        cc.setRecompileGroovySource(recompile);
         GroovyScriptEngine scriptEngine;
         try {
             scriptEngine =
@@ -76,7 +145,7 @@ public class ScriptingUtil {
             throw new Error(e);
         }
         scriptEngine.setConfig(cc);
-        scriptEngine.getGroovyClassLoader().setShouldRecompile(true);
+        scriptEngine.getGroovyClassLoader().setShouldRecompile(recompile);
         return scriptEngine;
     }
 }
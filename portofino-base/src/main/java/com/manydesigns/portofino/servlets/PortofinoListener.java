@@ -201,7 +201,9 @@ public class PortofinoListener
         logger.debug("Registering Groovy class loader");
         logger.info("Groovy classpath: " + groovyClasspath.getAbsolutePath());
         GroovyScriptEngine groovyScriptEngine =
-                ScriptingUtil.createScriptEngine(groovyClasspath, getClass().getClassLoader());
+                ScriptingUtil.createScriptEngine(
+                        groovyClasspath, getClass().getClassLoader(),
+                        !configuration.getBoolean(PortofinoProperties.GROOVY_FROZEN, false));
         ClassLoader classLoader = groovyScriptEngine.getGroovyClassLoader();
         servletContext.setAttribute(BaseModule.GROOVY_CLASS_PATH, groovyClasspath);
         servletContext.setAttribute(BaseModule.CLASS_LOADER, classLoader);
@@ -0,0 +1,429 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.stripes;
+
+import net.sourceforge.stripes.action.Resolution;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
+import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Streams a file or an input stream to the client, honoring conditional requests (ETag, If-Modified-Since) and
+ * single byte ranges (Range, If-Range). Files are sent with Tomcat's sendfile when the container supports it, so
+ * their content is never copied through the JVM heap. Otherwise, they are copied with
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)} onto the servlet output stream; since that is
+ * not a channel, the JDK still copies the content through a heap buffer, but no longer than a range requires.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ * @since 4.2.3
+ */
+public class RangeStreamingResolution implements Resolution {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    public final static Logger logger =
+            LoggerFactory.getLogger(RangeStreamingResolution.class);
+
+    public static final int BUFFER_SIZE = 8192;
+
+    public static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    public static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    public static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    public static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    public static final String TOMCAT_REQUEST_FACADE = "org.apache.catalina.connector.RequestFacade";
+    public static final String TOMCAT_RESPONSE_FACADE = "org.apache.catalina.connector.ResponseFacade";
+
+    protected static final long[] UNSATISFIABLE = new long[0];
+
+    //**************************************************************************
+    // Fields
+    //**************************************************************************
+
+    protected final String contentType;
+    protected final File file;
+    protected final InputStream inputStream;
+    protected final long length;
+    protected String filename;
+    protected boolean attachment = true;
+    protected long lastModified = -1;
+    protected String eTag;
+
+    //**************************************************************************
+    // Constructors
+    //**************************************************************************
+
+    public RangeStreamingResolution(String contentType, File file) {
+        this.contentType = contentType;
+        this.file = file;
+        this.inputStream = null;
+        this.length = file.length();
+    }
+
+    /**
+     * @param length the length of the stream, or -1 if unknown; in the latter case, ranges are not supported.
+     */
+    public RangeStreamingResolution(String contentType, InputStream inputStream, long length) {
+        this.contentType = contentType;
+        this.file = null;
+        this.inputStream = inputStream;
+        this.length = length;
+    }
+
+    //**************************************************************************
+    // Resolution implementation
+    //**************************************************************************
+
+    public void execute(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        try {
+            if(isNotModified(request)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                if(eTag != null) {
+                    response.setHeader("ETag", eTag);
+                }
+                return;
+            }
+
+            long start = 0;
+            long count = length;
+            boolean partial = false;
+            String range = request.getHeader("Range");
+            if(range != null && length >= 0 && isIfRangeSatisfied(request)) {
+                long[] bounds = parseRange(range, length);
+                if(bounds == UNSATISFIABLE) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader("Content-Range", "bytes */" + length);
+                    return;
+                } else if(bounds != null) {
+                    start = bounds[0];
+                    count = bounds[1] - bounds[0] + 1;
+                    partial = true;
+                }
+            }
+
+            response.setContentType(contentType);
+            if(length >= 0) {
+                response.setHeader("Accept-Ranges", "bytes");
+            }
+            if(eTag != null) {
+                response.setHeader("ETag", eTag);
+            }
+            if(lastModified >= 0) {
+                response.setDateHeader("Last-Modified", lastModified);
+            }
+            if(filename != null) {
+                response.setHeader("Content-Disposition", getContentDisposition());
+            }
+            if(partial) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + (start + count - 1) + "/" + length);
+            }
+            if(count >= 0) {
+                //setContentLength takes an int, which would overflow on large blobs
+                response.setHeader("Content-Length", Long.toString(count));
+            }
+
+            if("HEAD".equals(request.getMethod())) {
+                return;
+            }
+            if(file != null) {
+                sendFile(request, response, start, count);
+            } else {
+                stream(response, start, count);
+            }
+        } finally {
+            IOUtils.closeQuietly(inputStream);
+        }
+    }
+
+    protected boolean isNotModified(HttpServletRequest request) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if(ifNoneMatch != null) {
+            //If-Modified-Since must be ignored when If-None-Match is present
+            if(eTag == null) {
+                return false;
+            }
+            for(String candidate : StringUtils.split(ifNoneMatch, ',')) {
+                candidate = candidate.trim();
+                if(candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if(candidate.equals("*") || candidate.equals(eTag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if(lastModified >= 0 && request.getHeader("If-Modified-Since") != null) {
+            try {
+                long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+                //HTTP dates have a resolution of one second
+                return ifModifiedSince / 1000 >= lastModified / 1000;
+            } catch (IllegalArgumentException e) {
+                logger.debug("Invalid If-Modified-Since header", e);
+            }
+        }
+        return false;
+    }
+
+    protected boolean isIfRangeSatisfied(HttpServletRequest request) {
+        String ifRange = request.getHeader("If-Range");
+        if(ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if(ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            //Weak validators never match for If-Range
+            return eTag != null && ifRange.equals(eTag);
+        }
+        if(lastModified < 0) {
+            return false;
+        }
+        try {
+            return request.getDateHeader("If-Range") / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            logger.debug("Invalid If-Range header", e);
+            return false;
+        }
+    }
+
+    /**
+     * Parses a Range header against a representation of the given length.
+     * @return the first and last byte positions (inclusive) of the range; {@link #UNSATISFIABLE} if the range
+     * cannot be satisfied; null if the header is to be ignored and the whole content served, as happens with
+     * invalid headers and with multiple ranges, which are not supported.
+     */
+    protected static long[] parseRange(String header, long length) {
+        String prefix = "bytes=";
+        if(!header.startsWith(prefix)) {
+            return null;
+        }
+        String spec = header.substring(prefix.length()).trim();
+        int dash = spec.indexOf('-');
+        if(dash < 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+        String first = spec.substring(0, dash).trim();
+        String last = spec.substring(dash + 1).trim();
+        try {
+            long start;
+            long end;
+            if(first.length() == 0) {
+                if(last.length() == 0) {
+                    return null;
+                }
+                long suffixLength = Long.parseLong(last);
+                if(suffixLength < 0) {
+                    return null;
+                } else if(suffixLength == 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                start = Math.max(0, length - suffixLength);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.length() == 0 ? length - 1 : Long.parseLong(last);
+                if(start < 0 || end < start) {
+                    return null;
+                } else if(start >= length) {
+                    return UNSATISFIABLE;
+                }
+                end = Math.min(end, length - 1);
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    protected void sendFile(HttpServletRequest request, HttpServletResponse response, long start, long count)
+            throws IOException {
+        if(canUseSendfile(request, response)) {
+            request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + count;
+            while(position < end) {
+                long transferred = channel.transferTo(position, end - position, out);
+                if(transferred <= 0) {
+                    break; //The file has been truncated
+                }
+                position += transferred;
+            }
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Tomcat honors the sendfile attributes of its own request once the servlet returns. Filters (e.g. Shiro's and
+     * Stripes') wrap the request and the response, so both are unwrapped to reach Tomcat's facades. Sendfile is
+     * not used if a response wrapper replaces the output stream (e.g. to compress or buffer the output), since
+     * it would be bypassed.
+     */
+    protected boolean canUseSendfile(HttpServletRequest request, HttpServletResponse response) {
+        if(!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            return false;
+        }
+        ServletRequest actualRequest = request;
+        while(actualRequest instanceof ServletRequestWrapper) {
+            actualRequest = ((ServletRequestWrapper) actualRequest).getRequest();
+        }
+        ServletResponse actualResponse = response;
+        while(actualResponse instanceof ServletResponseWrapper) {
+            if(overridesOutputStream(actualResponse.getClass())) {
+                logger.debug("Response wrapper {} replaces the output stream, not using sendfile", actualResponse);
+                return false;
+            }
+            actualResponse = ((ServletResponseWrapper) actualResponse).getResponse();
+        }
+        return TOMCAT_REQUEST_FACADE.equals(actualRequest.getClass().getName()) &&
+               TOMCAT_RESPONSE_FACADE.equals(actualResponse.getClass().getName());
+    }
+
+    protected static boolean overridesOutputStream(Class<?> responseWrapperClass) {
+        try {
+            return responseWrapperClass.getMethod("getOutputStream").getDeclaringClass() !=
+                   ServletResponseWrapper.class;
+        } catch (NoSuchMethodException e) {
+            throw new Error(e);
+        }
+    }
+
+    protected void stream(HttpServletResponse response, long start, long count) throws IOException {
+        OutputStream out = response.getOutputStream();
+        if(start > 0) {
+            IOUtils.skipFully(inputStream, start);
+        }
+        if(count < 0) {
+            IOUtils.copyLarge(inputStream, out);
+        } else {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long remaining = count;
+            while(remaining > 0) {
+                int read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if(read < 0) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        out.flush();
+    }
+
+    protected String getContentDisposition() throws UnsupportedEncodingException {
+        String type = attachment ? "attachment" : "inline";
+        String quoted = filename.replace("\\", "\\\\").replace("\"", "\\\"");
+        String encoded = URLEncoder.encode(filename, "UTF-8").replace("+", "%20");
+        return type + "; filename=\"" + quoted + "\"; filename*=UTF-8''" + encoded;
+    }
+
+    //**************************************************************************
+    // Utility methods
+    //**************************************************************************
+
+    /**
+     * Builds a strong entity tag out of the given parts, e.g. a content code and its size.
+     */
+    public static String createETag(Object... parts) {
+        return "\"" + StringUtils.join(parts, '-').replace("\"", "") + "\"";
+    }
+
+    //**************************************************************************
+    // Getters/setters
+    //**************************************************************************
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public RangeStreamingResolution setFilename(String filename) {
+        this.filename = filename;
+        return this;
+    }
+
+    public boolean isAttachment() {
+        return attachment;
+    }
+
+    public RangeStreamingResolution setAttachment(boolean attachment) {
+        this.attachment = attachment;
+        return this;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public RangeStreamingResolution setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+        return this;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    public RangeStreamingResolution setETag(String eTag) {
+        this.eTag = eTag;
+        return this;
+    }
+}
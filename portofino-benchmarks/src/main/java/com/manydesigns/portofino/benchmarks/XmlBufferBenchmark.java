@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.benchmarks;
+
+import com.manydesigns.elements.xml.XhtmlBuffer;
+import com.manydesigns.elements.xml.XmlBuffer;
+import org.apache.commons.lang.StringEscapeUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the current way {@link XmlBuffer} and {@link XhtmlBuffer} escape text, i.e. straight into the buffer, with
+ * escaping to an intermediate String first, as they used to do. Also measures rendering a table, which is the
+ * typical use of XhtmlBuffer in search results.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class XmlBufferBenchmark {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    @Param({"plain", "markup", "accented"})
+    public String text;
+
+    @Param({"100"})
+    public int rows;
+
+    protected String value;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20; i++) {
+            if ("markup".equals(text)) {
+                sb.append("<b>Tom & Jerry</b> \"quoted\" ");
+            } else if ("accented".equals(text)) {
+                sb.append("Perché è già così ");
+            } else {
+                sb.append("Plain text value ");
+            }
+        }
+        value = sb.toString();
+    }
+
+    //**************************************************************************
+    // Text escaping
+    //**************************************************************************
+
+    @Benchmark
+    public String xmlWriteEscaped() {
+        XmlBuffer xb = new XmlBuffer();
+        xb.openElement("p");
+        xb.write(value);
+        xb.closeElement("p");
+        return xb.toString();
+    }
+
+    @Benchmark
+    public String xmlEscapeThenWrite() {
+        XmlBuffer xb = new XmlBuffer();
+        xb.openElement("p");
+        xb.writeNoHtmlEscape(StringEscapeUtils.escapeXml(value));
+        xb.closeElement("p");
+        return xb.toString();
+    }
+
+    @Benchmark
+    public String xhtmlWriteEscaped() {
+        XhtmlBuffer xb = new XhtmlBuffer();
+        xb.openElement("p");
+        xb.write(value);
+        xb.closeElement("p");
+        return xb.toString();
+    }
+
+    @Benchmark
+    public String xhtmlEscapeThenWrite() {
+        XhtmlBuffer xb = new XhtmlBuffer();
+        xb.openElement("p");
+        xb.writeNoHtmlEscape(StringEscapeUtils.escapeHtml(value));
+        xb.closeElement("p");
+        return xb.toString();
+    }
+
+    //**************************************************************************
+    // Table rendering
+    //**************************************************************************
+
+    @Benchmark
+    public String xhtmlTable() {
+        XhtmlBuffer xb = new XhtmlBuffer();
+        xb.openElement("table");
+        xb.openElement("tbody");
+        for (int i = 0; i < rows; i++) {
+            xb.openElement("tr");
+            for (int j = 0; j < 10; j++) {
+                xb.openElement("td");
+                xb.addAttribute("id", "row" + i + "_col" + j);
+                xb.addAttribute("title", value);
+                xb.write(value);
+                xb.closeElement("td");
+            }
+            xb.closeElement("tr");
+        }
+        xb.closeElement("tbody");
+        xb.closeElement("table");
+        return xb.toString();
+    }
+
+    @Benchmark
+    public String xhtmlNestedBuffers() {
+        XhtmlBuffer xb = new XhtmlBuffer();
+        xb.openElement("div");
+        for (int i = 0; i < rows; i++) {
+            XhtmlBuffer cell = new XhtmlBuffer();
+            cell.openElement("span");
+            cell.write(value);
+            cell.closeElement("span");
+            xb.write(cell);
+        }
+        xb.closeElement("div");
+        return xb.toString();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.benchmarks;
+
+import com.manydesigns.elements.xml.XhtmlBuffer;
+import com.manydesigns.elements.xml.XmlBuffer;
+import org.apache.commons.lang.StringEscapeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that the text and attribute values written by {@link XmlBuffer} and {@link XhtmlBuffer} are escaped
+ * exactly as commons-lang's {@link StringEscapeUtils#escapeXml(String)} and
+ * {@link StringEscapeUtils#escapeHtml(String)} escape them. Exits with status 1 at the first difference.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class XmlEscapeCheck {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    public static void main(String[] args) {
+        List<String> samples = new ArrayList<String>();
+        samples.add("");
+        samples.add("plain");
+        samples.add("<a href=\"x?a=1&b='2'\">Tom & Jerry</a>");
+        samples.add("&&<<>>\"\"''");
+        samples.add("Perché è già così");
+        samples.add("€   😀 \u0000 \t\r\n");
+        //Every char, in chunks
+        for (int start = 0; start <= Character.MAX_VALUE; start += 256) {
+            StringBuilder sb = new StringBuilder();
+            for (int c = start; c < start + 256; c++) {
+                sb.append((char) c);
+            }
+            samples.add(sb.toString());
+        }
+        //Random mixes of ASCII, special and non-ASCII characters
+        Random random = new Random(42);
+        char[] special = {'<', '>', '&', '"', '\'', 'a', ' ', 'è', '€', '\ud83d', '\ude00'};
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                if (random.nextBoolean()) {
+                    sb.append(special[random.nextInt(special.length)]);
+                } else {
+                    sb.append((char) random.nextInt(0x3000));
+                }
+            }
+            samples.add(sb.toString());
+        }
+
+        for (String sample : samples) {
+            check("XmlBuffer text", StringEscapeUtils.escapeXml(sample), xmlText(new XmlBuffer(), sample));
+            check("XmlBuffer attribute", StringEscapeUtils.escapeXml(sample), xmlAttribute(new XmlBuffer(), sample));
+            check("XhtmlBuffer text", StringEscapeUtils.escapeHtml(sample), xmlText(new XhtmlBuffer(), sample));
+            check("XhtmlBuffer attribute",
+                    StringEscapeUtils.escapeHtml(sample), xmlAttribute(new XhtmlBuffer(), sample));
+        }
+        System.out.println("Checked " + samples.size() + " strings: escaping matches commons-lang");
+    }
+
+    protected static String xmlText(XmlBuffer xb, String s) {
+        xb.openElement("p");
+        xb.write(s);
+        xb.closeElement("p");
+        String xml = xb.toString();
+        return xml.substring("<p>".length(), xml.length() - "</p>".length());
+    }
+
+    protected static String xmlAttribute(XmlBuffer xb, String s) {
+        xb.openElement("p");
+        xb.addAttribute("title", s);
+        xb.closeElement("p");
+        String xml = xb.toString();
+        int start = xml.indexOf('"') + 1;
+        return xml.substring(start, xml.lastIndexOf('"'));
+    }
+
+    protected static void check(String what, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            System.err.println(what + " differs from commons-lang:");
+            System.err.println("  expected: " + expected);
+            System.err.println("  actual:   " + actual);
+            System.exit(1);
+        }
+    }
+}
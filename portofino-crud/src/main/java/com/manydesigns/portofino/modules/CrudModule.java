@@ -20,8 +20,12 @@
 
 package com.manydesigns.portofino.modules;
 
+import com.manydesigns.portofino.cache.CacheResetEvent;
+import com.manydesigns.portofino.cache.CacheResetListener;
+import com.manydesigns.portofino.cache.CacheResetListenerRegistry;
 import com.manydesigns.portofino.di.Inject;
 import com.manydesigns.portofino.pageactions.crud.CrudAction;
+import com.manydesigns.portofino.pageactions.crud.SelectionProviderCache;
 import com.manydesigns.portofino.pageactions.m2m.ManyToManyAction;
 import com.manydesigns.portofino.pageactions.registry.PageActionRegistry;
 import org.apache.commons.configuration.Configuration;
@@ -48,8 +52,18 @@ public class CrudModule implements Module {
     @Inject(PageactionsModule.PAGE_ACTIONS_REGISTRY)
     public PageActionRegistry pageActionRegistry;
 
+    @Inject(BaseModule.CACHE_RESET_LISTENER_REGISTRY)
+    public CacheResetListenerRegistry cacheResetListenerRegistry;
+
     protected ModuleStatus status = ModuleStatus.CREATED;
 
+    //**************************************************************************
+    // Constants
+    //**************************************************************************
+
+    public static final String SELECTION_PROVIDER_CACHE_MAX_ROWS = "crud.selectionProviderCache.maxRows";
+    public static final String SELECTION_PROVIDER_CACHE_TIME_TO_LIVE = "crud.selectionProviderCache.timeToLive";
+
     //**************************************************************************
     // Logging
     //**************************************************************************
@@ -91,6 +105,12 @@ public class CrudModule implements Module {
     public void init() {
         pageActionRegistry.register(CrudAction.class);
         pageActionRegistry.register(ManyToManyAction.class);
+        SelectionProviderCache.configure(
+                configuration.getLong(
+                        SELECTION_PROVIDER_CACHE_MAX_ROWS, SelectionProviderCache.DEFAULT_MAX_ROWS),
+                configuration.getInt(
+                        SELECTION_PROVIDER_CACHE_TIME_TO_LIVE, SelectionProviderCache.DEFAULT_TIME_TO_LIVE));
+        cacheResetListenerRegistry.getCacheResetListeners().add(new SelectionProviderCacheResetListener());
         status = ModuleStatus.ACTIVE;
     }
 
@@ -113,4 +133,12 @@ public class CrudModule implements Module {
     public ModuleStatus getStatus() {
         return status;
     }
+
+    private static class SelectionProviderCacheResetListener implements CacheResetListener {
+        @Override
+        public void handleReset(CacheResetEvent e) {
+            logger.info("Selection provider cache statistics: {}", SelectionProviderCache.getStatistics());
+            SelectionProviderCache.clear();
+        }
+    }
 }
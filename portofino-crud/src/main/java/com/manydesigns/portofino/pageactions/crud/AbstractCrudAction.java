@@ -27,6 +27,7 @@ import com.manydesigns.elements.annotations.*;
 import com.manydesigns.elements.blobs.Blob;
 import com.manydesigns.elements.blobs.BlobManager;
 import com.manydesigns.elements.blobs.BlobUtils;
+import com.manydesigns.elements.blobs.SimpleBlobManager;
 import com.manydesigns.elements.fields.*;
 import com.manydesigns.elements.forms.FieldSet;
 import com.manydesigns.elements.forms.*;
@@ -34,6 +35,7 @@ import com.manydesigns.elements.messages.SessionMessages;
 import com.manydesigns.elements.options.DefaultSelectionProvider;
 import com.manydesigns.elements.options.DisplayMode;
 import com.manydesigns.elements.options.SearchDisplayMode;
+import com.manydesigns.elements.ognl.OgnlUtils;
 import com.manydesigns.elements.options.SelectionProvider;
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
@@ -43,6 +45,7 @@ import com.manydesigns.elements.util.FormUtil;
 import com.manydesigns.elements.util.MimeTypes;
 import com.manydesigns.elements.util.ReflectionUtil;
 import com.manydesigns.elements.util.Util;
+import com.manydesigns.elements.xls.TableFormXlsxExporter;
 import com.manydesigns.elements.xml.XhtmlBuffer;
 import com.manydesigns.portofino.PortofinoProperties;
 import com.manydesigns.portofino.buttons.ButtonInfo;
@@ -53,6 +56,7 @@ import com.manydesigns.portofino.buttons.annotations.Buttons;
 import com.manydesigns.portofino.buttons.annotations.Guard;
 import com.manydesigns.portofino.cache.ControlsCache;
 import com.manydesigns.portofino.di.Inject;
+import com.manydesigns.portofino.dispatcher.DeferrablePageAction;
 import com.manydesigns.portofino.dispatcher.PageInstance;
 import com.manydesigns.portofino.logic.SecurityLogic;
 import com.manydesigns.portofino.modules.BaseModule;
@@ -66,6 +70,7 @@ import com.manydesigns.portofino.pageactions.crud.reflection.CrudAccessor;
 import com.manydesigns.portofino.security.AccessLevel;
 import com.manydesigns.portofino.security.RequiresPermissions;
 import com.manydesigns.portofino.security.SupportsPermissions;
+import com.manydesigns.portofino.stripes.RangeStreamingResolution;
 import com.manydesigns.portofino.util.PkHelper;
 import com.manydesigns.portofino.util.ShortNameUtils;
 import net.sourceforge.stripes.action.*;
@@ -77,10 +82,13 @@ import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.codec.Base64;
 import org.joda.time.DateTime;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONStringer;
+import org.json.JSONWriter;
 import org.jsoup.Jsoup;
 import org.jsoup.safety.Whitelist;
 import org.slf4j.Logger;
@@ -92,15 +100,20 @@ import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.Closeable;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.sql.Timestamp;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -144,7 +157,7 @@ import java.util.regex.Pattern;
 @RequiresPermissions(level = AccessLevel.VIEW)
 @ConfigurationClass(CrudConfiguration.class)
 @SupportsDetail
-public abstract class AbstractCrudAction<T> extends AbstractPageAction {
+public abstract class AbstractCrudAction<T> extends AbstractPageAction implements DeferrablePageAction {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
@@ -165,6 +178,11 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
             PERMISSION_EDIT = "crud-edit",
             PERMISSION_DELETE = "crud-delete";
 
+    /**
+     * The maximum number of options returned to autocomplete fields; they only show the first few anyway.
+     */
+    public static final int DEFAULT_AUTOCOMPLETE_OPTIONS = 50;
+
     public static final Logger logger =
             LoggerFactory.getLogger(AbstractCrudAction.class);
 
@@ -181,6 +199,7 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
     public Integer maxResults;
     public String sortProperty;
     public String sortDirection;
+    public String cursor;
     public boolean searchVisible;
 
     //--------------------------------------------------------------------------
@@ -240,6 +259,16 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
 
     protected ResultSetNavigation resultSetNavigation;
 
+    /**
+     * With keyset pagination, the cursor pointing to the next page of search results, or null if there is none.
+     */
+    protected String nextCursor;
+
+    /**
+     * Whether the total number of search records is an estimate rather than an exact count.
+     */
+    protected boolean totalSearchRecordsApproximate;
+
     //--------------------------------------------------------------------------
     // Crud operations
     //--------------------------------------------------------------------------
@@ -371,6 +400,10 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
     }
 
     public Resolution jsonSearchData() throws JSONException {
+        if(isStreamingSearch()) {
+            return streamJsonSearchData();
+        }
+
         executeSearch();
 
         final long totalRecords = getTotalSearchRecords();
@@ -382,12 +415,17 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
                 .key("recordsReturned")
                 .value(objects.size())
                 .key("totalRecords")
-                .value(totalRecords)
-                .key("startIndex")
-                .value(firstResult == null ? 0 : firstResult)
-                .key("Result")
-                .array();
-        for (TableForm.Row row : tableForm.getRows()) {
+                .value(totalRecords);
+        if(isTotalSearchRecordsApproximate()) {
+            js.key("totalRecordsApproximate").value(true);
+        }
+        js.key("startIndex").value(firstResult == null ? 0 : firstResult);
+        if(isKeysetPagination()) {
+            js.key("nextCursor").value(nextCursor);
+        }
+        js.key("Result").array();
+        for (int i = 0; i < tableForm.getRowCount(); i++) {
+            TableForm.Row row = tableForm.getRow(i);
             js.object()
                     .key("__rowKey")
                     .value(row.getKey());
@@ -401,32 +439,303 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
             @Override
             protected void applyHeaders(HttpServletResponse response) {
                 super.applyHeaders(response);
-                Integer rowsPerPage = getCrudConfiguration().getRowsPerPage();
-                if(rowsPerPage != null && totalRecords > rowsPerPage) {
-                    int firstResult = getFirstResult() != null ? getFirstResult() : 1;
-                    int currentPage = firstResult / rowsPerPage;
-                    int lastPage = (int) (totalRecords / rowsPerPage);
-                    if(totalRecords % rowsPerPage == 0) {
-                        lastPage--;
-                    }
-                    StringBuilder sb = new StringBuilder();
-                    if(currentPage > 0) {
-                        sb.append("<").append(getLinkToPage(0)).append(">; rel=\"first\", ");
-                        sb.append("<").append(getLinkToPage(currentPage - 1)).append(">; rel=\"prev\"");
+                addSearchLinkHeader(response, totalRecords);
+            }
+        };
+    }
+
+    /**
+     * Like {@link #jsonSearchData()}, but writes each row to the response as soon as it is read, reusing a single
+     * row form to format it, so that memory use does not depend on the number of rows. The number of returned
+     * records is written after the results.
+     * @return the search results as JSON.
+     */
+    protected Resolution streamJsonSearchData() {
+        setupSearchForm();
+        if(maxResults == null) {
+            maxResults = getCrudConfiguration().getRowsPerPage();
+        }
+        final long totalRecords = getTotalSearchRecords();
+
+        objects = null;
+        TableFormBuilder tableFormBuilder = createTableFormBuilder();
+        configureTableFormBuilder(tableFormBuilder, Mode.VIEW, 1);
+        tableForm = buildTableForm(tableFormBuilder);
+
+        return new StreamingResolution(MimeTypes.APPLICATION_JSON_UTF8) {
+            @Override
+            protected void applyHeaders(HttpServletResponse response) {
+                super.applyHeaders(response);
+                addSearchLinkHeader(response, totalRecords);
+            }
+
+            @Override
+            protected void stream(HttpServletResponse response) throws Exception {
+                Writer writer = response.getWriter();
+                JSONWriter js = new JSONWriter(writer);
+                js.object()
+                        .key("totalRecords")
+                        .value(totalRecords);
+                if(isTotalSearchRecordsApproximate()) {
+                    js.key("totalRecordsApproximate").value(true);
+                }
+                js.key("startIndex").value(firstResult == null ? 0 : firstResult);
+                js.key("Result").array();
+                TableForm.Row row = tableForm.getRows()[0];
+                boolean generatedKeys = tableForm.getKeyGenerator() != null;
+                int recordsReturned = 0;
+                Iterator<? extends T> iterator = scrollObjects();
+                try {
+                    while (iterator.hasNext()) {
+                        T obj = iterator.next();
+                        row.readFromObject(obj);
+                        refreshBlobDownloadHref(row, obj);
+                        BlobUtils.loadBlobs(row, getBlobManager(), false);
+                        js.object()
+                                .key("__rowKey")
+                                .value(generatedKeys ? row.getKey() : Integer.toString(recordsReturned));
+                        FormUtil.fieldsToJson(js, row);
+                        js.endObject();
+                        recordsReturned++;
                     }
-                    if(currentPage != lastPage) {
-                        if(currentPage > 0) {
-                            sb.append(", ");
-                        }
-                        sb.append("<").append(getLinkToPage(currentPage + 1)).append(">; rel=\"next\", ");
-                        sb.append("<").append(getLinkToPage(lastPage)).append(">; rel=\"last\"");
+                } finally {
+                    if(iterator instanceof Closeable) {
+                        ((Closeable) iterator).close();
                     }
-                    response.setHeader("Link", sb.toString());
                 }
+                js.endArray();
+                js.key("recordsReturned").value(recordsReturned);
+                js.endObject();
+                writer.flush();
             }
         };
     }
 
+    /**
+     * Returns whether {@link #jsonSearchData()} streams the search results (see
+     * {@link #streamJsonSearchData()}). This implementation returns true if the configuration enables it and
+     * the results don't need to be inspected before being written, as with keyset pagination.
+     */
+    protected boolean isStreamingSearch() {
+        return getCrudConfiguration() != null &&
+               getCrudConfiguration().isStreamingSearch() &&
+               !isKeysetPagination();
+    }
+
+    /**
+     * Returns the objects matching the current search, honoring sort order, first and max results, to be
+     * consumed one at a time by {@link #streamJsonSearchData()}. If the iterator implements {@link Closeable},
+     * it's closed when the results have been written. This implementation loads the objects with
+     * {@link #loadObjects()}.
+     * @return an iterator over the objects.
+     */
+    protected Iterator<? extends T> scrollObjects() {
+        loadObjects();
+        List<? extends T> result = objects;
+        objects = null;
+        return result.iterator();
+    }
+
+    /**
+     * Adds the Link header, with the URLs of the first, previous, next and last pages of the search results,
+     * to the response.
+     * @param response the response.
+     * @param totalRecords the number of search records.
+     */
+    protected void addSearchLinkHeader(HttpServletResponse response, long totalRecords) {
+        Integer rowsPerPage = getCrudConfiguration().getRowsPerPage();
+        if(isKeysetPagination()) {
+            StringBuilder sb = new StringBuilder();
+            if(cursor != null) {
+                sb.append("<").append(getLinkToPage(0)).append(">; rel=\"first\"");
+            }
+            if(nextCursor != null) {
+                if(sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append("<").append(getLinkToNextPage()).append(">; rel=\"next\"");
+            }
+            if(sb.length() > 0) {
+                response.setHeader("Link", sb.toString());
+            }
+        } else if(rowsPerPage != null && totalRecords > rowsPerPage) {
+            int firstResult = getFirstResult() != null ? getFirstResult() : 1;
+            int currentPage = firstResult / rowsPerPage;
+            int lastPage = (int) (totalRecords / rowsPerPage);
+            if(totalRecords % rowsPerPage == 0) {
+                lastPage--;
+            }
+            StringBuilder sb = new StringBuilder();
+            if(currentPage > 0) {
+                sb.append("<").append(getLinkToPage(0)).append(">; rel=\"first\", ");
+                sb.append("<").append(getLinkToPage(currentPage - 1)).append(">; rel=\"prev\"");
+            }
+            if(currentPage != lastPage) {
+                if(currentPage > 0) {
+                    sb.append(", ");
+                }
+                sb.append("<").append(getLinkToPage(currentPage + 1)).append(">; rel=\"next\", ");
+                sb.append("<").append(getLinkToPage(lastPage)).append(">; rel=\"last\"");
+            }
+            response.setHeader("Link", sb.toString());
+        }
+    }
+
+    //**************************************************************************
+    // Export
+    //**************************************************************************
+
+    /**
+     * Exports all the results of the current search, in the current sort order, to an xlsx workbook. The rows are
+     * read with {@link #scrollObjects()} and written to the response one at a time.
+     * @return the workbook.
+     */
+    @Button(list = "crud-search", key = "export.xlsx", order = 4, icon = Button.ICON_EXPORT)
+    @Guard(test = "isXlsxExportEnabled()", type = GuardType.VISIBLE)
+    public Resolution exportSearchXlsx() {
+        setupSearchForm();
+        firstResult = null;
+        maxResults = null;
+        cursor = null;
+        objects = null;
+        TableFormBuilder tableFormBuilder = createTableFormBuilder();
+        configureTableFormBuilder(tableFormBuilder, Mode.VIEW, 1);
+        tableForm = buildTableForm(tableFormBuilder);
+        final String title = pageInstance.getPage().getTitle();
+
+        return new StreamingResolution(TableFormXlsxExporter.CONTENT_TYPE) {
+            @Override
+            protected void stream(HttpServletResponse response) throws Exception {
+                OutputStream outputStream = response.getOutputStream();
+                TableFormXlsxExporter exporter = new TableFormXlsxExporter(tableForm);
+                exporter.setTitle(title);
+                exporter.start(outputStream);
+                TableForm.Row row = tableForm.getRows()[0];
+                Iterator<? extends T> iterator = scrollObjects();
+                try {
+                    while (iterator.hasNext()) {
+                        row.readFromObject(iterator.next());
+                        exporter.writeRow(row);
+                    }
+                } finally {
+                    if(iterator instanceof Closeable) {
+                        ((Closeable) iterator).close();
+                    }
+                }
+                exporter.finish();
+                outputStream.flush();
+            }
+        }.setFilename(title + ".xlsx");
+    }
+
+    public boolean isXlsxExportEnabled() {
+        return getCrudConfiguration() != null && getCrudConfiguration().isXlsxExport();
+    }
+
+    //**************************************************************************
+    // Keyset pagination
+    //**************************************************************************
+
+    /**
+     * Returns the properties that identify the position of an object in the current sort order, for keyset
+     * pagination: the sort property, if any, followed by the primary key. Returns null if the current sort order
+     * does not allow keyset pagination. This implementation always returns null.
+     * @return the properties, or null.
+     */
+    protected PropertyAccessor[] getKeysetProperties() {
+        return null;
+    }
+
+    /**
+     * Returns whether search results are paginated with a cursor (keyset pagination) rather than with an offset.
+     * It depends on the configuration and on the current sort order.
+     */
+    public boolean isKeysetPagination() {
+        return crudConfiguration != null &&
+               crudConfiguration.isKeysetPagination() &&
+               crudConfiguration.getRowsPerPage() != null &&
+               getKeysetProperties() != null;
+    }
+
+    /**
+     * Encodes the position of an object in the current sort order as an opaque string.
+     * @param object the object.
+     * @param properties the properties that identify the position, see {@link #getKeysetProperties()}.
+     * @return the cursor.
+     */
+    protected String encodeCursor(Object object, PropertyAccessor[] properties) {
+        JSONArray values = new JSONArray();
+        for(PropertyAccessor property : properties) {
+            Object value = property.get(object);
+            if(value instanceof Timestamp) {
+                //getTime() only has millisecond precision; keep the nanos so the seek starts exactly after the row
+                JSONArray timestamp = new JSONArray();
+                timestamp.put(((Timestamp) value).getTime());
+                timestamp.put(((Timestamp) value).getNanos());
+                values.put(timestamp);
+            } else if(value instanceof Date) {
+                values.put(((Date) value).getTime());
+            } else {
+                values.put(OgnlUtils.convertValueToString(value));
+            }
+        }
+        try {
+            return Base64.encodeToString(values.toString().getBytes("UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new Error(e);
+        }
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encodeCursor(Object, PropertyAccessor[])}.
+     * @param cursor the cursor.
+     * @param properties the properties that identify the position, see {@link #getKeysetProperties()}.
+     * @return the values of the properties, or null if the cursor is not valid.
+     */
+    protected Object[] decodeCursor(String cursor, PropertyAccessor[] properties) {
+        try {
+            JSONArray values = new JSONArray(new String(Base64.decode(cursor), "UTF-8"));
+            if(values.length() != properties.length) {
+                logger.warn("Invalid cursor: {}", cursor);
+                return null;
+            }
+            Object[] result = new Object[properties.length];
+            for(int i = 0; i < properties.length; i++) {
+                Class<?> type = properties[i].getType();
+                JSONArray timestamp = values.optJSONArray(i);
+                if(timestamp != null) {
+                    Timestamp value = new Timestamp(timestamp.getLong(0));
+                    value.setNanos(timestamp.getInt(1));
+                    result[i] = value;
+                } else if(Date.class.isAssignableFrom(type)) {
+                    result[i] = type.getConstructor(long.class).newInstance(values.getLong(i));
+                } else {
+                    result[i] = OgnlUtils.convertValue(values.getString(i), type);
+                }
+            }
+            return result;
+        } catch (Exception e) {
+            logger.warn("Invalid cursor: " + cursor, e);
+            return null;
+        }
+    }
+
+    public String getLinkToNextPage() {
+        Map<String, Object> parameters = new HashMap<String, Object>();
+        parameters.put("sortProperty", getSortProperty());
+        parameters.put("sortDirection", getSortDirection());
+        parameters.put("cursor", nextCursor);
+        parameters.put("maxResults", getCrudConfiguration().getRowsPerPage());
+        if(!PageActionLogic.isEmbedded(this)) {
+            parameters.put(AbstractCrudAction.SEARCH_STRING_PARAM, getSearchString());
+        }
+
+        UrlBuilder urlBuilder =
+                new UrlBuilder(Locale.getDefault(), Util.getAbsoluteUrl(context.getActionPath()), false)
+                        .addParameters(parameters);
+        return urlBuilder.toString();
+    }
+
     /**
      * Returns the number of objects matching the current search criteria, not considering set limits
      * (first and max results).
@@ -1006,7 +1315,7 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
     @Override
     protected boolean acceptsPathParameter() {
         return (classAccessor != null &&
-                pageInstance.getParameters().size() < classAccessor.getKeyProperties().length);
+                pageInstance.getParameters().size() < ReflectionUtil.getKeyPropertyList(classAccessor).size());
     }
 
     @Override
@@ -1035,33 +1344,13 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
 
         List<String> parameters = pageInstance.getParameters();
         if(!parameters.isEmpty()) {
-            String encoding = getUrlEncoding();
-            pk = parameters.toArray(new String[parameters.size()]);
-            try {
-                for(int i = 0; i < pk.length; i++) {
-                    pk[i] = URLDecoder.decode(pk[i], encoding);
-                }
-            } catch (UnsupportedEncodingException e) {
-                throw new Error(e);
-            }
-            OgnlContext ognlContext = ElementsThreadLocals.getOgnlContext();
-
-            Serializable pkObject;
-            try {
-                pkObject = pkHelper.getPrimaryKey(pk);
-            } catch (Exception e) {
-                logger.warn("Invalid primary key", e);
-                return notInUseCase(context, parameters);
-            }
-            object = loadObjectByPrimaryKey(pkObject);
-            if(object != null) {
-                ognlContext.put(crudConfiguration.getActualVariable(), object);
-                String title = getReadTitle();
-                pageInstance.setTitle(title);
-                pageInstance.setDescription(title);
-            } else {
-                return notInUseCase(context, parameters);
+            Resolution resolution = loadObjectFromParameters(parameters);
+            if(resolution != null) {
+                return resolution;
             }
+            String title = getReadTitle();
+            pageInstance.setTitle(title);
+            pageInstance.setDescription(title);
         } else {
             String title = crudConfiguration.getSearchTitle();
             pageInstance.setTitle(title);
@@ -1070,6 +1359,90 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
         return null;
     }
 
+    /**
+     * When this page is an ancestor of the requested one, the object identified by the path parameters is still
+     * loaded and published in the OGNL context, as descendant pages typically filter on it; only computing the
+     * read title (an OGNL format over the object) is left to {@link #preparePage()}. That is skipped by requests
+     * that never read the ancestor's title, such as REST calls, JSON data and blob downloads, while HTML pages
+     * compute it anyway for their breadcrumbs. Subclasses that override preparePage are always prepared eagerly.
+     */
+    @Override
+    public Resolution prepareAncestorPage() {
+        if(isPreparePageOverridden()) {
+            Resolution resolution = preparePage();
+            if(resolution == null) {
+                pageInstance.setPrepared(true);
+            }
+            return resolution;
+        }
+        if(pkHelper == null) {
+            return null;
+        }
+        List<String> parameters = pageInstance.getParameters();
+        if(parameters.isEmpty()) {
+            return null;
+        }
+        return loadObjectFromParameters(parameters);
+    }
+
+    /**
+     * Whether each subclass overrides {@link #preparePage()}, computed once per class. A ClassValue does not keep
+     * reloaded (Groovy) classes alive.
+     */
+    protected static final ClassValue<Boolean> preparePageOverridden = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("preparePage").getDeclaringClass() != AbstractCrudAction.class;
+            } catch (NoSuchMethodException e) {
+                throw new Error(e);
+            }
+        }
+    };
+
+    protected boolean isPreparePageOverridden() {
+        return preparePageOverridden.get(getClass());
+    }
+
+    /**
+     * Loads the object identified by the path parameters and publishes it in the OGNL context. If the same
+     * object has already been loaded during this request (e.g. by a deferred preparation), it is reused.
+     * @param parameters the (URL-encoded) path parameters.
+     * @return null if the object was loaded, or a Resolution signaling that it doesn't exist.
+     */
+    protected Resolution loadObjectFromParameters(List<String> parameters) {
+        String encoding = getUrlEncoding();
+        String[] decodedPk = parameters.toArray(new String[parameters.size()]);
+        try {
+            for(int i = 0; i < decodedPk.length; i++) {
+                decodedPk[i] = URLDecoder.decode(decodedPk[i], encoding);
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new Error(e);
+        }
+        if(object != null && Arrays.equals(decodedPk, pk)) {
+            logger.debug("Object already loaded for {}", pageInstance);
+            return null;
+        }
+        pk = decodedPk;
+        OgnlContext ognlContext = ElementsThreadLocals.getOgnlContext();
+
+        Serializable pkObject;
+        try {
+            pkObject = pkHelper.getPrimaryKey(pk);
+        } catch (Exception e) {
+            logger.warn("Invalid primary key", e);
+            return notInUseCase(context, parameters);
+        }
+        object = loadObjectByPrimaryKey(pkObject);
+        if(object != null) {
+            ognlContext.put(crudConfiguration.getActualVariable(), object);
+            return null;
+        } else {
+            return notInUseCase(context, parameters);
+        }
+    }
+
     protected Resolution notInUseCase(ActionBeanContext context, List<String> parameters) {
         logger.debug("Not in use case: {}", crudConfiguration.getName());
         return new NotInUseCaseResolution(StringUtils.join(parameters, "/"));
@@ -1234,16 +1607,34 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
         } else {
             nRows = objects.size();
         }
+        boolean flyweight = mode == Mode.VIEW && nRows > 0 && isFlyweightTableForm();
         TableFormBuilder tableFormBuilder = createTableFormBuilder();
-        configureTableFormBuilder(tableFormBuilder, mode, nRows);
+        configureTableFormBuilder(tableFormBuilder, mode, flyweight ? 1 : nRows);
         tableForm = buildTableForm(tableFormBuilder);
 
-        if (objects != null) {
+        if (flyweight) {
+            tableForm.setRowBindListener(new TableForm.RowBindListener() {
+                public void rowBound(TableForm.Row row, Object obj) {
+                    refreshBlobDownloadHref(row, obj);
+                    BlobUtils.loadBlobs(row, getBlobManager(), false);
+                }
+            });
+            tableForm.bindObjects(objects);
+        } else if (objects != null) {
             tableForm.readFromObject(objects);
             refreshTableBlobDownloadHref();
         }
     }
 
+    /**
+     * Returns whether search results are rendered with a flyweight table form, i.e. with a single row of fields
+     * bound to each object in turn (see {@link TableForm#bindObjects(List)}). This implementation returns true if
+     * the configuration enables it.
+     */
+    protected boolean isFlyweightTableForm() {
+        return getCrudConfiguration() != null && getCrudConfiguration().isFlyweightTableForm();
+    }
+
     protected void configureTableFormSelectionProviders(TableFormBuilder tableFormBuilder) {
         if(selectionProviderSupport == null) {
             return;
@@ -1261,7 +1652,7 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
 
     protected void configureDetailLink(TableFormBuilder tableFormBuilder) {
         boolean isShowingKey = false;
-        for (PropertyAccessor property : classAccessor.getKeyProperties()) {
+        for (PropertyAccessor property : ReflectionUtil.getKeyPropertyList(classAccessor)) {
             if(tableFormBuilder.getPropertyAccessors().contains(property) &&
                tableFormBuilder.isPropertyVisible(property)) {
                 isShowingKey = true;
@@ -1273,12 +1664,12 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
 
         if(isShowingKey) {
             logger.debug("TableForm: configuring detail links for primary key properties");
-            for (PropertyAccessor property : classAccessor.getKeyProperties()) {
+            for (PropertyAccessor property : ReflectionUtil.getKeyPropertyList(classAccessor)) {
                 tableFormBuilder.configHrefTextFormat(property.getName(), hrefFormat);
             }
         } else {
             logger.debug("TableForm: configuring detail link for the first visible property");
-            for (PropertyAccessor property : classAccessor.getProperties()) {
+            for (PropertyAccessor property : ReflectionUtil.getPropertyList(classAccessor)) {
                 if(tableFormBuilder.getPropertyAccessors().contains(property) &&
                    tableFormBuilder.isPropertyVisible(property)) {
                     tableFormBuilder.configHrefTextFormat(
@@ -1290,7 +1681,7 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
     }
 
     protected void configureSortLinks(TableFormBuilder tableFormBuilder) {
-        for(PropertyAccessor propertyAccessor : classAccessor.getProperties()) {
+        for(PropertyAccessor propertyAccessor : ReflectionUtil.getPropertyList(classAccessor)) {
             String propName = propertyAccessor.getName();
             String sortDirection;
             if(propName.equals(sortProperty) && "asc".equals(this.sortDirection)) {
@@ -1544,24 +1935,30 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
     protected void refreshTableBlobDownloadHref() {
         Iterator<?> objIterator = objects.iterator();
         for (TableForm.Row row : tableForm.getRows()) {
-            Iterator<Field> fieldIterator = row.iterator();
-            Object obj = objIterator.next();
-            String baseUrl = null;
-            while (fieldIterator.hasNext()) {
-                Field field = fieldIterator.next();
-                if (field instanceof AbstractBlobField) {
-                    if(baseUrl == null) {
-                        OgnlTextFormat hrefFormat = getReadURLFormat();
-                        baseUrl = hrefFormat.format(obj);
-                    }
+            refreshBlobDownloadHref(row, objIterator.next());
+        }
+    }
 
-                    Blob blob = ((AbstractBlobField) field).getValue();
-                    if(blob != null) {
-                        UrlBuilder urlBuilder = new UrlBuilder(Locale.getDefault(), baseUrl, false)
-                            .addParameter("downloadBlob", "")
-                            .addParameter("propertyName", field.getPropertyAccessor().getName());
-                        field.setHref(urlBuilder.toString());
-                    }
+    protected void refreshBlobDownloadHref(TableForm.Row row, Object obj) {
+        Iterator<Field> fieldIterator = row.iterator();
+        String baseUrl = null;
+        while (fieldIterator.hasNext()) {
+            Field field = fieldIterator.next();
+            if (field instanceof AbstractBlobField) {
+                if(baseUrl == null) {
+                    OgnlTextFormat hrefFormat = getReadURLFormat();
+                    baseUrl = hrefFormat.format(obj);
+                }
+
+                Blob blob = ((AbstractBlobField) field).getValue();
+                if(blob != null) {
+                    UrlBuilder urlBuilder = new UrlBuilder(Locale.getDefault(), baseUrl, false)
+                        .addParameter("downloadBlob", "")
+                        .addParameter("propertyName", field.getPropertyAccessor().getName());
+                    field.setHref(urlBuilder.toString());
+                } else {
+                    //The field may be bound to another object before (flyweight table forms, streaming)
+                    field.setHref(null);
                 }
             }
         }
@@ -1601,23 +1998,24 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
         String contentType = blob.getContentType();
         String fileName = blob.getFilename();
         long lastModified = blob.getCreateTimestamp().getMillis();
-        HttpServletRequest request = context.getRequest();
-        if(request.getHeader("If-Modified-Since") != null) {
-            long ifModifiedSince = request.getDateHeader("If-Modified-Since");
-            if(ifModifiedSince >= lastModified) {
-                return new ErrorResolution(304); //Not modified
-            }
-        }
-        InputStream inputStream;
-        if(blob.getInputStream() == null) {
-            inputStream = blobManager.openStream(blob);
+        String eTag = RangeStreamingResolution.createETag(blob.getCode(), contentLength);
+        RangeStreamingResolution resolution;
+        if(blob.getInputStream() == null && blobManager instanceof SimpleBlobManager) {
+            File dataFile = ((SimpleBlobManager) blobManager).getDataFile(blob);
+            resolution = new RangeStreamingResolution(contentType, dataFile);
         } else {
-            inputStream = blob.getInputStream();
+            InputStream inputStream;
+            if(blob.getInputStream() == null) {
+                inputStream = blobManager.openStream(blob);
+            } else {
+                inputStream = blob.getInputStream();
+            }
+            resolution = new RangeStreamingResolution(contentType, inputStream, contentLength);
         }
-        return new StreamingResolution(contentType, inputStream)
+        return resolution
                 .setFilename(fileName)
-                .setLength(contentLength)
-                .setLastModified(lastModified);
+                .setLastModified(lastModified)
+                .setETag(eTag);
     }
 
     @PUT
@@ -1712,7 +2110,7 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
 
     protected List<Blob> getBlobsFromObject(T object) {
         List<Blob> blobs = new ArrayList<Blob>();
-        for(PropertyAccessor property : classAccessor.getProperties()) {
+        for(PropertyAccessor property : ReflectionUtil.getPropertyList(classAccessor)) {
             if(property.getAnnotation(FileBlob.class) != null) {
                 String code = (String) property.get(object);
                 if(!StringUtils.isBlank(code)) {
@@ -2000,11 +2398,11 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
     }
 
     public Resolution jsonAutocompleteOptions() {
-        return jsonOptions(relName, prefix, false);
+        return jsonOptions(relName, prefix, false, null, DEFAULT_AUTOCOMPLETE_OPTIONS);
     }
 
     public Resolution jsonAutocompleteSearchOptions() {
-        return jsonOptions(relName, searchPrefix, false);
+        return jsonOptions(relName, searchPrefix, false, null, DEFAULT_AUTOCOMPLETE_OPTIONS);
     }
 
     /**
@@ -2016,13 +2414,31 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
      * this parameter; for autocomplete fields, you would likely pass false.
      * @return a Resolution to produce the JSON.
      */
+    public Resolution jsonOptions(String selectionProviderName, String prefix, boolean includeSelectPrompt) {
+        return jsonOptions(selectionProviderName, prefix, includeSelectPrompt, null, null);
+    }
+
+    /**
+     * Returns values to update multiple related select fields or a single autocomplete
+     * text field, in JSON form, one page at a time.
+     * @param prefix form prefix, to read values from the request.
+     * @param includeSelectPrompt controls if the first option is a label with no value indicating
+     * what field is being selected. For combo boxes you would generally pass true as the value of
+     * this parameter; for autocomplete fields, you would likely pass false.
+     * @param firstResult the number of options to skip, or null to start from the first.
+     * @param maxResults the maximum number of options to return, or null to return all of them.
+     * @return a Resolution to produce the JSON.
+     * @since 4.2.3
+     */
     @GET
     @Path(":selectionProvider/{selectionProviderName}{separator : /?}{selectionProviderIndex : (\\d*)}")
     @Produces(MediaType.APPLICATION_JSON)
     public Resolution jsonOptions(
             @PathParam("selectionProviderName") String selectionProviderName,
             @QueryParam("prefix") String prefix,
-            @QueryParam("includeSelectPrompt") boolean includeSelectPrompt) {
+            @QueryParam("includeSelectPrompt") boolean includeSelectPrompt,
+            @QueryParam("firstResult") Integer firstResult,
+            @QueryParam("maxResults") Integer maxResults) {
         CrudSelectionProvider crudSelectionProvider = null;
         for (CrudSelectionProvider current : selectionProviderSupport.getCrudSelectionProviders()) {
             SelectionProvider selectionProvider =
@@ -2057,7 +2473,8 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
                 (SelectField) fieldSet.get(selectionProviderIndex);
         targetField.setLabelSearch(labelSearch);
 
-        String text = targetField.jsonSelectFieldOptions(includeSelectPrompt);
+        String text = targetField.jsonSelectFieldOptions(
+                includeSelectPrompt, firstResult != null ? firstResult : 0, maxResults);
         logger.debug("jsonOptions: {}", text);
         return new StreamingResolution(MimeTypes.APPLICATION_JSON_UTF8, text);
     }
@@ -2136,7 +2553,7 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
         }
         boolean first = true;
 
-        for (PropertyAccessor property : classAccessor.getKeyProperties()) {
+        for (PropertyAccessor property : ReflectionUtil.getKeyPropertyList(classAccessor)) {
             if (first) {
                 first = false;
             } else {
@@ -2248,9 +2665,11 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
     public Resolution getAsJson(
             @QueryParam("searchString") String searchString,
             @QueryParam("firstResult") Integer firstResult, @QueryParam("maxResults") Integer maxResults,
-            @QueryParam("sortProperty") String sortProperty, @QueryParam("sortDirection") String sortDirection) {
+            @QueryParam("sortProperty") String sortProperty, @QueryParam("sortDirection") String sortDirection,
+            @QueryParam("cursor") String cursor) {
         if(object == null) {
             this.searchString = searchString;
+            this.cursor = cursor;
             this.firstResult = firstResult;
             this.maxResults = maxResults;
             this.sortProperty = sortProperty;
@@ -2681,6 +3100,22 @@ public abstract class AbstractCrudAction<T> extends AbstractPageAction {
         this.sortDirection = sortDirection;
     }
 
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isTotalSearchRecordsApproximate() {
+        return totalSearchRecordsApproximate;
+    }
+
     public String getPropertyName() {
         return propertyName;
     }
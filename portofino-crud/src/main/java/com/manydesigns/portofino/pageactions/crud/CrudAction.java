@@ -20,27 +20,34 @@
 
 package com.manydesigns.portofino.pageactions.crud;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.manydesigns.elements.ElementsThreadLocals;
 import com.manydesigns.elements.forms.FormBuilder;
 import com.manydesigns.elements.messages.SessionMessages;
+import com.manydesigns.elements.options.DefaultSelectionProvider;
 import com.manydesigns.elements.options.SelectionProvider;
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.elements.text.QueryStringWithParameters;
 import com.manydesigns.portofino.database.TableCriteria;
+import com.manydesigns.portofino.database.platforms.DatabasePlatform;
 import com.manydesigns.portofino.di.Inject;
 import com.manydesigns.portofino.dispatcher.PageInstance;
 import com.manydesigns.portofino.logic.SelectionProviderLogic;
+import com.manydesigns.portofino.model.database.Column;
 import com.manydesigns.portofino.model.database.Database;
+import com.manydesigns.portofino.model.database.DatabaseLogic;
 import com.manydesigns.portofino.model.database.Table;
 import com.manydesigns.portofino.modules.DatabaseModule;
 import com.manydesigns.portofino.pageactions.PageActionName;
 import com.manydesigns.portofino.pageactions.annotations.ConfigurationClass;
 import com.manydesigns.portofino.pageactions.annotations.ScriptTemplate;
+import com.manydesigns.portofino.pageactions.crud.configuration.CountStrategy;
 import com.manydesigns.portofino.pageactions.crud.configuration.database.CrudConfiguration;
 import com.manydesigns.portofino.persistence.Persistence;
 import com.manydesigns.portofino.persistence.QueryUtils;
-import com.manydesigns.portofino.reflection.TableAccessor;
+import com.manydesigns.portofino.persistence.ScrollableResultsIterator;
 import com.manydesigns.portofino.security.AccessLevel;
 import com.manydesigns.portofino.security.RequiresPermissions;
 import com.manydesigns.portofino.security.SupportsPermissions;
@@ -54,17 +61,24 @@ import net.sf.jsqlparser.statement.select.SelectExpressionItem;
 import net.sourceforge.stripes.action.Before;
 import net.sourceforge.stripes.action.ForwardResolution;
 import net.sourceforge.stripes.action.Resolution;
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.jdbc.ReturningWork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * Default AbstractCrudAction implementation. Implements a crud page over a database table, based on a HQL query.
@@ -85,7 +99,7 @@ public class CrudAction extends AbstractCrudAction<Object> {
 
     public static final String[][] CRUD_CONFIGURATION_FIELDS =
                 {{"name", "database", "query", "searchTitle", "createTitle", "readTitle", "editTitle", "variable",
-                  "largeResultSet", "rowsPerPage", "columns"}};
+                  "largeResultSet", "rowsPerPage", "keysetPagination", "streamingSearch", "flyweightTableForm", "xlsxExport", "countStrategy", "countCacheTimeToLive", "columns"}};
 
     public Table baseTable;
 
@@ -100,6 +114,29 @@ public class CrudAction extends AbstractCrudAction<Object> {
 
     protected long totalSearchRecords = -1;
 
+    /**
+     * With the HAS_MORE count strategy, whether there are more search records after the loaded ones; null if
+     * not known.
+     */
+    protected Boolean hasMoreSearchRecords;
+
+    public static final int MAX_CACHED_COUNTS = 1000;
+
+    /**
+     * Counts computed with the CACHED count strategy, keyed by table, count query and parameters. Each value
+     * holds the count and the time it was computed. The cache has no expiry of its own, since the time to live is
+     * configured per page and checked on read; it is bounded by size instead.
+     */
+    protected static final Cache<List<Object>, long[]> countCache =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED_COUNTS).build();
+
+    public static final int DEFAULT_COUNT_CACHE_TIME_TO_LIVE = 60;
+
+    /**
+     * Estimated counts below this number are not trusted; an exact count is cheap anyway for such tables.
+     */
+    public static final long MIN_ESTIMATED_COUNT = 10000;
+
     //**************************************************************************
     // Logging
     //**************************************************************************
@@ -124,18 +161,125 @@ public class CrudAction extends AbstractCrudAction<Object> {
         QueryStringWithParameters query =
                 QueryUtils.mergeQuery(getBaseQuery(), criteria, this);
 
-        String queryString = query.getQueryString();
-        String totalRecordsQueryString;
-        try {
-            totalRecordsQueryString = generateCountQuery(queryString);
-        } catch (JSQLParserException e) {
-            throw new Error(e);
+        totalSearchRecordsApproximate = false;
+        switch (getCrudConfiguration().getActualCountStrategy()) {
+            case HAS_MORE:
+                if(hasMoreSearchRecords != null) {
+                    int offset = (firstResult != null && !isKeysetPagination()) ? firstResult : 0;
+                    totalSearchRecordsApproximate = hasMoreSearchRecords;
+                    return totalSearchRecords = offset + objects.size() + (hasMoreSearchRecords ? 1 : 0);
+                }
+                break;
+            case ESTIMATED:
+                if(criteria.isEmpty() && isWholeTableQuery(query.getQueryString())) {
+                    Long estimate = estimateTableRows();
+                    if(estimate != null && estimate >= MIN_ESTIMATED_COUNT) {
+                        totalSearchRecordsApproximate = true;
+                        return totalSearchRecords = estimate;
+                    }
+                }
+                break;
+            case CACHED:
+                return totalSearchRecords = getCachedCount(query);
         }
+        return totalSearchRecords = count(query);
+    }
+
+    /**
+     * Runs the count query corresponding to a search query.
+     * @param query the search query.
+     * @return the number of records matching the query.
+     */
+    protected long count(QueryStringWithParameters query) {
+        String totalRecordsQueryString = getCountQuery(query.getQueryString());
         //TODO gestire count non disponibile (totalRecordsQueryString == null)
         List<Object> result = QueryUtils.runHqlQuery
                 (session, totalRecordsQueryString,
                         query.getParameters());
-        return totalSearchRecords = ((Number) result.get(0)).longValue();
+        return ((Number) result.get(0)).longValue();
+    }
+
+    protected long getCachedCount(QueryStringWithParameters query) {
+        List<Object> key = Arrays.<Object>asList(
+                baseTable.getQualifiedName(), query.getQueryString(), Arrays.asList(query.getParameters()));
+        Integer timeToLive = getCrudConfiguration().getCountCacheTimeToLive();
+        long maxAge = (timeToLive != null ? timeToLive : DEFAULT_COUNT_CACHE_TIME_TO_LIVE) * 1000L;
+        long[] cached = countCache.getIfPresent(key);
+        long now = System.currentTimeMillis();
+        if(cached != null && now - cached[1] <= maxAge) {
+            return cached[0];
+        }
+        long count = count(query);
+        countCache.put(key, new long[] { count, now });
+        return count;
+    }
+
+    /**
+     * Discards the counts cached for a table, e.g. because objects have been saved or deleted.
+     * @param table the table.
+     */
+    public static void invalidateCachedCounts(Table table) {
+        String tableName = table.getQualifiedName();
+        for(List<Object> key : countCache.asMap().keySet()) {
+            if(tableName.equals(key.get(0))) {
+                countCache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rows of the base table as estimated by the database, or null if it can't be estimated.
+     */
+    protected Long estimateTableRows() {
+        Database database = getCrudConfiguration().getActualDatabase();
+        final DatabasePlatform platform = database.getConnectionProvider().getDatabasePlatform();
+        if(platform == null) {
+            return null;
+        }
+        try {
+            return session.doReturningWork(new ReturningWork<Long>() {
+                @Override
+                public Long execute(Connection connection) throws SQLException {
+                    return platform.getEstimatedRowCount(connection, baseTable);
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Could not estimate the number of rows of " + baseTable.getQualifiedName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether a query selects all the rows of a single table, so that the table's row count
+     * is also the count of the query.
+     */
+    protected boolean isWholeTableQuery(final String queryString) {
+        List<Object> key = Arrays.<Object>asList("wholeTable", queryString);
+        return QueryUtils.getCachedQuery(key, new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                PlainSelect plainSelect = QueryUtils.parseQuery(new CCJSqlParserManager(), queryString);
+                return plainSelect.getWhere() == null &&
+                       (plainSelect.getJoins() == null || plainSelect.getJoins().isEmpty()) &&
+                       plainSelect.getGroupByColumnReferences() == null &&
+                       plainSelect.getFromItem() instanceof net.sf.jsqlparser.schema.Table;
+            }
+        });
+    }
+
+    /**
+     * Returns the count query for the given query string, generating it with {@link #generateCountQuery(String)}
+     * only the first time.
+     */
+    protected String getCountQuery(final String queryString) {
+        List<Object> key = Arrays.<Object>asList("count", getClass(), queryString);
+        String countQuery = QueryUtils.getCachedQuery(key, new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return StringUtils.defaultString(generateCountQuery(queryString));
+            }
+        });
+        return StringUtils.isEmpty(countQuery) ? null : countQuery;
     }
 
     protected String generateCountQuery(String queryString) throws JSQLParserException {
@@ -169,6 +313,10 @@ public class CrudAction extends AbstractCrudAction<Object> {
     @Override
     protected void commitTransaction() {
         session.getTransaction().commit();
+        if(baseTable != null) {
+            invalidateCachedCounts(baseTable);
+            SelectionProviderCache.invalidate(baseTable);
+        }
     }
 
     @Override
@@ -224,10 +372,16 @@ public class CrudAction extends AbstractCrudAction<Object> {
                         null,
                         new String[]{"databaseName"});
 
+        DefaultSelectionProvider countStrategySelectionProvider = new DefaultSelectionProvider("countStrategy");
+        for(CountStrategy countStrategy : CountStrategy.values()) {
+            countStrategySelectionProvider.appendRow(countStrategy.name(), countStrategy.name(), true);
+        }
+
         formBuilder
                 .configFields(CRUD_CONFIGURATION_FIELDS)
                 .configFieldSetNames("Crud")
-                .configSelectionProvider(databaseSelectionProvider, "database");
+                .configSelectionProvider(databaseSelectionProvider, "database")
+                .configSelectionProvider(countStrategySelectionProvider, "countStrategy");
     }
 
     @Override
@@ -246,7 +400,7 @@ public class CrudAction extends AbstractCrudAction<Object> {
             return null;
         }
 
-        return new TableAccessor(baseTable);
+        return persistence.getTableAccessor(baseTable);
     }
 
     //**************************************************************************
@@ -261,15 +415,23 @@ public class CrudAction extends AbstractCrudAction<Object> {
             if(searchForm != null) {
                 searchForm.configureCriteria(criteria);
             }
-            if(!StringUtils.isBlank(sortProperty) && !StringUtils.isBlank(sortDirection)) {
-                try {
-                    PropertyAccessor orderByProperty = classAccessor.getProperty(sortProperty);
-                    criteria.orderBy(orderByProperty, sortDirection);
-                } catch (NoSuchFieldException e) {
-                    logger.error("Can't order by " + sortProperty + ", property accessor not found", e);
+            if(maxResults != null && isKeysetPagination()) {
+                loadObjectsByKeyset(criteria);
+                return;
+            }
+            configureSortOrder(criteria);
+            if(maxResults != null &&
+               getCrudConfiguration().getActualCountStrategy() == CountStrategy.HAS_MORE) {
+                List<Object> result =
+                        QueryUtils.getObjects(session, getBaseQuery(), criteria, this, firstResult, maxResults + 1);
+                hasMoreSearchRecords = result.size() > maxResults;
+                if(hasMoreSearchRecords) {
+                    result = new ArrayList<Object>(result.subList(0, maxResults));
                 }
+                objects = result;
+            } else {
+                objects = QueryUtils.getObjects(session, getBaseQuery(), criteria, this, firstResult, maxResults);
             }
-            objects = QueryUtils.getObjects(session, getBaseQuery(), criteria, this, firstResult, maxResults);
         } catch (ClassCastException e) {
             objects=new ArrayList<Object>();
             logger.warn("Incorrect Field Type", e);
@@ -277,6 +439,132 @@ public class CrudAction extends AbstractCrudAction<Object> {
         }
     }
 
+    protected void configureSortOrder(TableCriteria criteria) {
+        if(!StringUtils.isBlank(sortProperty) && !StringUtils.isBlank(sortDirection)) {
+            try {
+                PropertyAccessor orderByProperty = classAccessor.getProperty(sortProperty);
+                criteria.orderBy(orderByProperty, sortDirection);
+            } catch (NoSuchFieldException e) {
+                logger.error("Can't order by " + sortProperty + ", property accessor not found", e);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>This implementation runs the search query with a database cursor, detaching each object from the
+     * session once it has been written.</p>
+     */
+    @Override
+    protected Iterator<?> scrollObjects() {
+        TableCriteria criteria = new TableCriteria(baseTable);
+        if(searchForm != null) {
+            searchForm.configureCriteria(criteria);
+        }
+        configureSortOrder(criteria);
+        QueryStringWithParameters query = QueryUtils.mergeQuery(getBaseQuery(), criteria, this);
+        ScrollableResults results = QueryUtils.scrollHqlQuery(
+                session, query.getQueryString(), query.getParameters(), firstResult, maxResults);
+        return new ScrollableResultsIterator(session, results);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Streaming is not used with the HAS_MORE count strategy, that needs the page to be loaded before
+     * the total can be computed.</p>
+     */
+    @Override
+    protected boolean isStreamingSearch() {
+        return super.isStreamingSearch() &&
+               getCrudConfiguration().getActualCountStrategy() != CountStrategy.HAS_MORE;
+    }
+
+    /**
+     * Loads a page of objects using keyset pagination: the page starts right after the position encoded in
+     * <code>cursor</code> (or at the beginning if there is no cursor), and one more object than needed is fetched
+     * to compute the cursor of the next page.
+     * @param criteria the search criteria.
+     */
+    protected void loadObjectsByKeyset(TableCriteria criteria) {
+        PropertyAccessor[] keysetProperties = getKeysetProperties();
+        String[] propertyNames = new String[keysetProperties.length];
+        for(int i = 0; i < keysetProperties.length; i++) {
+            propertyNames[i] = keysetProperties[i].getName();
+        }
+        boolean asc = StringUtils.isBlank(sortProperty) || !"desc".equals(sortDirection);
+
+        QueryStringWithParameters query = QueryUtils.mergeQuery(getBaseQuery(), criteria, this);
+        Object[] parameters = query.getParameters();
+        int firstParameterIndex = 0;
+        if(cursor != null) {
+            Object[] cursorValues = decodeCursor(cursor, keysetProperties);
+            if(cursorValues != null) {
+                firstParameterIndex = parameters.length + 1;
+                parameters = ArrayUtils.addAll(parameters, cursorValues);
+            }
+        }
+        String queryString = QueryUtils.getKeysetQueryString(
+                query.getQueryString(), baseTable.getActualEntityName(), propertyNames, asc, firstParameterIndex);
+        List<Object> result = QueryUtils.runHqlQuery(session, queryString, parameters, null, maxResults + 1);
+        if(result.size() > maxResults) {
+            result = new ArrayList<Object>(result.subList(0, maxResults));
+            nextCursor = encodeCursor(result.get(maxResults - 1), keysetProperties);
+        } else {
+            nextCursor = null;
+        }
+        hasMoreSearchRecords = nextCursor != null;
+        objects = result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Keyset pagination requires a primary key, a query without an ORDER BY clause of its own and, if the
+     * results are sorted by a property which is not part of the key, a non-nullable column for that property.</p>
+     */
+    @Override
+    protected PropertyAccessor[] getKeysetProperties() {
+        if(classAccessor == null || baseTable == null) {
+            return null;
+        }
+        PropertyAccessor[] keyProperties = classAccessor.getKeyProperties();
+        if(keyProperties.length == 0) {
+            return null;
+        }
+        String baseQuery = getBaseQuery();
+        if(baseQuery != null && QueryUtils.hasOrderBy(baseQuery)) {
+            //Seeking would replace the order of the query
+            logger.debug("The query specifies its own order, using offset pagination");
+            return null;
+        }
+        if(StringUtils.isBlank(sortProperty)) {
+            return keyProperties;
+        }
+        PropertyAccessor sortPropertyAccessor;
+        try {
+            sortPropertyAccessor = classAccessor.getProperty(sortProperty);
+        } catch (NoSuchFieldException e) {
+            return null;
+        }
+        List<PropertyAccessor> properties = new ArrayList<PropertyAccessor>();
+        properties.add(sortPropertyAccessor);
+        boolean sortByKey = false;
+        for(PropertyAccessor keyProperty : keyProperties) {
+            if(keyProperty.getName().equals(sortPropertyAccessor.getName())) {
+                sortByKey = true;
+            } else {
+                properties.add(keyProperty);
+            }
+        }
+        if(!sortByKey) {
+            Column column = DatabaseLogic.findColumnByPropertyName(baseTable, sortProperty);
+            if(column == null || column.isNullable()) {
+                logger.debug("Cannot use keyset pagination when sorting by {}, using offset pagination", sortProperty);
+                return null;
+            }
+        }
+        return properties.toArray(new PropertyAccessor[properties.size()]);
+    }
+
     /**
      * Computes the query underlying the CRUD action. By default, it returns configuration.query i.e. the HQL query
      * stored in configuration.xml. However, you can override this method to insert your own logic, for example to
@@ -279,20 +279,32 @@ public class ModelSelectionProviderSupport implements SelectionProviderSupport {
             OgnlSqlFormat sqlFormat = OgnlSqlFormat.create(sql);
             String formatString = sqlFormat.getFormatString();
             Object[] parameters = sqlFormat.evaluateOgnlExpressions(this);
-            QueryStringWithParameters cacheKey = new QueryStringWithParameters(formatString, parameters);
-            Collection<Object[]> objects = getFromQueryCache(current, cacheKey);
-            if(objects == null) {
-                logger.debug("Query not in cache: {}", formatString);
-                try {
-                    objects = QueryUtils.runSql(session, formatString, parameters);
-                } catch (Exception e) {
-                    logger.error("Exception in populating selection provider " + name, e);
-                    return null;
+            String cacheName = getCacheName(current);
+            //Rows are converted to the types of the fields the provider is used for
+            List<Object> processing = Arrays.<Object>asList("sql", Arrays.asList(fieldTypes));
+            selectionProvider = SelectionProviderCache.get(
+                    cacheName, name, databaseName, formatString, parameters, processing);
+            if(selectionProvider == null) {
+                long start = System.nanoTime();
+                QueryStringWithParameters cacheKey = new QueryStringWithParameters(formatString, parameters);
+                Collection<Object[]> objects = getFromQueryCache(current, cacheKey);
+                if(objects == null) {
+                    logger.debug("Query not in cache: {}", formatString);
+                    try {
+                        objects = QueryUtils.runSql(session, formatString, parameters);
+                    } catch (Exception e) {
+                        logger.error("Exception in populating selection provider " + name, e);
+                        return null;
+                    }
+                    putInQueryCache(current, cacheKey, objects);
                 }
-                putInQueryCache(current, cacheKey, objects);
+                selectionProvider =
+                        SelectionProviderLogic.createSelectionProvider(name, fieldNames.length, fieldTypes, objects);
+                SelectionProviderCache.put(
+                        cacheName, databaseName, formatString, parameters, processing,
+                        SelectionProviderCache.getTableNames(formatString), selectionProvider,
+                        System.nanoTime() - start);
             }
-            selectionProvider =
-                    SelectionProviderLogic.createSelectionProvider(name, fieldNames.length, fieldTypes, objects);
             selectionProvider.setDisplayMode(dm);
             selectionProvider.setSearchDisplayMode(sdm);
         } else if (!StringUtils.isEmpty(hql)) {
@@ -307,47 +319,72 @@ public class ModelSelectionProviderSupport implements SelectionProviderSupport {
             String entityName = table.getActualEntityName();
             Session session = persistence.getSession(databaseName);
             QueryStringWithParameters queryWithParameters = QueryUtils.mergeQuery(hql, null, this);
-
-            Collection<Object> objects = getFromQueryCache(current, queryWithParameters);
-            if(objects == null) {
-                String queryString = queryWithParameters.getQueryString();
-                Object[] parameters = queryWithParameters.getParameters();
-                logger.debug("Query not in cache: {}", queryString);
-                try {
-                    objects = QueryUtils.runHqlQuery(session, queryString, parameters);
-                } catch (Exception e) {
-                    logger.error("Exception in populating selection provider " + name, e);
-                    return null;
-                }
-                putInQueryCache(current, queryWithParameters, objects);
-            }
+            String queryString = queryWithParameters.getQueryString();
+            Object[] parameters = queryWithParameters.getParameters();
 
             TableAccessor tableAccessor =
                     persistence.getTableAccessor(databaseName, entityName);
             ShortName shortNameAnnotation =
                     tableAccessor.getAnnotation(ShortName.class);
-            TextFormat[] textFormats = null;
             //L'ordinamento e' usato solo in caso di chiave singola
-            if (shortNameAnnotation != null && tableAccessor.getKeyProperties().length == 1) {
-                textFormats = new TextFormat[] {
-                    OgnlTextFormat.create(shortNameAnnotation.value())
-                };
+            String shortName = null;
+            if (shortNameAnnotation != null && tableAccessor.getKeyPropertyList().size() == 1) {
+                shortName = shortNameAnnotation.value();
             }
+            boolean sortByLabel = current instanceof ForeignKey;
+            String cacheName = getCacheName(current);
+            List<Object> processing = Arrays.<Object>asList("hql", shortName, sortByLabel);
+            selectionProvider = SelectionProviderCache.get(
+                    cacheName, name, databaseName, queryString, parameters, processing);
+            if(selectionProvider == null) {
+                long start = System.nanoTime();
+                Collection<Object> objects = getFromQueryCache(current, queryWithParameters);
+                if(objects == null) {
+                    logger.debug("Query not in cache: {}", queryString);
+                    try {
+                        objects = QueryUtils.runHqlQuery(session, queryString, parameters);
+                    } catch (Exception e) {
+                        logger.error("Exception in populating selection provider " + name, e);
+                        return null;
+                    }
+                    putInQueryCache(current, queryWithParameters, objects);
+                }
 
-            selectionProvider = SelectionProviderLogic.createSelectionProvider
-                    (name, objects, tableAccessor.getKeyProperties(), textFormats);
-            selectionProvider.setDisplayMode(dm);
-            selectionProvider.setSearchDisplayMode(sdm);
+                TextFormat[] textFormats = null;
+                if (shortName != null) {
+                    textFormats = new TextFormat[] {
+                        OgnlTextFormat.create(shortName)
+                    };
+                }
 
-            if(current instanceof ForeignKey) {
-                selectionProvider.sortByLabel();
+                selectionProvider = SelectionProviderLogic.createSelectionProvider
+                        (name, objects, tableAccessor.getKeyProperties(), textFormats);
+
+                if(sortByLabel) {
+                    selectionProvider.sortByLabel();
+                }
+                SelectionProviderCache.put(
+                        cacheName, databaseName, queryString, parameters, processing,
+                        Collections.singletonList(table.getTableName()), selectionProvider,
+                        System.nanoTime() - start);
             }
+            selectionProvider.setDisplayMode(dm);
+            selectionProvider.setSearchDisplayMode(sdm);
         } else {
             logger.warn("ModelSelection provider '{}': both 'hql' and 'sql' are null", name);
         }
         return selectionProvider;
     }
 
+    /**
+     * Returns the name under which the statistics of a selection provider are collected in the
+     * {@link SelectionProviderCache}.
+     */
+    protected String getCacheName(DatabaseSelectionProvider sp) {
+        Table fromTable = sp.getFromTable();
+        return fromTable != null ? fromTable.getQualifiedName() + "." + sp.getName() : sp.getName();
+    }
+
     protected void putInQueryCache(
             DatabaseSelectionProvider sp, QueryStringWithParameters queryWithParameters, Collection objects) {}
 
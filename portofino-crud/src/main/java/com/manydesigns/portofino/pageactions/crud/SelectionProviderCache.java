@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+
+package com.manydesigns.portofino.pageactions.crud;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.manydesigns.elements.options.DefaultSelectionProvider;
+import com.manydesigns.portofino.model.database.Table;
+import net.sf.jsqlparser.parser.CCJSqlParserManager;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringReader;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared cache of the rows of model-based selection providers, keyed by database, query, query parameters and
+ * the processing applied to the rows (e.g. sorting and label formats).
+ * Entries expire after a configurable time, and are invalidated when one of the tables they were read from is
+ * written through a CRUD page. The cache is bounded by the total number of cached rows. Cached providers are
+ * handed out as copies sharing the same search index, so the index is built at most once per entry.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class SelectionProviderCache {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    public static final Logger logger = LoggerFactory.getLogger(SelectionProviderCache.class);
+
+    public static final long DEFAULT_MAX_ROWS = 500000;
+    public static final int DEFAULT_TIME_TO_LIVE = 300;
+
+    /**
+     * Marks entries whose tables are not known; they're invalidated by writes to any table of their database.
+     */
+    protected static final String ANY_TABLE = "*";
+
+    protected static volatile Cache<List<Object>, Entry> cache = build(DEFAULT_MAX_ROWS, DEFAULT_TIME_TO_LIVE);
+    protected static final ConcurrentMap<String, Statistics> statistics = new ConcurrentHashMap<String, Statistics>();
+
+    /**
+     * Replaces the cache with a new, empty one.
+     * @param maxRows the maximum number of rows to keep in the cache.
+     * @param timeToLive the number of seconds after which an entry expires. If 0 or less, nothing is cached.
+     */
+    public static void configure(long maxRows, int timeToLive) {
+        logger.info("Selection provider cache: max rows {}, time to live {}s", maxRows, timeToLive);
+        cache = build(maxRows, timeToLive);
+    }
+
+    protected static Cache<List<Object>, Entry> build(long maxRows, int timeToLive) {
+        return CacheBuilder.newBuilder()
+                .maximumWeight(timeToLive > 0 ? maxRows : 0)
+                .weigher(new Weigher<List<Object>, Entry>() {
+                    @Override
+                    public int weigh(List<Object> key, Entry value) {
+                        return value.selectionProvider.getRows().size() + 1;
+                    }
+                })
+                .expireAfterWrite(Math.max(timeToLive, 0), TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Returns a cached selection provider.
+     * @param provider the name of the provider, used for statistics.
+     * @param name the name to give to the returned selection provider.
+     * @param database the database the query is run against.
+     * @param queryString the query.
+     * @param parameters the query parameters.
+     * @param processing identifies how the rows are turned into the selection provider (e.g. whether they are
+     * sorted by label, the label formats, the types they're converted to), so that providers with the same query
+     * but different processing are cached separately. Must have proper equals and hashCode.
+     * @return a copy of the cached selection provider, or null if it is not in the cache.
+     */
+    public static DefaultSelectionProvider get(
+            String provider, String name, String database, String queryString, Object[] parameters,
+            Object processing) {
+        Entry entry = cache.getIfPresent(makeKey(database, queryString, parameters, processing));
+        Statistics stats = getStatistics(provider);
+        if(entry == null) {
+            stats.misses.incrementAndGet();
+            return null;
+        }
+        stats.hits.incrementAndGet();
+        return new DefaultSelectionProvider(name, entry.selectionProvider);
+    }
+
+    /**
+     * Puts a selection provider in the cache.
+     * @param provider the name of the provider, used for statistics.
+     * @param database the database the query is run against.
+     * @param queryString the query.
+     * @param parameters the query parameters.
+     * @param processing identifies how the rows are turned into the selection provider, as in
+     * {@link #get(String, String, String, String, Object[], Object)}.
+     * @param tables the names of the tables read by the query, or null if they are not known.
+     * @param selectionProvider the selection provider. An indexed copy of it is cached.
+     * @param loadTimeNanos the time it took to load the rows.
+     */
+    public static void put(
+            String provider, String database, String queryString, Object[] parameters, Object processing,
+            Collection<String> tables, DefaultSelectionProvider selectionProvider, long loadTimeNanos) {
+        Set<String> tags = new HashSet<String>();
+        if(tables == null) {
+            tags.add(makeTag(database, ANY_TABLE));
+        } else {
+            for(String table : tables) {
+                tags.add(makeTag(database, table));
+            }
+        }
+        //The cached copy is indexed, since it is shared by every request that hits it; the copies handed out by
+        //get share its index.
+        DefaultSelectionProvider cached = new DefaultSelectionProvider(selectionProvider);
+        cached.enableIndex();
+        Entry entry = new Entry(cached, tags, provider);
+        cache.put(makeKey(database, queryString, parameters, processing), entry);
+        getStatistics(provider).loadTimeNanos.addAndGet(loadTimeNanos);
+    }
+
+    /**
+     * Removes from the cache all the entries that were read from a table.
+     * @param table the table.
+     */
+    public static void invalidate(Table table) {
+        String tag = makeTag(table.getDatabaseName(), table.getTableName());
+        String anyTableTag = makeTag(table.getDatabaseName(), ANY_TABLE);
+        Iterator<Entry> it = cache.asMap().values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if(entry.tables.contains(tag) || entry.tables.contains(anyTableTag)) {
+                it.remove();
+                getStatistics(entry.provider).invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public static void clear() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Returns the names of the tables read by a SQL query, or null if they cannot be determined.
+     */
+    public static List<String> getTableNames(String sql) {
+        try {
+            Statement statement = new CCJSqlParserManager().parse(new StringReader(sql));
+            List<String> tableNames = new ArrayList<String>();
+            for(String name : new TablesNamesFinder().getTableList(statement)) {
+                int dot = name.lastIndexOf('.');
+                tableNames.add(name.substring(dot + 1));
+            }
+            return tableNames;
+        } catch (Exception e) {
+            logger.debug("Could not determine the tables of query " + sql, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the usage statistics of the cache, by selection provider.
+     */
+    public static Map<String, Statistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    protected static Statistics getStatistics(String provider) {
+        Statistics stats = statistics.get(provider);
+        if(stats == null) {
+            statistics.putIfAbsent(provider, new Statistics());
+            stats = statistics.get(provider);
+        }
+        return stats;
+    }
+
+    protected static List<Object> makeKey(
+            String database, String queryString, Object[] parameters, Object processing) {
+        List<Object> parameterList = parameters != null ? Arrays.asList(parameters) : Collections.emptyList();
+        return Arrays.<Object>asList(database, queryString, parameterList, processing);
+    }
+
+    protected static String makeTag(String database, String table) {
+        String tableName = table.replace("\"", "").replace("`", "").replace("[", "").replace("]", "");
+        return database + ":" + tableName.toLowerCase();
+    }
+
+    protected static class Entry {
+        public final DefaultSelectionProvider selectionProvider;
+        public final Set<String> tables;
+        public final String provider;
+
+        public Entry(DefaultSelectionProvider selectionProvider, Set<String> tables, String provider) {
+            this.selectionProvider = selectionProvider;
+            this.tables = tables;
+            this.provider = provider;
+        }
+    }
+
+    /**
+     * Usage statistics of the cache for a selection provider.
+     */
+    public static class Statistics {
+        protected final AtomicLong hits = new AtomicLong();
+        protected final AtomicLong misses = new AtomicLong();
+        protected final AtomicLong invalidations = new AtomicLong();
+        protected final AtomicLong loadTimeNanos = new AtomicLong();
+
+        public long getHits() {
+            return hits.get();
+        }
+
+        public long getMisses() {
+            return misses.get();
+        }
+
+        public long getInvalidations() {
+            return invalidations.get();
+        }
+
+        public long getTotalLoadTime() {
+            return TimeUnit.NANOSECONDS.toMillis(loadTimeNanos.get());
+        }
+
+        @Override
+        public String toString() {
+            return "hits: " + getHits() + ", misses: " + getMisses() + ", invalidations: " + getInvalidations() +
+                   ", total load time: " + getTotalLoadTime() + "ms";
+        }
+    }
+}
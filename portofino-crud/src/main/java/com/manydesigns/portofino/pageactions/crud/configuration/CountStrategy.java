@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.pageactions.crud.configuration;
+
+/**
+ * How a crud page computes the total number of search results.
+ *
+ * <ul>
+ *     <li>EXACT runs a count query on each search;</li>
+ *     <li>CACHED runs a count query and reuses its result for a while, or until an object is saved or deleted;</li>
+ *     <li>HAS_MORE does not count, but fetches one more row than needed to know whether there is a next page;</li>
+ *     <li>ESTIMATED uses the row count estimated by the database when the search is not filtered, and falls back
+ *     to an exact count otherwise.</li>
+ * </ul>
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public enum CountStrategy {
+
+    EXACT, CACHED, HAS_MORE, ESTIMATED;
+
+    public static final String copyright=
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+}
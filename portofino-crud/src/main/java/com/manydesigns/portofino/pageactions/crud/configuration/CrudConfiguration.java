@@ -6,6 +6,9 @@ import com.manydesigns.elements.annotations.Required;
 import com.manydesigns.elements.util.BootstrapSizes;
 import com.manydesigns.portofino.dispatcher.ConfigurationWithDefaults;
 import com.manydesigns.portofino.dispatcher.PageActionConfiguration;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.xml.bind.annotation.*;
 import java.util.ArrayList;
@@ -19,12 +22,14 @@ import java.util.List;
 */
 
 @XmlRootElement(name = "configuration")
-@XmlType(name = "configuration",propOrder = {"name", "searchTitle","createTitle","readTitle","editTitle","variable","largeResultSet","rowsPerPage","columns","properties"})
+@XmlType(name = "configuration",propOrder = {"name", "searchTitle","createTitle","readTitle","editTitle","variable","largeResultSet","rowsPerPage","keysetPagination","streamingSearch","flyweightTableForm","xlsxExport","countStrategy","countCacheTimeToLive","columns","properties"})
 @XmlAccessorType(value = XmlAccessType.NONE)
 public class CrudConfiguration implements PageActionConfiguration, ConfigurationWithDefaults {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
+    public static final Logger logger = LoggerFactory.getLogger(CrudConfiguration.class);
+
     //**************************************************************************
     // Fields
     //**************************************************************************
@@ -38,6 +43,12 @@ public class CrudConfiguration implements PageActionConfiguration, Configuration
     protected String variable;
     protected boolean largeResultSet;
     protected Integer rowsPerPage;
+    protected boolean keysetPagination;
+    protected boolean streamingSearch;
+    protected boolean flyweightTableForm;
+    protected boolean xlsxExport;
+    protected String countStrategy;
+    protected Integer countCacheTimeToLive;
     protected Integer columns = 1;
 
     public CrudConfiguration() {
@@ -138,6 +149,92 @@ public class CrudConfiguration implements PageActionConfiguration, Configuration
         this.rowsPerPage = rowsPerPage;
     }
 
+    /**
+     * If true, search results are paginated by seeking from the last row of the previous page instead of
+     * using an offset. Falls back to offset paging when the sort order does not support it.
+     */
+    @XmlAttribute(required = false)
+    public boolean isKeysetPagination() {
+        return keysetPagination;
+    }
+
+    public void setKeysetPagination(boolean keysetPagination) {
+        this.keysetPagination = keysetPagination;
+    }
+
+    /**
+     * If true, JSON search results are written to the response one row at a time as they are read from the
+     * database, instead of being loaded in memory all at once.
+     */
+    @XmlAttribute(required = false)
+    public boolean isStreamingSearch() {
+        return streamingSearch;
+    }
+
+    public void setStreamingSearch(boolean streamingSearch) {
+        this.streamingSearch = streamingSearch;
+    }
+
+    /**
+     * If true, search results are rendered with a single row of fields, bound to each result in turn, instead of
+     * a row of fields per result.
+     */
+    @XmlAttribute(required = false)
+    public boolean isFlyweightTableForm() {
+        return flyweightTableForm;
+    }
+
+    public void setFlyweightTableForm(boolean flyweightTableForm) {
+        this.flyweightTableForm = flyweightTableForm;
+    }
+
+    /**
+     * If true, search results can be exported to an xlsx workbook.
+     */
+    @XmlAttribute(required = false)
+    public boolean isXlsxExport() {
+        return xlsxExport;
+    }
+
+    public void setXlsxExport(boolean xlsxExport) {
+        this.xlsxExport = xlsxExport;
+    }
+
+    @XmlAttribute(required = false)
+    public String getCountStrategy() {
+        return countStrategy;
+    }
+
+    public void setCountStrategy(String countStrategy) {
+        this.countStrategy = countStrategy;
+    }
+
+    public CountStrategy getActualCountStrategy() {
+        if(StringUtils.isEmpty(countStrategy)) {
+            return CountStrategy.EXACT;
+        }
+        try {
+            return CountStrategy.valueOf(countStrategy);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid countStrategy: " + countStrategy);
+            return CountStrategy.EXACT;
+        }
+    }
+
+    /**
+     * How long, in seconds, a count is reused with the CACHED count strategy. There is no upper limit, although
+     * counts may be evicted earlier when many of them are cached.
+     */
+    @CssClass(BootstrapSizes.COL_SM_1)
+    @XmlAttribute(required = false)
+    public Integer getCountCacheTimeToLive() {
+        return countCacheTimeToLive;
+    }
+
+    public void setCountCacheTimeToLive(Integer countCacheTimeToLive) {
+        this.countCacheTimeToLive = countCacheTimeToLive;
+    }
+
     @Required
     @CssClass(BootstrapSizes.COL_SM_1)
     @XmlAttribute(required = false)
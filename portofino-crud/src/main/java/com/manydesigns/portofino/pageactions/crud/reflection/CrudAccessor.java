@@ -22,6 +22,7 @@ package com.manydesigns.portofino.pageactions.crud.reflection;
 
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
+import com.manydesigns.elements.reflection.PropertyListAccessor;
 import com.manydesigns.portofino.pageactions.crud.configuration.CrudConfiguration;
 import com.manydesigns.portofino.pageactions.crud.configuration.CrudProperty;
 import com.manydesigns.portofino.reflection.AbstractAnnotatedAccessor;
@@ -32,6 +33,8 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /*
@@ -40,7 +43,7 @@ import java.util.List;
 * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
 * @author Alessio Stalla       - alessio.stalla@manydesigns.com
 */
-public class CrudAccessor extends AbstractAnnotatedAccessor implements ClassAccessor {
+public class CrudAccessor extends AbstractAnnotatedAccessor implements PropertyListAccessor {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
@@ -53,6 +56,8 @@ public class CrudAccessor extends AbstractAnnotatedAccessor implements ClassAcce
     protected final ClassAccessor nestedAccessor;
     protected final CrudPropertyAccessor[] propertyAccessors;
     protected final CrudPropertyAccessor[] keyPropertyAccessors;
+    protected final List<PropertyAccessor> propertyList;
+    protected final List<PropertyAccessor> keyPropertyList;
 
     public final static Logger logger =
             LoggerFactory.getLogger(CrudAccessor.class);
@@ -97,6 +102,8 @@ public class CrudAccessor extends AbstractAnnotatedAccessor implements ClassAcce
             }
             i++;
         }
+        propertyList = Collections.unmodifiableList(Arrays.<PropertyAccessor>asList(propertyAccessors));
+        keyPropertyList = Collections.unmodifiableList(Arrays.<PropertyAccessor>asList(keyPropertyAccessors));
 
 
 /*        logger.debug("Sorting crud properties to preserve their previous order as much as possible");
@@ -170,6 +177,14 @@ public class CrudAccessor extends AbstractAnnotatedAccessor implements ClassAcce
         return keyPropertyAccessors.clone();
     }
 
+    public List<PropertyAccessor> getPropertyList() {
+        return propertyList;
+    }
+
+    public List<PropertyAccessor> getKeyPropertyList() {
+        return keyPropertyList;
+    }
+
     public Object newInstance() {
         return nestedAccessor.newInstance();
     }
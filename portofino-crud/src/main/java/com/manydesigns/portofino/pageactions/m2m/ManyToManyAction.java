@@ -151,8 +151,8 @@ public class ManyToManyAction extends AbstractPageAction {
             return;
         }
         Table table = m2mConfiguration.getActualRelationTable();
-        relationTableAccessor = new TableAccessor(table);
-        manyTableAccessor = new TableAccessor(m2mConfiguration.getActualManyTable());
+        relationTableAccessor = persistence.getTableAccessor(table);
+        manyTableAccessor = persistence.getTableAccessor(m2mConfiguration.getActualManyTable());
         if(StringUtils.isBlank(m2mConfiguration.getActualOnePropertyName())) {
             logger.error("One property name not set");
             return;
@@ -175,7 +175,7 @@ public class ManyToManyAction extends AbstractPageAction {
                     return;
                 }
 
-                TableAccessor tableAccessor = new TableAccessor(m2mConfiguration.getActualRelationTable());
+                TableAccessor tableAccessor = persistence.getTableAccessor(m2mConfiguration.getActualRelationTable());
                 PropertyAccessor onePkAccessor = tableAccessor.getProperty(m2mConfiguration.getActualOnePropertyName());
 
                 if(onePkAccessor == null) {
@@ -231,7 +231,7 @@ public class ManyToManyAction extends AbstractPageAction {
                 tableAccessor.getAnnotation(ShortName.class);
         TextFormat[] textFormats = null;
         //L'ordinamento e' usato solo in caso di chiave singola
-        if (shortNameAnnotation != null && tableAccessor.getKeyProperties().length == 1) {
+        if (shortNameAnnotation != null && tableAccessor.getKeyPropertyList().size() == 1) {
             textFormats = new TextFormat[] {
                 OgnlTextFormat.create(shortNameAnnotation.value())
             };
@@ -612,7 +612,7 @@ public class ManyToManyAction extends AbstractPageAction {
     }
 
     protected void loadOnePk(Object key) throws Exception{
-        TableAccessor tableAccessor = new TableAccessor(m2mConfiguration.getActualRelationTable());
+        TableAccessor tableAccessor = persistence.getTableAccessor(m2mConfiguration.getActualRelationTable());
         PropertyAccessor onePkAccessor = tableAccessor.getProperty(m2mConfiguration.getActualOnePropertyName());
 
         if(onePkAccessor == null) {
@@ -21,12 +21,27 @@
     </div>
     <%
         Integer rowsPerPage = actionBean.getCrudConfiguration().getRowsPerPage();
+        if(actionBean.isKeysetPagination()) {
+            if(actionBean.getCursor() != null || actionBean.getNextCursor() != null) { %>
+            <ul class="pagination pagination-sm">
+                <% writeKeysetPaginator(out, actionBean); %>
+            </ul>
+    <%      }
+        } else {
         long totalSearchRecords = rowsPerPage != null ? actionBean.getTotalSearchRecords() : 0;
         if(rowsPerPage != null && totalSearchRecords > rowsPerPage) { %>
             <ul class="pagination pagination-sm">
                 <% writePaginator(out, actionBean, rowsPerPage, totalSearchRecords); %>
             </ul>
-    <%  } %>
+    <%  }
+        if(actionBean.isTotalSearchRecordsApproximate()) { %>
+            <span class="pagination-sm text-muted">
+                <fmt:message key="about._.records">
+                    <fmt:param value="<%= totalSearchRecords %>" />
+                </fmt:message>
+            </span>
+    <%  }
+        } %>
     <input type="hidden" name="sortProperty" value="${actionBean.sortProperty}" />
     <input type="hidden" name="sortDirection" value="${actionBean.sortDirection}" />
     <input type="hidden" name="eventName" value="${actionBean.context.eventName}" />
@@ -34,6 +49,40 @@
     <div style="clear: both;"></div>
 </div>
 <%!
+    private void writeKeysetPaginator(Writer out, AbstractCrudAction actionBean) {
+        XhtmlBuffer buf = new XhtmlBuffer(out);
+
+        //First
+        buf.openElement("li");
+        if(actionBean.getCursor() == null) {
+            buf.addAttribute("class", "disabled");
+            buf.openElement("a");
+        } else {
+            buf.openElement("a");
+            buf.addAttribute("class", "paginator-link");
+            buf.addAttribute("href", actionBean.getLinkToPage(0));
+        }
+        buf.addAttribute("title", ElementsThreadLocals.getText("first"));
+        buf.writeNoHtmlEscape("&lt;&lt;");
+        buf.closeElement("a");
+        buf.closeElement("li");
+
+        //Next
+        buf.openElement("li");
+        if(actionBean.getNextCursor() == null) {
+            buf.addAttribute("class", "disabled");
+            buf.openElement("a");
+        } else {
+            buf.openElement("a");
+            buf.addAttribute("class", "paginator-link");
+            buf.addAttribute("href", actionBean.getLinkToNextPage());
+        }
+        buf.addAttribute("title", ElementsThreadLocals.getText("next"));
+        buf.writeNoHtmlEscape("&gt;");
+        buf.closeElement("a");
+        buf.closeElement("li");
+    }
+
     private void writePaginator(Writer out, AbstractCrudAction actionBean, int rowsPerPage, long totalSearchRecords) {
         int firstResult = actionBean.getFirstResult() != null ? actionBean.getFirstResult() : 0;
         int currentPage = firstResult / rowsPerPage;
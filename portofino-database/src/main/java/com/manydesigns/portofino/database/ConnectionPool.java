@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.database;
+
+import com.manydesigns.elements.annotations.Label;
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.beans.PropertyVetoException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A pool of JDBC connections, backed by c3p0. Pools are shared by all the connection providers with the same
+ * settings, so that reloading the model does not open a new set of connections. Each provider acquires the pool
+ * with {@link #acquire} and releases it with {@link #release()}; the pool is closed when its last user releases it.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class ConnectionPool {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    public static final Logger logger = LoggerFactory.getLogger(ConnectionPool.class);
+
+    //**************************************************************************
+    // Configuration keys, relative to portofino.database.<database name>.
+    //**************************************************************************
+
+    public static final String ENABLED = "pool.enabled";
+    public static final String MIN_SIZE = "pool.minSize";
+    public static final String MAX_SIZE = "pool.maxSize";
+    /**
+     * Milliseconds to wait for a connection when the pool is exhausted, before failing. 0 means forever.
+     */
+    public static final String ACQUISITION_TIMEOUT = "pool.acquisitionTimeout";
+    /**
+     * Query used to check that a connection is still valid before handing it out.
+     */
+    public static final String VALIDATION_QUERY = "pool.validationQuery";
+    /**
+     * Seconds after which idle connections in excess of the minimum size are closed.
+     */
+    public static final String IDLE_TIMEOUT = "pool.idleTimeout";
+    /**
+     * Seconds after which a connection that has not been returned to the pool is considered leaked: it is closed,
+     * and the stack trace of the code that acquired it is logged. 0 disables leak detection.
+     */
+    public static final String LEAK_DETECTION_THRESHOLD = "pool.leakDetectionThreshold";
+
+    public static final int DEFAULT_MIN_SIZE = 1;
+    public static final int DEFAULT_MAX_SIZE = 10;
+    public static final int DEFAULT_ACQUISITION_TIMEOUT = 30000;
+    public static final int DEFAULT_IDLE_TIMEOUT = 600;
+    public static final int DEFAULT_LEAK_DETECTION_THRESHOLD = 0;
+
+    /**
+     * The open pools by settings. Changes to the map and to the reference counts are guarded by the map itself.
+     */
+    protected static final Map<List<Object>, ConnectionPool> pools = new HashMap<List<Object>, ConnectionPool>();
+
+    //**************************************************************************
+    // Fields
+    //**************************************************************************
+
+    protected final List<Object> key;
+    protected final ComboPooledDataSource dataSource;
+    protected int references;
+
+    //**************************************************************************
+    // Pool lookup
+    //**************************************************************************
+
+    /**
+     * Returns whether pooling is enabled for a database.
+     * @param configuration the Portofino configuration.
+     * @param keyPrefix the prefix of the database's configuration keys.
+     */
+    public static boolean isEnabled(Configuration configuration, String keyPrefix) {
+        return configuration.getBoolean(keyPrefix + ENABLED, false);
+    }
+
+    /**
+     * Returns the pool for the given connection settings, creating it if it does not exist yet. Every call must be
+     * matched by a call to {@link #release()} when the caller no longer uses the pool.
+     * @param name the name of the pool, used for logging.
+     * @param driver the JDBC driver class.
+     * @param url the JDBC URL.
+     * @param username the user name, possibly null.
+     * @param password the password, possibly null.
+     * @param configuration the Portofino configuration.
+     * @param keyPrefix the prefix of the database's configuration keys.
+     * @return the pool.
+     */
+    public static ConnectionPool acquire(
+            String name, String driver, String url, String username, String password,
+            Configuration configuration, String keyPrefix) throws PropertyVetoException {
+        int minSize = configuration.getInt(keyPrefix + MIN_SIZE, DEFAULT_MIN_SIZE);
+        int maxSize = configuration.getInt(keyPrefix + MAX_SIZE, DEFAULT_MAX_SIZE);
+        int acquisitionTimeout = configuration.getInt(keyPrefix + ACQUISITION_TIMEOUT, DEFAULT_ACQUISITION_TIMEOUT);
+        String validationQuery = configuration.getString(keyPrefix + VALIDATION_QUERY);
+        int idleTimeout = configuration.getInt(keyPrefix + IDLE_TIMEOUT, DEFAULT_IDLE_TIMEOUT);
+        int leakDetectionThreshold =
+                configuration.getInt(keyPrefix + LEAK_DETECTION_THRESHOLD, DEFAULT_LEAK_DETECTION_THRESHOLD);
+        List<Object> key = Arrays.<Object>asList(
+                driver, url, username, password, minSize, maxSize, acquisitionTimeout, validationQuery,
+                idleTimeout, leakDetectionThreshold);
+        synchronized (pools) {
+            ConnectionPool pool = pools.get(key);
+            if(pool == null) {
+                pool = new ConnectionPool(key, createDataSource(
+                        name, driver, url, username, password, minSize, maxSize, acquisitionTimeout,
+                        validationQuery, idleTimeout, leakDetectionThreshold));
+                pools.put(key, pool);
+                logger.info("Created connection pool {} for {} (size {}-{})",
+                        new Object[] { name, url, minSize, maxSize });
+            }
+            pool.references++;
+            return pool;
+        }
+    }
+
+    protected static ComboPooledDataSource createDataSource(
+            String name, String driver, String url, String username, String password, int minSize, int maxSize,
+            int acquisitionTimeout, String validationQuery, int idleTimeout, int leakDetectionThreshold)
+            throws PropertyVetoException {
+        ComboPooledDataSource dataSource = new ComboPooledDataSource();
+        dataSource.setDataSourceName(name);
+        dataSource.setDriverClass(driver);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUser(username);
+        dataSource.setPassword(password);
+        dataSource.setMinPoolSize(minSize);
+        dataSource.setInitialPoolSize(minSize);
+        dataSource.setMaxPoolSize(maxSize);
+        dataSource.setCheckoutTimeout(acquisitionTimeout);
+        if(!StringUtils.isBlank(validationQuery)) {
+            dataSource.setPreferredTestQuery(validationQuery);
+            dataSource.setTestConnectionOnCheckout(true);
+        }
+        dataSource.setMaxIdleTimeExcessConnections(idleTimeout);
+        if(leakDetectionThreshold > 0) {
+            dataSource.setUnreturnedConnectionTimeout(leakDetectionThreshold);
+            dataSource.setDebugUnreturnedConnectionStackTraces(true);
+        }
+        return dataSource;
+    }
+
+    protected ConnectionPool(List<Object> key, ComboPooledDataSource dataSource) {
+        this.key = key;
+        this.dataSource = dataSource;
+    }
+
+    //**************************************************************************
+    // Connections
+    //**************************************************************************
+
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Releases a reference to the pool obtained with {@link #acquire}. When no references are left, the pool is
+     * closed along with all of its connections, and cannot be used afterwards.
+     */
+    public void release() {
+        synchronized (pools) {
+            if(references <= 0) {
+                logger.warn("Connection pool {} released more times than acquired", dataSource.getDataSourceName());
+                return;
+            }
+            references--;
+            if(references > 0) {
+                return;
+            }
+            pools.remove(key);
+        }
+        logger.info("Closing connection pool {}", dataSource.getDataSourceName());
+        dataSource.close();
+    }
+
+    public boolean isClosed() {
+        synchronized (pools) {
+            return references <= 0;
+        }
+    }
+
+    //**************************************************************************
+    // Settings and metrics
+    //**************************************************************************
+
+    public int getMinSize() {
+        return dataSource.getMinPoolSize();
+    }
+
+    public int getMaxSize() {
+        return dataSource.getMaxPoolSize();
+    }
+
+    @Label("acquisition timeout (ms)")
+    public int getAcquisitionTimeout() {
+        return dataSource.getCheckoutTimeout();
+    }
+
+    public String getValidationQuery() {
+        return dataSource.getPreferredTestQuery();
+    }
+
+    @Label("idle timeout (s)")
+    public int getIdleTimeout() {
+        return dataSource.getMaxIdleTimeExcessConnections();
+    }
+
+    @Label("leak detection threshold (s)")
+    public int getLeakDetectionThreshold() {
+        return dataSource.getUnreturnedConnectionTimeout();
+    }
+
+    public Integer getTotalConnections() {
+        try {
+            return dataSource.getNumConnectionsDefaultUser();
+        } catch (SQLException e) {
+            logger.debug("Could not read pool metrics", e);
+            return null;
+        }
+    }
+
+    public Integer getBusyConnections() {
+        try {
+            return dataSource.getNumBusyConnectionsDefaultUser();
+        } catch (SQLException e) {
+            logger.debug("Could not read pool metrics", e);
+            return null;
+        }
+    }
+
+    public Integer getIdleConnections() {
+        try {
+            return dataSource.getNumIdleConnectionsDefaultUser();
+        } catch (SQLException e) {
+            logger.debug("Could not read pool metrics", e);
+            return null;
+        }
+    }
+
+    @Label("threads waiting for a connection")
+    public Integer getThreadsAwaitingConnection() {
+        try {
+            return dataSource.getNumThreadsAwaitingCheckoutDefaultUser();
+        } catch (SQLException e) {
+            logger.debug("Could not read pool metrics", e);
+            return null;
+        }
+    }
+
+    public Integer getOrphanedConnections() {
+        try {
+            return dataSource.getNumUnclosedOrphanedConnectionsDefaultUser();
+        } catch (SQLException e) {
+            logger.debug("Could not read pool metrics", e);
+            return null;
+        }
+    }
+}
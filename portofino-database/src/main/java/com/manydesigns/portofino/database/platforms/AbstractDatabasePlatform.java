@@ -21,12 +21,15 @@
 package com.manydesigns.portofino.database.platforms;
 
 import com.manydesigns.portofino.model.database.ConnectionProvider;
+import com.manydesigns.portofino.model.database.Table;
 import org.apache.commons.dbutils.DbUtils;
 import org.hibernate.dialect.Dialect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -147,4 +150,35 @@ public abstract class AbstractDatabasePlatform implements DatabasePlatform {
     protected String getCatalogColumnName() {
         return TABLE_CATALOG;
     }
+
+    public Long getEstimatedRowCount(Connection connection, Table table) throws SQLException {
+        return null;
+    }
+
+    /**
+     * Runs a query returning a single number, used to read row count estimates from the catalog.
+     * @return the number, or null if the query returns no rows, a null value or a negative number (which some
+     * databases use for tables without statistics).
+     */
+    protected Long queryEstimatedRowCount(Connection connection, String sql, String... parameters)
+            throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        ResultSet rs = null;
+        try {
+            for(int i = 0; i < parameters.length; i++) {
+                statement.setString(i + 1, parameters[i]);
+            }
+            rs = statement.executeQuery();
+            if(rs.next()) {
+                long count = rs.getLong(1);
+                if(!rs.wasNull() && count >= 0) {
+                    return count;
+                }
+            }
+            return null;
+        } finally {
+            DbUtils.closeQuietly(rs);
+            DbUtils.closeQuietly(statement);
+        }
+    }
 }
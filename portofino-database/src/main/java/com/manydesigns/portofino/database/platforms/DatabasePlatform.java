@@ -22,8 +22,10 @@ package com.manydesigns.portofino.database.platforms;
 
 import com.manydesigns.elements.annotations.Status;
 import com.manydesigns.portofino.model.database.ConnectionProvider;
+import com.manydesigns.portofino.model.database.Table;
 import org.hibernate.dialect.Dialect;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.List;
@@ -63,4 +65,13 @@ public interface DatabasePlatform {
 
     List<String[]> getSchemaNames(DatabaseMetaData databaseMetaData) throws SQLException;
 
+    /**
+     * Returns the number of rows of a table as estimated by the database from its catalog statistics, without
+     * scanning the table.
+     * @param connection the connection to use.
+     * @param table the table.
+     * @return the estimate, or null if the platform does not provide one (or it is not available for the table).
+     */
+    Long getEstimatedRowCount(Connection connection, Table table) throws SQLException;
+
 }
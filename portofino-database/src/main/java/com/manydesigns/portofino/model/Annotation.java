@@ -60,7 +60,7 @@ public class Annotation implements ModelObject {
     //**************************************************************************
 
     protected Class javaAnnotationClass;
-    protected java.lang.annotation.Annotation javaAnnotation;
+    protected transient java.lang.annotation.Annotation javaAnnotation;
 
     //**************************************************************************
     // Logging
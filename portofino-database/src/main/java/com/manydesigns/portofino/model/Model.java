@@ -25,8 +25,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.xml.bind.annotation.*;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -36,7 +39,7 @@ import java.util.List;
 */
 @XmlRootElement
 @XmlAccessorType(XmlAccessType.NONE)
-public class Model {
+public class Model implements Serializable {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
     public static final String JAXB_MODEL_PACKAGES = "com.manydesigns.portofino.model";
@@ -47,6 +50,12 @@ public class Model {
 
     protected final ArrayList<Database> databases;
 
+    //**************************************************************************
+    // Fields for wire-up
+    //**************************************************************************
+
+    protected volatile Map<String, Integer> databasePositions;
+
     public static final Logger logger = LoggerFactory.getLogger(Model.class);
 
     //**************************************************************************
@@ -71,6 +80,22 @@ public class Model {
         new ResetVisitor().visit(rootObject);
         new InitVisitor(this).visit(rootObject);
         new LinkVisitor(this).visit(rootObject);
+        indexDatabases();
+    }
+
+    /**
+     * Rebuilds the index of the positions of databases by name, used by DatabaseLogic for lookups. The index is
+     * replaced as a whole, so readers always see a consistent one.
+     */
+    protected void indexDatabases() {
+        Map<String, Integer> index = new HashMap<String, Integer>();
+        for (int i = 0; i < databases.size(); i++) {
+            String databaseName = databases.get(i).getDatabaseName();
+            if(!index.containsKey(databaseName)) {
+                index.put(databaseName, i);
+            }
+        }
+        databasePositions = index;
     }
 
     //**************************************************************************
@@ -84,4 +109,12 @@ public class Model {
         return databases;
     }
 
+    /**
+     * @return the positions in {@link #getDatabases()} of the databases, by name, as of the last time the model was
+     * initialized, or null if it never was.
+     */
+    public Map<String, Integer> getDatabasePositions() {
+        return databasePositions;
+    }
+
 }
\ No newline at end of file
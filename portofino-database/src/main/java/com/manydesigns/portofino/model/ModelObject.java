@@ -21,6 +21,7 @@
 package com.manydesigns.portofino.model;
 
 import javax.xml.bind.Unmarshaller;
+import java.io.Serializable;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -28,7 +29,7 @@ import javax.xml.bind.Unmarshaller;
 * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
 * @author Alessio Stalla       - alessio.stalla@manydesigns.com
 */
-public interface ModelObject {
+public interface ModelObject extends Serializable {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
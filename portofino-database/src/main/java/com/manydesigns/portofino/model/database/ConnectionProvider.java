@@ -35,6 +35,7 @@ import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
+import java.io.Serializable;
 import java.sql.*;
 import java.text.MessageFormat;
 import java.util.*;
@@ -47,7 +48,7 @@ import java.util.Date;
 * @author Alessio Stalla       - alessio.stalla@manydesigns.com
 */
 @XmlAccessorType(XmlAccessType.NONE)
-public abstract class ConnectionProvider {
+public abstract class ConnectionProvider implements Serializable {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
@@ -78,7 +79,7 @@ public abstract class ConnectionProvider {
     protected Integer JDBCMajorVersion;
     protected Integer JDBCMinorVersion;
     protected String JDBCMajorMinorVersion;
-    protected DatabasePlatform databasePlatform;
+    protected transient DatabasePlatform databasePlatform;
     protected String status;
     protected String errorMessage;
     protected Date lastTested;
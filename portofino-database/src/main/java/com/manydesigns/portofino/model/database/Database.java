@@ -30,7 +30,9 @@ import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.*;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -57,7 +59,13 @@ public class Database implements ModelObject {
 
     protected ConnectionProvider connectionProvider;
 
-    
+    //**************************************************************************
+    // Fields for wire-up
+    //**************************************************************************
+
+    protected volatile Map<String, Integer> schemaPositions;
+    protected volatile Map<String, Table> tablesByEntityName;
+
     //**************************************************************************
     // Logging
     //**************************************************************************
@@ -82,13 +90,34 @@ public class Database implements ModelObject {
         return databaseName;
     }
 
-    public void reset() {}
+    public void reset() {
+        schemaPositions = null;
+        tablesByEntityName = null;
+    }
 
     public void init(Model model) {
         assert databaseName != null;
     }
 
-    public void link(Model model) {}
+    public void link(Model model) {
+        //Entity names are computed by Table.init, so they are all known here
+        Map<String, Integer> schemaIndex = new HashMap<String, Integer>();
+        Map<String, Table> entityIndex = new HashMap<String, Table>();
+        for (int i = 0; i < schemas.size(); i++) {
+            Schema schema = schemas.get(i);
+            if(!schemaIndex.containsKey(schema.getSchemaName())) {
+                schemaIndex.put(schema.getSchemaName(), i);
+            }
+            for (Table table : schema.getTables()) {
+                String entityName = table.getActualEntityName();
+                if(entityName != null && !entityIndex.containsKey(entityName)) {
+                    entityIndex.put(entityName, table);
+                }
+            }
+        }
+        schemaPositions = schemaIndex;
+        tablesByEntityName = entityIndex;
+    }
 
     public void visitChildren(ModelObjectVisitor visitor) {
         for (Schema schema : schemas) {
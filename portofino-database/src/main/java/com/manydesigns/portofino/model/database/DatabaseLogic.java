@@ -31,6 +31,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -102,10 +103,31 @@ public class DatabaseLogic {
 
     //**************************************************************************
     // Search objects of a certain kind
+    // Exact-match lookups first consult the indexes built when the model is
+    // linked, which record the position of each object in its (live) list. A
+    // hit is the object currently at that position, if it still has the name;
+    // a miss falls back to scanning the model, in case it was modified after
+    // it was initialized.
     //**************************************************************************
 
+    protected static @Nullable <T> T getIndexed(
+            @Nullable Map<String, Integer> positions, List<T> list, String name) {
+        if (positions == null) {
+            return null;
+        }
+        Integer position = positions.get(name);
+        if (position == null || position >= list.size()) {
+            return null;
+        }
+        return list.get(position);
+    }
+
     public static @Nullable Database findDatabaseByName(
             Model model, String databaseName) {
+        Database indexed = getIndexed(model.getDatabasePositions(), model.getDatabases(), databaseName);
+        if (indexed != null && indexed.getDatabaseName().equals(databaseName)) {
+            return indexed;
+        }
         for (Database database : model.getDatabases()) {
             if (database.getDatabaseName().equals(databaseName)) {
                 return database;
@@ -117,6 +139,10 @@ public class DatabaseLogic {
 
     public static @Nullable Schema findSchemaByName(
             Database database, String schemaName) {
+        Schema indexed = getIndexed(database.schemaPositions, database.getSchemas(), schemaName);
+        if (indexed != null && indexed.getSchemaName().equals(schemaName)) {
+            return indexed;
+        }
         for (Schema schema : database.getSchemas()) {
             if (schema.getSchemaName().equals(schemaName)) {
                 return schema;
@@ -157,6 +183,10 @@ public class DatabaseLogic {
     }
 
     public static @Nullable Table findTableByName(Schema schema, String tableName) {
+        Table indexed = getIndexed(schema.tablePositions, schema.getTables(), tableName);
+        if (indexed != null && indexed.getTableName().equals(tableName)) {
+            return indexed;
+        }
         for (Table table : schema.getTables()) {
             if (table.getTableName().equals(tableName)) {
                 return table;
@@ -178,6 +208,10 @@ public class DatabaseLogic {
 
     public static @Nullable Column findColumnByName(
             Table table, String columnName) {
+        Column indexed = getIndexed(table.columnPositions, table.getColumns(), columnName);
+        if (indexed != null && indexed.getColumnName().equals(columnName)) {
+            return indexed;
+        }
         for (Column column : table.getColumns()) {
             if (column.getColumnName().equals(columnName)) {
                 return column;
@@ -199,6 +233,10 @@ public class DatabaseLogic {
     }
 
     public static Column findColumnByPropertyName(Table table, String propertyName) {
+        Column indexed = getIndexed(table.columnPositionsByPropertyName, table.getColumns(), propertyName);
+        if (indexed != null && propertyName.equals(indexed.getActualPropertyName())) {
+            return indexed;
+        }
         for (Column column : table.getColumns()) {
             if (column.getActualPropertyName().equals(propertyName)) {
                 return column;
@@ -212,11 +250,7 @@ public class DatabaseLogic {
             Model model, String databaseName, String schemaName, String tableName, String columnName) {
         Table table = findTableByName(model, databaseName, schemaName, tableName);
         if (table != null) {
-            for (Column column : table.getColumns()) {
-                if (column.getColumnName().equals(columnName)) {
-                    return column;
-                }
-            }
+            return findColumnByName(table, columnName);
         }
         logger.debug("Column not found: {}", columnName);
         return null;
@@ -232,6 +266,16 @@ public class DatabaseLogic {
     }
 
     public static Table findTableByEntityName(Database database, String entityName) {
+        Map<String, Table> index = database.tablesByEntityName;
+        if (index != null) {
+            Table table = index.get(entityName);
+            //The table must still be in the model: look it up through the (checked) schema and table indexes
+            if (table != null && entityName.equals(table.getActualEntityName()) && table.getSchema() != null &&
+                findSchemaByName(database, table.getSchema().getSchemaName()) == table.getSchema() &&
+                findTableByName(table.getSchema(), table.getTableName()) == table) {
+                return table;
+            }
+        }
         for(Schema schema : database.getSchemas()) {
             for(Table table : schema.getTables()) {
                 if(entityName.equals(table.getActualEntityName())) {
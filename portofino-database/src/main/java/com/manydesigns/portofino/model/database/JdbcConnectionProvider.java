@@ -21,6 +21,7 @@
 package com.manydesigns.portofino.model.database;
 
 import com.manydesigns.elements.text.OgnlTextFormat;
+import com.manydesigns.portofino.database.ConnectionPool;
 import com.manydesigns.portofino.database.platforms.DatabasePlatformsRegistry;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.dbutils.DbUtils;
@@ -55,7 +56,7 @@ public class JdbcConnectionProvider extends ConnectionProvider {
     protected String username;
     protected String password;
 
-    protected Configuration configuration;
+    protected transient Configuration configuration;
     protected String keyPrefix;
 
     //**************************************************************************
@@ -65,6 +66,7 @@ public class JdbcConnectionProvider extends ConnectionProvider {
     protected String actualUrl;
     protected String actualUsername;
     protected String actualPassword;
+    protected transient ConnectionPool connectionPool;
 
     //**************************************************************************
     // Constructors
@@ -106,19 +108,58 @@ public class JdbcConnectionProvider extends ConnectionProvider {
         } else {
             actualPassword = password;
         }
+        initConnectionPool();
         super.init(databasePlatformsRegistry);
     }
 
+    protected void initConnectionPool() {
+        ConnectionPool oldPool = connectionPool;
+        connectionPool = null;
+        try {
+            if(ConnectionPool.isEnabled(configuration, keyPrefix)) {
+                try {
+                    connectionPool = ConnectionPool.acquire(
+                            getDatabase().getDatabaseName(), driver, actualUrl, actualUsername, actualPassword,
+                            configuration, keyPrefix);
+                } catch (Exception e) {
+                    status = STATUS_ERROR;
+                    throw new RuntimeException(
+                            "Could not create the connection pool for database " + getDatabase().getDatabaseName(),
+                            e);
+                }
+            }
+        } finally {
+            //Released after acquiring the new one, so a pool with unchanged settings is not closed and reopened;
+            //released even if that fails, as this provider no longer references it
+            if(oldPool != null) {
+                oldPool.release();
+            }
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if(connectionPool != null) {
+            connectionPool.release();
+            connectionPool = null;
+        }
+        super.shutdown();
+    }
+
     //**************************************************************************
     // Implementation of ConnectionProvider
     //**************************************************************************
 
     public String getDescription() {
         return MessageFormat.format(
-                "JDBC connection to URL: {0}", actualUrl);
+                connectionPool != null ? "Pooled JDBC connection to URL: {0}" : "JDBC connection to URL: {0}",
+                actualUrl);
     }
 
     public Connection acquireConnection() throws Exception {
+        if(connectionPool != null) {
+            return connectionPool.getConnection();
+        }
         Class.forName(driver);
         return DriverManager.getConnection(actualUrl, actualUsername, actualPassword);
     }
@@ -167,6 +208,13 @@ public class JdbcConnectionProvider extends ConnectionProvider {
         this.password = password;
     }
 
+    /**
+     * Returns the pool of connections of this provider, or null if pooling is not enabled for its database.
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
     public String getActualUrl() {
         return actualUrl;
     }
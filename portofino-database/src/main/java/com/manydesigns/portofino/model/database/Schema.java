@@ -30,7 +30,9 @@ import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.*;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -54,7 +56,13 @@ public class Schema implements ModelObject {
 
     protected String schemaName;
     protected String catalog;
-    
+
+    //**************************************************************************
+    // Fields for wire-up
+    //**************************************************************************
+
+    protected volatile Map<String, Integer> tablePositions;
+
     //**************************************************************************
     // Logging
     //**************************************************************************
@@ -91,14 +99,25 @@ public class Schema implements ModelObject {
         return MessageFormat.format("{0}.{1}", getDatabaseName(), schemaName);
     }
 
-    public void reset() {}
+    public void reset() {
+        tablePositions = null;
+    }
 
     public void init(Model model) {
         assert database != null;
         assert schemaName != null;
     }
 
-    public void link(Model model) {}
+    public void link(Model model) {
+        Map<String, Integer> index = new HashMap<String, Integer>();
+        for (int i = 0; i < tables.size(); i++) {
+            String tableName = tables.get(i).getTableName();
+            if(!index.containsKey(tableName)) {
+                index.put(tableName, i);
+            }
+        }
+        tablePositions = index;
+    }
 
     public void visitChildren(ModelObjectVisitor visitor) {
         for (Table table : tables) {
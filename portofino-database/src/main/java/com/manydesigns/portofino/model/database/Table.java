@@ -30,7 +30,9 @@ import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.*;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -40,7 +42,7 @@ import java.util.List;
 */
 @XmlRootElement(name = "table")
 @XmlAccessorType(XmlAccessType.NONE)
-@XmlType(propOrder = {"tableName", "entityName", "shortName", "javaClass","annotations","columns","foreignKeys","primaryKey","selectionProviders"})
+@XmlType(propOrder = {"tableName", "entityName", "shortName", "javaClass","cached","cacheConcurrencyStrategy","cacheRegion","annotations","columns","foreignKeys","primaryKey","selectionProviders"})
 public class Table implements ModelObject, Annotated {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
@@ -62,6 +64,10 @@ public class Table implements ModelObject, Annotated {
 
     protected String shortName;
 
+    protected Boolean cached;
+    protected String cacheConcurrencyStrategy;
+    protected String cacheRegion;
+
     protected PrimaryKey primaryKey;
 
     //**************************************************************************
@@ -72,6 +78,8 @@ public class Table implements ModelObject, Annotated {
     protected Class actualJavaClass;
     protected String actualEntityName;
     protected final List<String> syntheticPropertyNames = new ArrayList<String>();
+    protected volatile Map<String, Integer> columnPositions;
+    protected volatile Map<String, Integer> columnPositionsByPropertyName;
 
     //**************************************************************************
     // Logging
@@ -79,6 +87,11 @@ public class Table implements ModelObject, Annotated {
 
     public static final Logger logger = LoggerFactory.getLogger(Table.class);
 
+    /**
+     * The concurrency strategy of the second-level cache, when the table is cached but no strategy is configured.
+     */
+    public static final String DEFAULT_CACHE_CONCURRENCY_STRATEGY = "read-write";
+
     //**************************************************************************
     // Constructors and init
     //**************************************************************************
@@ -115,6 +128,8 @@ public class Table implements ModelObject, Annotated {
         actualEntityName = null;
         actualJavaClass = null;
         oneToManyRelationships.clear();
+        columnPositions = null;
+        columnPositionsByPropertyName = null;
     }
 
     public void init(Model model) {
@@ -143,7 +158,23 @@ public class Table implements ModelObject, Annotated {
         actualEntityName = calculatedEntityName;
     }
 
-    public void link(Model model) {}
+    public void link(Model model) {
+        //Property names are computed by Column.init, so they are all known here
+        Map<String, Integer> nameIndex = new HashMap<String, Integer>();
+        Map<String, Integer> propertyIndex = new HashMap<String, Integer>();
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            if(!nameIndex.containsKey(column.getColumnName())) {
+                nameIndex.put(column.getColumnName(), i);
+            }
+            String propertyName = column.getActualPropertyName();
+            if(propertyName != null && !propertyIndex.containsKey(propertyName)) {
+                propertyIndex.put(propertyName, i);
+            }
+        }
+        columnPositions = nameIndex;
+        columnPositionsByPropertyName = propertyIndex;
+    }
 
     public void visitChildren(ModelObjectVisitor visitor) {
         for (Column column : columns) {
@@ -277,6 +308,51 @@ public class Table implements ModelObject, Annotated {
         this.shortName = shortName;
     }
 
+    /**
+     * Whether the entities of this table are kept in the Hibernate second-level cache. Meant for reference tables
+     * that are read much more often than they are written.
+     */
+    @XmlAttribute(required = false)
+    public Boolean getCached() {
+        return cached;
+    }
+
+    public void setCached(Boolean cached) {
+        this.cached = cached;
+    }
+
+    public boolean isCacheEnabled() {
+        return cached != null && cached;
+    }
+
+    /**
+     * The Hibernate cache concurrency strategy: read-only, nonstrict-read-write, read-write or transactional.
+     */
+    @XmlAttribute(required = false)
+    public String getCacheConcurrencyStrategy() {
+        return cacheConcurrencyStrategy;
+    }
+
+    public void setCacheConcurrencyStrategy(String cacheConcurrencyStrategy) {
+        this.cacheConcurrencyStrategy = cacheConcurrencyStrategy;
+    }
+
+    public String getActualCacheConcurrencyStrategy() {
+        return cacheConcurrencyStrategy != null ? cacheConcurrencyStrategy : DEFAULT_CACHE_CONCURRENCY_STRATEGY;
+    }
+
+    /**
+     * The name of the cache region holding the entities of this table. By default, it is the entity name.
+     */
+    @XmlAttribute(required = false)
+    public String getCacheRegion() {
+        return cacheRegion;
+    }
+
+    public void setCacheRegion(String cacheRegion) {
+        this.cacheRegion = cacheRegion;
+    }
+
     public List<String> getSyntheticPropertyNames() {
         return syntheticPropertyNames;
     }
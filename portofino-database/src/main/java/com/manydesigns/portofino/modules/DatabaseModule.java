@@ -20,10 +20,14 @@
 
 package com.manydesigns.portofino.modules;
 
+import com.manydesigns.portofino.cache.CacheResetEvent;
+import com.manydesigns.portofino.cache.CacheResetListener;
+import com.manydesigns.portofino.cache.CacheResetListenerRegistry;
 import com.manydesigns.portofino.database.platforms.DatabasePlatformsRegistry;
 import com.manydesigns.portofino.di.Inject;
 import com.manydesigns.portofino.di.Injections;
 import com.manydesigns.portofino.persistence.Persistence;
+import com.manydesigns.portofino.persistence.QueryUtils;
 import org.apache.commons.configuration.Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +58,9 @@ public class DatabaseModule implements Module {
     @Inject(BaseModule.APPLICATION_DIRECTORY)
     public File applicationDirectory;
 
+    @Inject(BaseModule.CACHE_RESET_LISTENER_REGISTRY)
+    public CacheResetListenerRegistry cacheResetListenerRegistry;
+
     protected Persistence persistence;
 
     protected ModuleStatus status = ModuleStatus.CREATED;
@@ -116,6 +123,8 @@ public class DatabaseModule implements Module {
         servletContext.setAttribute(DATABASE_PLATFORMS_REGISTRY, databasePlatformsRegistry);
         servletContext.setAttribute(PERSISTENCE, persistence);
 
+        cacheResetListenerRegistry.getCacheResetListeners().add(new QueryCacheResetListener());
+
         status = ModuleStatus.ACTIVE;
     }
 
@@ -142,4 +151,11 @@ public class DatabaseModule implements Module {
     public ModuleStatus getStatus() {
         return status;
     }
+
+    private static class QueryCacheResetListener implements CacheResetListener {
+        @Override
+        public void handleReset(CacheResetEvent e) {
+            QueryUtils.clearQueryCache();
+        }
+    }
 }
@@ -21,9 +21,11 @@
 package com.manydesigns.portofino.persistence;
 
 import com.manydesigns.elements.util.ElementsFileUtils;
+import com.manydesigns.elements.xml.JaxbRegistry;
 import com.manydesigns.portofino.PortofinoProperties;
 import com.manydesigns.portofino.cache.CacheResetEvent;
 import com.manydesigns.portofino.cache.CacheResetListenerRegistry;
+import com.manydesigns.portofino.cache.Snapshot;
 import com.manydesigns.portofino.database.platforms.DatabasePlatformsRegistry;
 import com.manydesigns.portofino.di.Inject;
 import com.manydesigns.portofino.model.Model;
@@ -47,6 +49,8 @@ import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,8 +64,12 @@ import java.io.FilenameFilter;
 import java.io.IOException;
 import java.sql.Connection;
 import java.text.MessageFormat;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -89,6 +97,17 @@ public class Persistence {
     protected final DatabasePlatformsRegistry databasePlatformsRegistry;
     protected Model model;
     protected final Map<String, HibernateDatabaseSetup> setups;
+    /**
+     * Table accessors of the current model generation. Replaced, not cleared, when the model is initialized, so
+     * that an accessor built concurrently from the old model cannot leak into the new generation.
+     */
+    protected volatile ConcurrentMap<Table, TableAccessor> tableAccessors =
+            new ConcurrentHashMap<Table, TableAccessor>();
+    /**
+     * The connection providers initialized by the last call to {@link #initModel()}. Those that do not belong to
+     * the next model are shut down, releasing their connection pools.
+     */
+    protected List<ConnectionProvider> connectionProviders = new ArrayList<ConnectionProvider>();
 
     protected final File appDir;
     protected final File appDbsDir;
@@ -129,7 +148,7 @@ public class Persistence {
             throw new Error("Could not initialize application");
         }
 
-        setups = new HashMap<String, HibernateDatabaseSetup>();
+        setups = new ConcurrentHashMap<String, HibernateDatabaseSetup>();
     }
 
     //**************************************************************************
@@ -137,17 +156,36 @@ public class Persistence {
     //**************************************************************************
 
     public synchronized void loadXmlModel() {
+        boolean snapshotEnabled = configuration.getBoolean(PortofinoProperties.SNAPSHOT_ENABLED, false);
+        File snapshotFile = getModelSnapshotFile();
+        if(snapshotEnabled) {
+            Snapshot snapshot = Snapshot.read(snapshotFile);
+            if(snapshot != null && snapshot.isUpToDate()) {
+                logger.info("Loading model from snapshot: {}", snapshotFile.getAbsolutePath());
+                this.model = (Model) snapshot.getContent();
+                initModel();
+                return;
+            } else if(snapshot != null) {
+                logger.info("Model snapshot {} is stale", snapshotFile.getAbsolutePath());
+            }
+        }
+
         logger.info("Loading xml model from file: {}", appModelFile.getAbsolutePath());
 
+        List<File> sources = new ArrayList<File>();
+        sources.add(appModelFile);
+        JAXBContext jc = null;
+        Unmarshaller um = null;
         try {
-            JAXBContext jc = JAXBContext.newInstance(Model.JAXB_MODEL_PACKAGES);
-            Unmarshaller um = jc.createUnmarshaller();
+            jc = JaxbRegistry.getContext(Model.JAXB_MODEL_PACKAGES);
+            um = JaxbRegistry.acquireUnmarshaller(jc);
             Model model = (Model) um.unmarshal(appModelFile);
             File modelDir = getModelDirectory();
             for(Database database : model.getDatabases()) {
                 File databaseDir = new File(modelDir, database.getDatabaseName());
                 for(Schema schema : database.getSchemas()) {
                     File schemaDir = new File(databaseDir, schema.getSchemaName());
+                    sources.add(schemaDir);
                     if(schemaDir.isDirectory()) {
                         logger.debug("Schema directory {} exists", schemaDir);
                         File[] tableFiles = schemaDir.listFiles(new FilenameFilter() {
@@ -157,6 +195,7 @@ public class Persistence {
                             }
                         });
                         for(File tableFile : tableFiles) {
+                            sources.add(tableFile);
                             Table table = (Table) um.unmarshal(tableFile);
                             if(!tableFile.getName().equalsIgnoreCase(table.getTableName() + ".table.xml")) {
                                 throw new Exception("Found table " + table.getTableName() + " defined in file " + tableFile);
@@ -169,14 +208,26 @@ public class Persistence {
                     }
                 }
             }
+            if(snapshotEnabled) {
+                //Before initModel, which links the model and connects to the databases
+                Snapshot.write(new Snapshot(model, sources), snapshotFile);
+            }
             this.model = model;
             initModel();
         } catch (Exception e) {
             String msg = "Cannot load/parse model: " + appModelFile;
             logger.error(msg, e);
+        } finally {
+            if(um != null) {
+                JaxbRegistry.release(jc, um);
+            }
         }
     }
 
+    protected File getModelSnapshotFile() {
+        return new File(appModelFile.getParentFile(), FilenameUtils.getBaseName(appModelFile.getName()) + ".snapshot");
+    }
+
     protected File getModelDirectory() {
         return new File(appModelFile.getParentFile(), FilenameUtils.getBaseName(appModelFile.getName()));
     }
@@ -230,39 +281,42 @@ public class Persistence {
         //TODO gestire conflitti con modifiche esterne?
         File tempFile = File.createTempFile(appModelFile.getName(), "");
 
-        JAXBContext jc = JAXBContext.newInstance(Model.JAXB_MODEL_PACKAGES);
-        Marshaller m = jc.createMarshaller();
-        m.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-        m.marshal(model, tempFile);
+        JAXBContext jc = JaxbRegistry.getContext(Model.JAXB_MODEL_PACKAGES);
+        Marshaller m = JaxbRegistry.acquireMarshaller(jc);
+        try {
+            m.marshal(model, tempFile);
 
-        ElementsFileUtils.moveFileSafely(tempFile, appModelFile.getAbsolutePath());
+            ElementsFileUtils.moveFileSafely(tempFile, appModelFile.getAbsolutePath());
 
-        File modelDir = getModelDirectory();
-        for(Database database : model.getDatabases()) {
-            File databaseDir = new File(modelDir, database.getDatabaseName());
-            for(Schema schema : database.getSchemas()) {
-                File schemaDir = new File(databaseDir, schema.getSchemaName());
-                if(schemaDir.isDirectory() || schemaDir.mkdirs()) {
-                    logger.debug("Schema directory {} exists", schemaDir);
-                    File[] tableFiles = schemaDir.listFiles(new FilenameFilter() {
-                        @Override
-                        public boolean accept(File dir, String name) {
-                            return name.endsWith(".table.xml");
+            File modelDir = getModelDirectory();
+            for(Database database : model.getDatabases()) {
+                File databaseDir = new File(modelDir, database.getDatabaseName());
+                for(Schema schema : database.getSchemas()) {
+                    File schemaDir = new File(databaseDir, schema.getSchemaName());
+                    if(schemaDir.isDirectory() || schemaDir.mkdirs()) {
+                        logger.debug("Schema directory {} exists", schemaDir);
+                        File[] tableFiles = schemaDir.listFiles(new FilenameFilter() {
+                            @Override
+                            public boolean accept(File dir, String name) {
+                                return name.endsWith(".table.xml");
+                            }
+                        });
+                        for(File tableFile : tableFiles) {
+                            if(!tableFile.delete()) {
+                                logger.warn("Could not delete table file {}", tableFile.getAbsolutePath());
+                            }
                         }
-                    });
-                    for(File tableFile : tableFiles) {
-                        if(!tableFile.delete()) {
-                            logger.warn("Could not delete table file {}", tableFile.getAbsolutePath());
+                        for(Table table : schema.getTables()) {
+                            File tableFile = new File(schemaDir, table.getTableName() + ".table.xml");
+                            m.marshal(table, tableFile);
                         }
+                    } else {
+                        logger.debug("Schema directory {} does not exist", schemaDir);
                     }
-                    for(Table table : schema.getTables()) {
-                        File tableFile = new File(schemaDir, table.getTableName() + ".table.xml");
-                        m.marshal(table, tableFile);
-                    }
-                } else {
-                    logger.debug("Schema directory {} does not exist", schemaDir);
                 }
             }
+        } finally {
+            JaxbRegistry.release(jc, m);
         }
         logger.info("Saved xml model to file: {}", appModelFile);
     }
@@ -283,44 +337,136 @@ public class Persistence {
 
         setups.clear();
         model.init();
-        for (Database database : model.getDatabases()) {
+        tableAccessors = new ConcurrentHashMap<Table, TableAccessor>();
+        List<Database> databases = model.getDatabases();
+        int threads = Math.min(
+                databases.size(),
+                configuration.getInt(
+                        PortofinoProperties.PERSISTENCE_INIT_THREADS, Runtime.getRuntime().availableProcessors()));
+        final Map<String, Throwable> errors = new ConcurrentHashMap<String, Throwable>();
+        if(threads <= 1) {
+            for (Database database : databases) {
+                initDatabase(database, errors);
+            }
+        } else {
+            //Each database is available as soon as its own setup is ready; failures are logged per database
+            logger.info("Setting up {} databases with {} threads", databases.size(), threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+                protected final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Persistence init " + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
             try {
-                ConnectionProvider connectionProvider = database.getConnectionProvider();
-                connectionProvider.init(databasePlatformsRegistry);
-                if (connectionProvider.getStatus()
-                        .equals(ConnectionProvider.STATUS_CONNECTED)) {
-                    HibernateConfig builder =
-                            new HibernateConfig(connectionProvider, configuration);
-                    String trueString = database.getTrueString();
-                    if (trueString != null) {
-                        builder.setTrueString(
-                                "null".equalsIgnoreCase(trueString) ? null : trueString);
-                    }
-                    String falseString = database.getFalseString();
-                    if (falseString != null) {
-                        builder.setFalseString(
-                                "null".equalsIgnoreCase(falseString) ? null : falseString);
-                    }
-                    Configuration configuration =
-                            builder.buildSessionFactory(database);
-                    StandardServiceRegistryBuilder registryBuilder =
-                            new StandardServiceRegistryBuilder().applySettings(configuration.getProperties());
-                    SessionFactory sessionFactory = configuration.buildSessionFactory(registryBuilder.build());
-
-                    HibernateDatabaseSetup setup =
-                            new HibernateDatabaseSetup(
-                                    configuration, sessionFactory);
-                    String databaseName = database.getDatabaseName();
-                    setups.put(databaseName, setup);
+                List<Future<?>> futures = new ArrayList<Future<?>>();
+                for (final Database database : databases) {
+                    futures.add(executor.submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            initDatabase(database, errors);
+                        }
+                    }));
                 }
-            } catch (Exception e) {
-                logger.error("Could not create connection provider for " + database, e);
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while setting up the databases", e);
+            } catch (ExecutionException e) {
+                //initDatabase does not throw
+                logger.error("Unexpected error while setting up the databases", e);
+            } finally {
+                executor.shutdownNow();
             }
         }
+        if(!errors.isEmpty()) {
+            logger.warn("Could not set up databases: {}", errors.keySet());
+        }
+        shutdownStaleConnectionProviders(databases);
 
         cacheResetListenerRegistry.fireReset(new CacheResetEvent(this));
     }
 
+    /**
+     * Shuts down the connection providers of the previous model that are not part of the given databases, e.g.
+     * after the model has been reloaded. This happens after the new providers have been initialized, so that
+     * connection pools with unchanged settings are handed over rather than closed and reopened.
+     * @param databases the databases of the current model.
+     */
+    protected void shutdownStaleConnectionProviders(List<Database> databases) {
+        List<ConnectionProvider> current = new ArrayList<ConnectionProvider>(databases.size());
+        for (Database database : databases) {
+            current.add(database.getConnectionProvider());
+        }
+        for (ConnectionProvider connectionProvider : connectionProviders) {
+            boolean stale = true;
+            for (ConnectionProvider candidate : current) {
+                //Identity, not equality: a re-initialized provider manages its own pool
+                if (candidate == connectionProvider) {
+                    stale = false;
+                    break;
+                }
+            }
+            if (stale) {
+                try {
+                    connectionProvider.shutdown();
+                } catch (Throwable t) {
+                    logger.warn("Cannot shut down old connection provider " + connectionProvider, t);
+                }
+            }
+        }
+        connectionProviders = current;
+    }
+
+    /**
+     * Initializes the connection provider of a database and, if it connects successfully, builds its Hibernate
+     * setup. Errors are logged and do not propagate, so a broken database does not prevent the others from
+     * being set up.
+     * @param database the database.
+     * @param errors where to collect the error, by database name, if the setup fails.
+     */
+    protected void initDatabase(Database database, Map<String, Throwable> errors) {
+        try {
+            ConnectionProvider connectionProvider = database.getConnectionProvider();
+            connectionProvider.init(databasePlatformsRegistry);
+            if (connectionProvider.getStatus()
+                    .equals(ConnectionProvider.STATUS_CONNECTED)) {
+                HibernateConfig builder =
+                        new HibernateConfig(connectionProvider, configuration);
+                String trueString = database.getTrueString();
+                if (trueString != null) {
+                    builder.setTrueString(
+                            "null".equalsIgnoreCase(trueString) ? null : trueString);
+                }
+                String falseString = database.getFalseString();
+                if (falseString != null) {
+                    builder.setFalseString(
+                            "null".equalsIgnoreCase(falseString) ? null : falseString);
+                }
+                Configuration configuration =
+                        builder.buildSessionFactory(database);
+                StandardServiceRegistryBuilder registryBuilder =
+                        new StandardServiceRegistryBuilder().applySettings(configuration.getProperties());
+                SessionFactory sessionFactory = configuration.buildSessionFactory(registryBuilder.build());
+
+                HibernateDatabaseSetup setup =
+                        new HibernateDatabaseSetup(
+                                configuration, sessionFactory);
+                String databaseName = database.getDatabaseName();
+                setups.put(databaseName, setup);
+                logger.info("Database {} set up", databaseName);
+            }
+        } catch (Throwable e) {
+            logger.error("Could not create connection provider for " + database, e);
+            errors.put(database.getDatabaseName(), e);
+        }
+    }
+
     //**************************************************************************
     // Database stuff
     //**************************************************************************
@@ -406,12 +552,54 @@ public class Persistence {
         }
     }
 
+    /**
+     * Returns the statistics of the second-level cache regions of a database, by region name.
+     * @param databaseName the name of the database.
+     * @return the statistics, or an empty map if none of the tables of the database is cached.
+     */
+    public Map<String, SecondLevelCacheStatistics> getSecondLevelCacheStatistics(String databaseName) {
+        Map<String, SecondLevelCacheStatistics> result = new TreeMap<String, SecondLevelCacheStatistics>();
+        HibernateDatabaseSetup setup = setups.get(databaseName);
+        if(setup == null) {
+            return result;
+        }
+        Statistics statistics = setup.getSessionFactory().getStatistics();
+        if(!statistics.isStatisticsEnabled()) {
+            return result;
+        }
+        for(String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            result.put(regionName, statistics.getSecondLevelCacheStatistics(regionName));
+        }
+        return result;
+    }
+
     public @NotNull TableAccessor getTableAccessor(String databaseName, String entityName) {
         Database database = DatabaseLogic.findDatabaseByName(model, databaseName);
         assert database != null;
         Table table = DatabaseLogic.findTableByEntityName(database, entityName);
         assert table != null;
-        return new TableAccessor(table);
+        return getTableAccessor(table);
+    }
+
+    /**
+     * Returns the accessor for a table of the model, building it the first time it is requested after the model
+     * has been initialized. The accessor is shared and must not be modified; code that changes the table without
+     * reinitializing the model should build its own TableAccessor.
+     * @param table the table.
+     * @return the accessor.
+     * @since 4.2.3
+     */
+    public @NotNull TableAccessor getTableAccessor(@NotNull Table table) {
+        ConcurrentMap<Table, TableAccessor> accessors = tableAccessors;
+        TableAccessor accessor = accessors.get(table);
+        if(accessor == null) {
+            accessor = new TableAccessor(table);
+            TableAccessor existing = accessors.putIfAbsent(table, accessor);
+            if(existing != null) {
+                accessor = existing;
+            }
+        }
+        return accessor;
     }
 
     //**************************************************************************
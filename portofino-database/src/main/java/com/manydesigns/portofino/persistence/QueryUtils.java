@@ -20,6 +20,11 @@
 
 package com.manydesigns.portofino.persistence;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.manydesigns.elements.fields.search.Criterion;
 import com.manydesigns.elements.fields.search.TextMatchMode;
 import com.manydesigns.elements.reflection.ClassAccessor;
@@ -33,16 +38,22 @@ import com.manydesigns.portofino.model.database.*;
 import com.manydesigns.portofino.reflection.TableAccessor;
 import net.sf.jsqlparser.JSQLParserException;
 import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.BinaryExpression;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.JdbcParameter;
 import net.sf.jsqlparser.expression.Parenthesis;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
 import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
 import net.sf.jsqlparser.parser.CCJSqlParserManager;
 import net.sf.jsqlparser.statement.select.*;
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.HibernateException;
 import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.criterion.Restrictions;
 import org.hibernate.jdbc.Work;
@@ -57,6 +68,8 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -80,6 +93,11 @@ public class QueryUtils {
 
     protected static final Logger logger = LoggerFactory.getLogger(QueryUtils.class);
 
+    /**
+     * Number of rows fetched at a time by {@link #scrollHqlQuery(Session, String, Object[], Integer, Integer)}.
+     */
+    public static final int SCROLL_FETCH_SIZE = 100;
+
     /**
      * Runs a SQL query against a session. The query is processed with an {@link OgnlSqlFormat}, so it can
      * access values from the OGNL context.
@@ -435,10 +453,66 @@ public class QueryUtils {
      */
     public static QueryStringWithParameters mergeQuery
             (String queryString, @Nullable TableCriteria criteria, Object rootObject) {
-        OgnlHqlFormat hqlFormat = OgnlHqlFormat.create(queryString);
+        OgnlHqlFormat hqlFormat = getHqlFormat(queryString);
         String formatString = hqlFormat.getFormatString();
         Object[] parameters = hqlFormat.evaluateOgnlExpressions(rootObject);
 
+        String mainEntityAlias = null;
+        if(criteria != null) {
+            mainEntityAlias = getEntityAlias(criteria.getTable().getActualEntityName(), formatString);
+        }
+
+        QueryStringWithParameters criteriaQuery =
+                getQueryStringWithParametersForCriteria(criteria, mainEntityAlias, parameters.length + 1);
+        String criteriaQueryString = criteriaQuery.getQueryString();
+        Object[] criteriaParameters = criteriaQuery.getParameters();
+
+        String orderByPropertyName = null;
+        boolean orderByAsc = false;
+        if(criteria != null && criteria.getOrderBy() != null) {
+            orderByAsc = criteria.getOrderBy().isAsc();
+            orderByPropertyName = criteria.getOrderBy().getPropertyAccessor().getName();
+            if(mainEntityAlias != null) {
+                orderByPropertyName = mainEntityAlias + "." + orderByPropertyName;
+            }
+        }
+        String fullQueryString =
+                getMergedQueryString(formatString, criteriaQueryString, orderByPropertyName, orderByAsc);
+
+        // merge the parameters
+        ArrayList<Object> mergedParametersList = new ArrayList<Object>();
+        mergedParametersList.addAll(Arrays.asList(parameters));
+        mergedParametersList.addAll(Arrays.asList(criteriaParameters));
+        Object[] mergedParameters = new Object[mergedParametersList.size()];
+        mergedParametersList.toArray(mergedParameters);
+
+        return new QueryStringWithParameters(fullQueryString, mergedParameters);
+    }
+
+    /**
+     * Merges a query with the where clause and order by of a criteria query. The criteria query only contains
+     * parameter placeholders, not values, so the result depends only on the shape of the search and is cached.
+     * @param formatString the base query, with OGNL expressions already replaced by parameters.
+     * @param criteriaQueryString the query generated from the criteria.
+     * @param orderByPropertyName the (possibly aliased) property to order by, or null.
+     * @param orderByAsc whether the order is ascending.
+     * @return the merged query string.
+     */
+    protected static String getMergedQueryString(
+            final String formatString, final String criteriaQueryString,
+            final String orderByPropertyName, final boolean orderByAsc) {
+        List<Object> key = Arrays.<Object>asList(
+                "merge", formatString, criteriaQueryString, orderByPropertyName, orderByAsc);
+        return getCachedQuery(key, new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                return doMergeQuery(formatString, criteriaQueryString, orderByPropertyName, orderByAsc);
+            }
+        });
+    }
+
+    protected static String doMergeQuery(
+            String formatString, String criteriaQueryString, String orderByPropertyName, boolean orderByAsc) {
         CCJSqlParserManager parserManager = new CCJSqlParserManager();
         PlainSelect parsedQueryString;
         PlainSelect parsedCriteriaQuery;
@@ -448,17 +522,6 @@ public class QueryUtils {
             throw new RuntimeException("Couldn't merge query", e);
         }
 
-        Alias mainEntityAlias = null;
-        if(criteria != null) {
-            mainEntityAlias = getEntityAlias(criteria.getTable().getActualEntityName(), parsedQueryString);
-        }
-
-        QueryStringWithParameters criteriaQuery =
-                getQueryStringWithParametersForCriteria(
-                        criteria, mainEntityAlias != null ? mainEntityAlias.getName() : null, parameters.length + 1);
-        String criteriaQueryString = criteriaQuery.getQueryString();
-        Object[] criteriaParameters = criteriaQuery.getParameters();
-
         try {
             if(StringUtils.isEmpty(criteriaQueryString)) {
                 parsedCriteriaQuery = new PlainSelect();
@@ -484,24 +547,20 @@ public class QueryUtils {
             whereExpression = parsedCriteriaQuery.getWhere();
         }
         parsedQueryString.setWhere(whereExpression);
-        if(criteria != null && criteria.getOrderBy() != null) {
+        if(orderByPropertyName != null) {
             List orderByElements = new ArrayList();
             OrderByElement orderByElement = new OrderByElement();
-            orderByElement.setAsc(criteria.getOrderBy().isAsc());
-            String propertyName = criteria.getOrderBy().getPropertyAccessor().getName();
-            if(mainEntityAlias != null) {
-                propertyName = mainEntityAlias.getName() + "." + propertyName;
-            }
+            orderByElement.setAsc(orderByAsc);
             orderByElement.setExpression(
                     new net.sf.jsqlparser.schema.Column(
-                            new net.sf.jsqlparser.schema.Table(), propertyName));
+                            new net.sf.jsqlparser.schema.Table(), orderByPropertyName));
             orderByElements.add(orderByElement);
             if(parsedQueryString.getOrderByElements() != null) {
                 for(Object el : parsedQueryString.getOrderByElements()) {
                     OrderByElement toAdd = (OrderByElement) el;
                     if(toAdd.getExpression() instanceof net.sf.jsqlparser.schema.Column) {
                         net.sf.jsqlparser.schema.Column column = (net.sf.jsqlparser.schema.Column) toAdd.getExpression();
-                        if(StringUtils.isEmpty(column.getTable().getName()) && propertyName.equals(column.getColumnName())) {
+                        if(StringUtils.isEmpty(column.getTable().getName()) && orderByPropertyName.equals(column.getColumnName())) {
                             continue; //do not add
                         }
                     }
@@ -514,15 +573,176 @@ public class QueryUtils {
         if(fullQueryString.toLowerCase().startsWith(FAKE_SELECT_PREFIX)) {
             fullQueryString = fullQueryString.substring(FAKE_SELECT_PREFIX.length());
         }
+        return fullQueryString;
+    }
 
-        // merge the parameters
-        ArrayList<Object> mergedParametersList = new ArrayList<Object>();
-        mergedParametersList.addAll(Arrays.asList(parameters));
-        mergedParametersList.addAll(Arrays.asList(criteriaParameters));
-        Object[] mergedParameters = new Object[mergedParametersList.size()];
-        mergedParametersList.toArray(mergedParameters);
+    /**
+     * Rewrites a query for keyset (seek) pagination: the results are ordered by the given properties and, if
+     * requested, restricted to those that follow a given position in that order. The position is expressed by
+     * parameters, one for each property, numbered starting from <code>firstParameterIndex</code>. The last
+     * properties must identify a row uniquely (i.e. they must include the primary key). The query must not have
+     * an ORDER BY clause of its own (see {@link #hasOrderBy(String)}), as it would be replaced.
+     * @param queryString the query, already merged with the search criteria.
+     * @param entityName the name of the entity whose properties are used, possibly aliased in the query.
+     * @param propertyNames the properties to order by.
+     * @param asc whether the order is ascending.
+     * @param firstParameterIndex the index of the first position parameter, or 0 to fetch the first page.
+     * @return the rewritten query.
+     */
+    public static String getKeysetQueryString(
+            final String queryString, final String entityName, final String[] propertyNames, final boolean asc,
+            final int firstParameterIndex) {
+        List<Object> key = Arrays.<Object>asList(
+                "keyset", queryString, entityName, Arrays.asList(propertyNames), asc, firstParameterIndex);
+        return getCachedQuery(key, new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                PlainSelect parsedQuery = parseQuery(new CCJSqlParserManager(), queryString);
+                if(parsedQuery.getOrderByElements() != null && !parsedQuery.getOrderByElements().isEmpty()) {
+                    throw new IllegalArgumentException(
+                            "Keyset pagination is not supported for queries with an ORDER BY clause: " + queryString);
+                }
+                Alias alias = getEntityAlias(entityName, parsedQuery);
+                net.sf.jsqlparser.schema.Table mainEntityTable;
+                if(alias != null) {
+                    mainEntityTable = new net.sf.jsqlparser.schema.Table(null, alias.getName());
+                } else {
+                    mainEntityTable = new net.sf.jsqlparser.schema.Table();
+                }
+                List orderByElements = new ArrayList();
+                for(String propertyName : propertyNames) {
+                    OrderByElement orderByElement = new OrderByElement();
+                    orderByElement.setAsc(asc);
+                    orderByElement.setExpression(
+                            new net.sf.jsqlparser.schema.Column(mainEntityTable, propertyName));
+                    orderByElements.add(orderByElement);
+                }
+                parsedQuery.setOrderByElements(orderByElements);
+                if(firstParameterIndex > 0) {
+                    //(a, b) > (?1, ?2) is expanded to a > ?1 OR (a = ?1 AND b > ?2)
+                    Expression condition = null;
+                    for(int i = propertyNames.length - 1; i >= 0; i--) {
+                        net.sf.jsqlparser.schema.Column column =
+                                new net.sf.jsqlparser.schema.Column(mainEntityTable, propertyNames[i]);
+                        JdbcParameter parameter = new JdbcParameter();
+                        parameter.setIndex(firstParameterIndex + i);
+                        BinaryExpression comparison = asc ? new GreaterThan() : new MinorThan();
+                        comparison.setLeftExpression(column);
+                        comparison.setRightExpression(parameter);
+                        if(condition == null) {
+                            condition = comparison;
+                        } else {
+                            EqualsTo equalsTo = new EqualsTo();
+                            equalsTo.setLeftExpression(column);
+                            equalsTo.setRightExpression(parameter);
+                            condition = new OrExpression(
+                                    comparison, new Parenthesis(new AndExpression(equalsTo, new Parenthesis(condition))));
+                        }
+                    }
+                    if(parsedQuery.getWhere() != null) {
+                        condition = new AndExpression(
+                                new Parenthesis(parsedQuery.getWhere()), new Parenthesis(condition));
+                    }
+                    parsedQuery.setWhere(condition);
+                }
+                String fullQueryString = parsedQuery.toString();
+                if(fullQueryString.toLowerCase().startsWith(FAKE_SELECT_PREFIX)) {
+                    fullQueryString = fullQueryString.substring(FAKE_SELECT_PREFIX.length());
+                }
+                return fullQueryString;
+            }
+        });
+    }
 
-        return new QueryStringWithParameters(fullQueryString, mergedParameters);
+    /**
+     * Returns whether a query has an ORDER BY clause, caching the result.
+     * @param queryString the query string, possibly containing OGNL expressions.
+     * @return true if the query specifies its own order.
+     */
+    public static boolean hasOrderBy(final String queryString) {
+        return getCachedQuery(Arrays.<Object>asList("orderBy", queryString), new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+                String formatString = getHqlFormat(queryString).getFormatString();
+                PlainSelect parsedQuery = parseQuery(new CCJSqlParserManager(), formatString);
+                return parsedQuery.getOrderByElements() != null && !parsedQuery.getOrderByElements().isEmpty();
+            }
+        });
+    }
+
+    /**
+     * Returns the (cached) {@link OgnlHqlFormat} for a query string.
+     * @param queryString the query string, possibly containing OGNL expressions.
+     * @return the format.
+     */
+    public static OgnlHqlFormat getHqlFormat(final String queryString) {
+        return getCachedQuery(Arrays.<Object>asList("format", queryString), new Callable<OgnlHqlFormat>() {
+            @Override
+            public OgnlHqlFormat call() throws Exception {
+                return OgnlHqlFormat.create(queryString);
+            }
+        });
+    }
+
+    /**
+     * Returns the alias of an entity in a query, caching the result.
+     * @param entityName the name of the entity.
+     * @param formatString the query.
+     * @return the alias, or null if the entity has no alias in the query.
+     */
+    protected static String getEntityAlias(final String entityName, final String formatString) {
+        String alias = getCachedQuery(Arrays.<Object>asList("alias", entityName, formatString), new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                PlainSelect parsedQuery;
+                try {
+                    parsedQuery = parseQuery(new CCJSqlParserManager(), formatString);
+                } catch (JSQLParserException e) {
+                    throw new RuntimeException("Couldn't merge query", e);
+                }
+                Alias alias = getEntityAlias(entityName, parsedQuery);
+                return alias != null ? alias.getName() : "";
+            }
+        });
+        return alias.isEmpty() ? null : alias;
+    }
+
+    //**************************************************************************
+    // Query cache
+    //**************************************************************************
+
+    /**
+     * Cache of queries derived by parsing other queries, so that they are not parsed again on every request.
+     * Keys are lists whose first element identifies the kind of derivation.
+     */
+    protected static final Cache<Object, Object> queryCache =
+            CacheBuilder.newBuilder().maximumSize(1000).recordStats().build();
+
+    /**
+     * Returns a value from the query cache, computing it if it's not there.
+     * @param key the key; it must include every input the value depends on.
+     * @param loader computes the value. It must not return null.
+     * @return the cached or computed value.
+     */
+    public static <T> T getCachedQuery(Object key, Callable<T> loader) {
+        try {
+            return (T) queryCache.get(key, loader);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    public static void clearQueryCache() {
+        CacheStats stats = queryCache.stats();
+        logger.info("Clearing query cache. Hit rate: {} ({} hits, {} misses)",
+                stats.hitRate(), stats.hitCount(), stats.missCount());
+        queryCache.invalidateAll();
+    }
+
+    public static CacheStats getQueryCacheStats() {
+        return queryCache.stats();
     }
 
     public static final String FAKE_SELECT_PREFIX = "select __portofino_fake_select__ ";
@@ -569,8 +789,32 @@ public class QueryUtils {
             @Nullable Object[] parameters,
             @Nullable Integer firstResult,
             @Nullable Integer maxResults) {
+        return runHqlQuery(session, queryString, parameters, firstResult, maxResults, false);
+    }
+
+    /**
+     * Runs a HQL query against the database, optionally caching its results in the Hibernate query cache.
+     * The query cache is only enabled for databases having at least a table in the second-level cache, and cached
+     * results are invalidated whenever Hibernate writes to one of the tables involved in the query.
+     * @param session the session
+     * @param queryString the query
+     * @param parameters the query parameters
+     * @param firstResult index of the first result to return
+     * @param maxResults maximum number of results to return
+     * @param cacheable whether the results of the query can be cached
+     * @return the results of the query
+     * @since 4.2.3
+     */
+    public static List<Object> runHqlQuery(
+            Session session,
+            String queryString,
+            @Nullable Object[] parameters,
+            @Nullable Integer firstResult,
+            @Nullable Integer maxResults,
+            boolean cacheable) {
 
         Query query = session.createQuery(queryString);
+        query.setCacheable(cacheable);
         if (parameters != null) {
             for (int i = 0; i < parameters.length; i++) {
                 query.setParameter(String.valueOf(i + 1), parameters[i]);
@@ -597,6 +841,51 @@ public class QueryUtils {
         }
     }
 
+    /**
+     * Runs a HQL query against the database, returning a forward-only cursor over its results rather than loading
+     * them all in memory. The caller is responsible for closing the results.
+     * @see QueryUtils#runHqlQuery(Session, String, Object[], Integer, Integer)
+     * @param session the session
+     * @param queryString the query
+     * @param parameters the query parameters
+     * @param firstResult index of the first result to return
+     * @param maxResults maximum number of results to return
+     * @return the results of the query
+     */
+    public static ScrollableResults scrollHqlQuery(
+            Session session,
+            String queryString,
+            @Nullable Object[] parameters,
+            @Nullable Integer firstResult,
+            @Nullable Integer maxResults) {
+
+        Query query = session.createQuery(queryString);
+        if (parameters != null) {
+            for (int i = 0; i < parameters.length; i++) {
+                query.setParameter(String.valueOf(i + 1), parameters[i]);
+            }
+        }
+
+        if (firstResult != null) {
+            query.setFirstResult(firstResult);
+        }
+
+        if(maxResults != null) {
+            query.setMaxResults(maxResults);
+        }
+
+        query.setFetchSize(SCROLL_FETCH_SIZE);
+
+        try {
+            return query.scroll(ScrollMode.FORWARD_ONLY);
+        } catch (HibernateException e) {
+            logger.error("Error running query", e);
+            session.getTransaction().rollback();
+            session.beginTransaction();
+            throw e;
+        }
+    }
+
     /**
      * Loads an object by primary key.
      * @param persistence the persistence object
@@ -624,13 +913,13 @@ public class QueryUtils {
     public static Object getObjectByPk(Session session, TableAccessor table, Serializable pk) {
         String actualEntityName = table.getTable().getActualEntityName();
         Object result;
-        PropertyAccessor[] keyProperties = table.getKeyProperties();
-        int size = keyProperties.length;
+        List<PropertyAccessor> keyProperties = table.getKeyPropertyList();
+        int size = keyProperties.size();
         if (size > 1) {
             result = session.get(actualEntityName, pk);
             return result;
         }
-        PropertyAccessor propertyAccessor = keyProperties[0];
+        PropertyAccessor propertyAccessor = keyProperties.get(0);
         Serializable key = (Serializable) propertyAccessor.get(pk);
         result = session.get(actualEntityName, key);
         return result;
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.persistence;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates over {@link ScrollableResults} one row at a time. Each object is evicted from the session when the
+ * iterator moves past it, so that the session doesn't accumulate the whole result set in its first-level cache.
+ * Rows with a single column are returned as that column's value, others as an array, like {@link org.hibernate.Query#list()}.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class ScrollableResultsIterator implements Iterator<Object>, Closeable {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    protected final Session session;
+    protected final ScrollableResults results;
+    protected Object current;
+    protected Boolean hasNext;
+
+    public ScrollableResultsIterator(Session session, ScrollableResults results) {
+        this.session = session;
+        this.results = results;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if(hasNext == null) {
+            evictCurrent();
+            hasNext = results.next();
+        }
+        return hasNext;
+    }
+
+    @Override
+    public Object next() {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        hasNext = null;
+        Object[] row = results.get();
+        current = row.length == 1 ? row[0] : row;
+        return current;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        evictCurrent();
+        results.close();
+    }
+
+    protected void evictCurrent() {
+        if(current == null) {
+            return;
+        }
+        Object[] objects = current instanceof Object[] ? (Object[]) current : new Object[] { current };
+        for(Object object : objects) {
+            if(object != null && session.contains(object)) {
+                session.evict(object);
+            }
+        }
+        current = null;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.persistence.hibernate;
+
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.config.Configuration;
+import net.sf.ehcache.config.ConfigurationFactory;
+import org.hibernate.cache.CacheException;
+import org.hibernate.cfg.Settings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Properties;
+
+/**
+ * Second-level cache region factory giving each session factory its own, uniquely named Ehcache CacheManager, so
+ * that it can be shut down with the session factory (e.g. when the model is reloaded) without affecting the other
+ * databases or the CacheManager used by page actions. The caches are configured with ehcache.xml, if present.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class EhCacheRegionFactory extends org.hibernate.cache.ehcache.EhCacheRegionFactory {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    public static final Logger logger = LoggerFactory.getLogger(EhCacheRegionFactory.class);
+
+    public static final String CACHE_MANAGER_NAME_PREFIX = "portofino-hibernate-";
+
+    public EhCacheRegionFactory() {}
+
+    public EhCacheRegionFactory(Properties properties) {
+        super(properties);
+    }
+
+    @Override
+    public void start(Settings settings, Properties properties) throws CacheException {
+        this.settings = settings;
+        if(manager != null) {
+            logger.warn("Attempt to restart an already started region factory");
+            return;
+        }
+        try {
+            Configuration configuration = ConfigurationFactory.parseConfiguration();
+            configuration.setName(CACHE_MANAGER_NAME_PREFIX + settings.getCacheRegionPrefix());
+            manager = new CacheManager(configuration);
+            logger.info("Started second-level cache {}", manager.getName());
+        } catch (net.sf.ehcache.CacheException e) {
+            throw new CacheException(e);
+        }
+    }
+}
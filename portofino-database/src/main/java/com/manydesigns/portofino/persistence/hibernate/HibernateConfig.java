@@ -85,6 +85,7 @@ public class HibernateConfig {
 
             setupConnection(configuration);
             setupConfigurationProperties(configuration);
+            setupSecondLevelCache(configuration, database);
 
             Mappings mappings = configuration.createMappings();
 
@@ -115,6 +116,29 @@ public class HibernateConfig {
         // configuration.setProperty("hibernate.default_entity_mode", "dynamic-map");
     }
 
+    /**
+     * Enables the second-level and query caches if at least one table of the database is configured to be cached.
+     * Each database gets its own cache regions, prefixed with the database name.
+     */
+    protected void setupSecondLevelCache(Configuration configuration, Database database) {
+        boolean cached = false;
+        for (Schema schema : database.getSchemas()) {
+            for (com.manydesigns.portofino.model.database.Table table : schema.getTables()) {
+                cached |= table.isCacheEnabled();
+            }
+        }
+        if(!cached) {
+            return;
+        }
+        logger.info("Enabling the second-level cache for database {}", database.getDatabaseName());
+        configuration
+                .setProperty("hibernate.cache.use_second_level_cache", "true")
+                .setProperty("hibernate.cache.use_query_cache", "true")
+                .setProperty("hibernate.cache.region.factory_class", EhCacheRegionFactory.class.getName())
+                .setProperty("hibernate.cache.region_prefix", database.getDatabaseName())
+                .setProperty("hibernate.generate_statistics", "true");
+    }
+
     protected void setupConnection(Configuration configuration) {
         if(!connectionProvider.isHibernateDialectAutodetected()) {
             configuration.setProperty(
@@ -124,6 +148,12 @@ public class HibernateConfig {
         if(connectionProvider instanceof JdbcConnectionProvider) {
             JdbcConnectionProvider jdbcConnectionProvider =
                     (JdbcConnectionProvider) connectionProvider;
+            if(jdbcConnectionProvider.getConnectionPool() != null) {
+                //Hibernate accepts a DataSource instance in place of a JNDI name
+                configuration.getProperties().put(
+                        "hibernate.connection.datasource", jdbcConnectionProvider.getConnectionPool().getDataSource());
+                return;
+            }
             configuration.setProperty("hibernate.connection.url", jdbcConnectionProvider.getActualUrl());
             configuration.setProperty("hibernate.connection.driver_class", jdbcConnectionProvider.getDriver());
             if(jdbcConnectionProvider.getActualUsername() != null) {
@@ -202,6 +232,12 @@ public class HibernateConfig {
         }
         clazz.setLazy(LAZY);
         clazz.setTable(tab);
+        if(aTable.isCacheEnabled()) {
+            clazz.setCacheConcurrencyStrategy(aTable.getActualCacheConcurrencyStrategy());
+            if(aTable.getCacheRegion() != null) {
+                clazz.setCacheRegionName(aTable.getCacheRegion());
+            }
+        }
         //clazz.setNodeName(aTable.getTableName());
 
         List<com.manydesigns.portofino.model.database.Column> columnList =
@@ -25,6 +25,7 @@ import com.manydesigns.elements.annotations.impl.ShortNameImpl;
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.JavaClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
+import com.manydesigns.elements.reflection.PropertyListAccessor;
 import com.manydesigns.portofino.model.database.Column;
 import com.manydesigns.portofino.model.database.PrimaryKey;
 import com.manydesigns.portofino.model.database.Table;
@@ -33,6 +34,8 @@ import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,7 +46,7 @@ import java.util.Map;
 * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
 * @author Alessio Stalla       - alessio.stalla@manydesigns.com
 */
-public class TableAccessor extends AbstractAnnotatedAccessor implements ClassAccessor {
+public class TableAccessor extends AbstractAnnotatedAccessor implements PropertyListAccessor {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
@@ -54,6 +57,9 @@ public class TableAccessor extends AbstractAnnotatedAccessor implements ClassAcc
     protected final Table table;
     protected final ColumnAccessor[] columnAccessors;
     protected final ColumnAccessor[] keyColumnAccessors;
+    protected final Map<String, ColumnAccessor> columnAccessorsByName;
+    protected final List<PropertyAccessor> propertyList;
+    protected final List<PropertyAccessor> keyPropertyList;
     protected ClassAccessor javaClassAccessor = null;
 
     public final static Logger logger =
@@ -85,6 +91,15 @@ public class TableAccessor extends AbstractAnnotatedAccessor implements ClassAcc
 
         setupColumns(columns, pkColumns, pk);
         setupKeyColumns(columns, pkColumns);
+
+        columnAccessorsByName = new HashMap<String, ColumnAccessor>();
+        for (ColumnAccessor current : columnAccessors) {
+            if (!columnAccessorsByName.containsKey(current.getName())) {
+                columnAccessorsByName.put(current.getName(), current);
+            }
+        }
+        propertyList = Collections.unmodifiableList(Arrays.<PropertyAccessor>asList(columnAccessors));
+        keyPropertyList = Collections.unmodifiableList(Arrays.<PropertyAccessor>asList(keyColumnAccessors));
     }
 
     private void setupColumns(List<Column> columns, List<Column> pkColumns,
@@ -146,10 +161,9 @@ public class TableAccessor extends AbstractAnnotatedAccessor implements ClassAcc
 
     public PropertyAccessor getProperty(String propertyName)
             throws NoSuchFieldException {
-        for (ColumnAccessor current : columnAccessors) {
-            if (current.getName().equals(propertyName)) {
-                return current;
-            }
+        ColumnAccessor columnAccessor = columnAccessorsByName.get(propertyName);
+        if (columnAccessor != null) {
+            return columnAccessor;
         }
 
         throw new NoSuchFieldException(propertyName);
@@ -165,6 +179,14 @@ public class TableAccessor extends AbstractAnnotatedAccessor implements ClassAcc
         return keyColumnAccessors.clone();
     }
 
+    public List<PropertyAccessor> getPropertyList() {
+        return propertyList;
+    }
+
+    public List<PropertyAccessor> getKeyPropertyList() {
+        return keyPropertyList;
+    }
+
     public Object newInstance() {
         if (javaClassAccessor == null) {
             HashMap<String, Object> obj =  new HashMap<String, Object>();
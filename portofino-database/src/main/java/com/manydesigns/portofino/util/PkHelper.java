@@ -25,6 +25,7 @@ import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.elements.text.OgnlTextFormat;
 import com.manydesigns.elements.text.TextFormat;
+import com.manydesigns.elements.util.ReflectionUtil;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,6 +33,7 @@ import org.slf4j.LoggerFactory;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.List;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -68,7 +70,7 @@ public class PkHelper {
     public TextFormat createPkGenerator() {
         StringBuilder sb = new StringBuilder();
         boolean first = true;
-        for (PropertyAccessor property : classAccessor.getKeyProperties()) {
+        for (PropertyAccessor property : ReflectionUtil.getKeyPropertyList(classAccessor)) {
             if (first) {
                 first = false;
             } else {
@@ -84,10 +86,11 @@ public class PkHelper {
     public Serializable getPrimaryKey(String... params) {
         int i = 0;
         Serializable result = (Serializable)classAccessor.newInstance();
-        if(params.length != classAccessor.getKeyProperties().length) {
-            throw new RuntimeException("Wrong number of parameters for primary key: expected " + classAccessor.getKeyProperties().length + ", got " + params.length);
+        List<PropertyAccessor> keyProperties = ReflectionUtil.getKeyPropertyList(classAccessor);
+        if(params.length != keyProperties.size()) {
+            throw new RuntimeException("Wrong number of parameters for primary key: expected " + keyProperties.size() + ", got " + params.length);
         }
-        for(PropertyAccessor property : classAccessor.getKeyProperties()) {
+        for(PropertyAccessor property : keyProperties) {
             String stringValue = params[i];
             Object value = OgnlUtils.convertValue(stringValue, property.getType());
             property.set(result, value);
@@ -98,10 +101,10 @@ public class PkHelper {
     }
 
     public String[] generatePkStringArray(Object object) {
-        PropertyAccessor[] keyProperties = classAccessor.getKeyProperties();
-        String[] array = new String[keyProperties.length];
-        for(int i = 0; i < keyProperties.length; i++) {
-            PropertyAccessor property = keyProperties[i];
+        List<PropertyAccessor> keyProperties = ReflectionUtil.getKeyPropertyList(classAccessor);
+        String[] array = new String[keyProperties.size()];
+        for(int i = 0; i < array.length; i++) {
+            PropertyAccessor property = keyProperties.get(i);
             Object value = property.get(object);
             String stringValue =
                     (String) OgnlUtils.convertValue(value, String.class);
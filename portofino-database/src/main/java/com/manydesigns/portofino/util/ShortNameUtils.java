@@ -24,6 +24,7 @@ import com.manydesigns.elements.annotations.ShortName;
 import com.manydesigns.elements.reflection.ClassAccessor;
 import com.manydesigns.elements.reflection.PropertyAccessor;
 import com.manydesigns.elements.text.OgnlTextFormat;
+import com.manydesigns.elements.util.ReflectionUtil;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -44,7 +45,7 @@ public class ShortNameUtils {
             StringBuilder sb = new StringBuilder();
             boolean first = true;
             // sintetizziamo una stringa a partire dalla chiave primaria
-            for (PropertyAccessor propertyAccessor : classAccessor.getKeyProperties()) {
+            for (PropertyAccessor propertyAccessor : ReflectionUtil.getKeyPropertyList(classAccessor)) {
                 if (first) {
                     first = false;
                 } else {
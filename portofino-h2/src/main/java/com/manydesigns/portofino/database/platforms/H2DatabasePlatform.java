@@ -21,9 +21,11 @@
 package com.manydesigns.portofino.database.platforms;
 
 import com.manydesigns.portofino.model.database.ConnectionProvider;
+import com.manydesigns.portofino.model.database.Table;
 import org.hibernate.dialect.H2Dialect;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -77,4 +79,12 @@ public class H2DatabasePlatform extends AbstractDatabasePlatform {
             connectionProvider.releaseConnection(connection);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public Long getEstimatedRowCount(Connection connection, Table table) throws SQLException {
+        return queryEstimatedRowCount(
+                connection,
+                "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?",
+                table.getSchemaName(), table.getTableName());
+    }
+}
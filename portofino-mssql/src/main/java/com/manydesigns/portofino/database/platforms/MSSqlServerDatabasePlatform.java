@@ -21,8 +21,12 @@
 package com.manydesigns.portofino.database.platforms;
 
 import com.manydesigns.portofino.model.database.ConnectionProvider;
+import com.manydesigns.portofino.model.database.Table;
 import org.hibernate.dialect.SQLServerDialect;
 
+import java.sql.Connection;
+import java.sql.SQLException;
+
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
 * @author Angelo Lupo          - angelo.lupo@manydesigns.com
@@ -63,4 +67,15 @@ public class MSSqlServerDatabasePlatform extends AbstractDatabasePlatform {
                 .startsWith("Microsoft SQL Server") &&
 	       !connectionProvider.getDriverName().contains("jTDS");
     }
+
+    @Override
+    public Long getEstimatedRowCount(Connection connection, Table table) throws SQLException {
+        return queryEstimatedRowCount(
+                connection,
+                "SELECT SUM(p.rows) FROM sys.partitions p " +
+                "JOIN sys.tables t ON t.object_id = p.object_id " +
+                "JOIN sys.schemas s ON s.schema_id = t.schema_id " +
+                "WHERE s.name = ? AND t.name = ? AND p.index_id IN (0, 1)",
+                table.getSchemaName(), table.getTableName());
+    }
 }
@@ -21,9 +21,11 @@
 package com.manydesigns.portofino.database.platforms;
 
 import com.manydesigns.portofino.model.database.ConnectionProvider;
+import com.manydesigns.portofino.model.database.Table;
 import org.apache.commons.dbutils.DbUtils;
 import org.hibernate.dialect.MySQLDialect;
 
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -82,5 +84,12 @@ public class MySql5DatabasePlatform extends AbstractDatabasePlatform {
         }
         return schemaNames;
     }
-}
 
+    @Override
+    public Long getEstimatedRowCount(Connection connection, Table table) throws SQLException {
+        return queryEstimatedRowCount(
+                connection,
+                "SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?",
+                table.getSchemaName(), table.getTableName());
+    }
+}
@@ -74,6 +74,7 @@ public class Breadcrumbs {
                     sb.append("/").append(param);
                 }
                 if(page.getActualNavigationRoot() != NavigationRoot.GHOST_ROOT) {
+                    current.ensurePrepared();
                     String title = current.getTitle();
                     String description = current.getDescription();
                     BreadcrumbItem item2 = new BreadcrumbItem(sb.toString(), title, description);
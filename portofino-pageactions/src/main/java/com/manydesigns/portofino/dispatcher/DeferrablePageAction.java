@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.dispatcher;
+
+import net.sourceforge.stripes.action.Resolution;
+
+/**
+ * A PageAction whose preparation can be split in two when it is an ancestor of the requested page: the checks
+ * that decide whether the dispatch may proceed at all are run eagerly, both by Stripes and by REST requests, while
+ * the rest of {@link PageAction#preparePage()} is deferred until {@link PageInstance#ensurePrepared()} is called,
+ * e.g. to build breadcrumbs or navigation.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public interface DeferrablePageAction extends PageAction {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    /**
+     * Invoked in place of {@link PageAction#preparePage()} when this page is an ancestor of the requested one.
+     * Implementations must only perform the checks that can prevent the dispatch from going forward, and
+     * publish whatever state descendant pages depend on. If the implementation decides to prepare the page
+     * fully anyway, it must mark the page instance as prepared.
+     * @return either null, meaning that the dispatch can proceed and the rest of the preparation can be
+     * deferred, or a Resolution to be executed, interrupting normal action invocation.
+     */
+    Resolution prepareAncestorPage();
+}
@@ -20,34 +20,38 @@
 
 package com.manydesigns.portofino.dispatcher;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.*;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.manydesigns.elements.ElementsThreadLocals;
 import com.manydesigns.elements.options.DefaultSelectionProvider;
 import com.manydesigns.elements.options.SelectionProvider;
 import com.manydesigns.elements.util.ElementsFileUtils;
+import com.manydesigns.elements.xml.JaxbRegistry;
+import com.manydesigns.portofino.PortofinoProperties;
 import com.manydesigns.portofino.actions.safemode.SafeModeAction;
+import com.manydesigns.portofino.cache.Snapshot;
 import com.manydesigns.portofino.di.Injections;
 import com.manydesigns.portofino.pageactions.PageActionLogic;
 import com.manydesigns.portofino.pages.ChildPage;
+import com.manydesigns.portofino.pages.Layout;
 import com.manydesigns.portofino.pages.Page;
+import com.manydesigns.portofino.scripting.GroovyClassCache;
 import com.manydesigns.portofino.scripting.ScriptingUtil;
+import groovy.util.GroovyScriptEngine;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.ServletContext;
 import javax.xml.bind.*;
 import javax.xml.transform.stream.StreamSource;
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -144,7 +148,7 @@ public class DispatcherLogic {
 
     static {
         try {
-            pagesJaxbContext = JAXBContext.newInstance(Page.class.getPackage().getName());
+            pagesJaxbContext = JaxbRegistry.getContext(Page.class.getPackage().getName());
         } catch (JAXBException e) {
             throw new Error("Can't instantiate pages jaxb context", e);
         }
@@ -169,10 +173,14 @@ public class DispatcherLogic {
      */
     public static File savePage(File directory, Page page) throws Exception {
         File pageFile = getPageFile(directory);
-        Marshaller marshaller = pagesJaxbContext.createMarshaller();
-        marshaller.setProperty(javax.xml.bind.Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
-        marshaller.marshal(page, pageFile);
+        Marshaller marshaller = JaxbRegistry.acquireMarshaller(pagesJaxbContext);
+        try {
+            marshaller.marshal(page, pageFile);
+        } finally {
+            JaxbRegistry.release(pagesJaxbContext, marshaller);
+        }
         pageCache.invalidate(pageFile);
+        clearDispatchCache();
         return pageFile;
     }
 
@@ -181,17 +189,61 @@ public class DispatcherLogic {
     public static final String PAGE_CACHE_CHECK_FREQUENCY = "page.cache.check.frequency";
     public static final String CONFIGURATION_CACHE_SIZE = "configuration.cache.size";
     public static final String CONFIGURATION_CACHE_CHECK_FREQUENCY = "configuration.cache.check.frequency";
+    public static final String DISPATCH_CACHE_SIZE = "dispatch.cache.size";
+    public static final String DISPATCH_CACHE_CHECK_FREQUENCY = "dispatch.cache.check.frequency";
+    /**
+     * If true, page and configuration files are watched for changes instead of being periodically checked.
+     */
+    public static final String PAGE_CACHE_WATCH = "page.cache.watch";
+    /**
+     * Name of the directory, under the application directory, holding the compiled classes of frozen scripts.
+     */
+    public static final String GROOVY_CLASS_CACHE_DIRECTORY = "groovy-class-cache";
+
+    protected static PageFileWatcher pageFileWatcher;
+    /**
+     * The servlet context of the application, used to inject configurations reloaded outside of a request
+     * (e.g. by the {@link PageFileWatcher} thread), where no servlet context is bound to the current thread.
+     */
+    protected static ServletContext servletContext;
 
     public static void init(Configuration portofinoConfiguration) {
+        init(portofinoConfiguration, null);
+    }
+
+    /**
+     * Initializes the page, configuration and dispatch caches.
+     * @param portofinoConfiguration the application configuration.
+     * @param servletContext the servlet context of the application, used to inject configurations that are reloaded
+     * in the background.
+     * @since 4.2.3
+     */
+    public static void init(Configuration portofinoConfiguration, ServletContext servletContext) {
+        shutdown();
+        DispatcherLogic.servletContext = servletContext;
+        if(portofinoConfiguration.getBoolean(PAGE_CACHE_WATCH, false)) {
+            try {
+                PageFileWatcher watcher = new PageFileWatcher();
+                watcher.start();
+                pageFileWatcher = watcher;
+                logger.info("Watching page and configuration files for changes");
+            } catch (Exception e) {
+                logger.warn("File watching is not available, falling back to polling page and configuration files", e);
+            }
+        }
         int maxSize, refreshCheckFrequency;
         maxSize = portofinoConfiguration.getInt(PAGE_CACHE_SIZE, 1000);
         refreshCheckFrequency =
                 portofinoConfiguration.getInt(PAGE_CACHE_CHECK_FREQUENCY, 5);
-        initPageCache(maxSize, refreshCheckFrequency);
+        initPageCache(maxSize, pageFileWatcher != null ? 0 : refreshCheckFrequency);
         maxSize = portofinoConfiguration.getInt(CONFIGURATION_CACHE_SIZE, 1000);
         refreshCheckFrequency =
                 portofinoConfiguration.getInt(CONFIGURATION_CACHE_CHECK_FREQUENCY, 5);
-        initConfigurationCache(maxSize, refreshCheckFrequency);
+        initConfigurationCache(maxSize, pageFileWatcher != null ? 0 : refreshCheckFrequency);
+        maxSize = portofinoConfiguration.getInt(DISPATCH_CACHE_SIZE, 1000);
+        refreshCheckFrequency =
+                portofinoConfiguration.getInt(DISPATCH_CACHE_CHECK_FREQUENCY, 5);
+        initDispatchCache(maxSize, refreshCheckFrequency);
     }
 
     protected static class FileCacheEntry<T> {
@@ -217,21 +269,64 @@ public class DispatcherLogic {
         }
     }
 
+    /**
+     * The resolved, request-independent part of a page instance: the page, its action class and configuration,
+     * and the child pages that can be reached from it. Entries are keyed by path template (see
+     * {@link PageInstance#getPathTemplate()}), so a single entry serves every value of the path parameters.
+     */
+    protected static class DispatchCacheEntry {
+        public final File directory;
+        public final Page page;
+        public final Class<? extends PageAction> actionClass;
+        public final Object configuration;
+        /**
+         * Subdirectories of the children directory, mapped to whether they are listed in the layout.
+         */
+        public final Map<String, Boolean> childPages;
+        /**
+         * Whether the configuration could not be loaded. Such an entry is only used by the request that built it,
+         * and is not kept in the cache, so the next request tries to load the configuration again.
+         */
+        public final boolean configurationError;
+
+        public DispatchCacheEntry(
+                File directory, Page page, Class<? extends PageAction> actionClass, Object configuration,
+                Map<String, Boolean> childPages) {
+            this(directory, page, actionClass, configuration, childPages, false);
+        }
+
+        public DispatchCacheEntry(
+                File directory, Page page, Class<? extends PageAction> actionClass, Object configuration,
+                Map<String, Boolean> childPages, boolean configurationError) {
+            this.directory = directory;
+            this.page = page;
+            this.actionClass = actionClass;
+            this.configuration = configuration;
+            this.childPages = childPages;
+            this.configurationError = configurationError;
+        }
+    }
+
     //NB il reload delle cache è _asincrono_ rispetto alla get, è quindi possibile che una get ritorni
     //un valore vecchio anche nel caso in cui sia appena stato rilevato un errore nel reload (es. ho scritto
     //caratteri invalidi all'inizio dell'xml).
 
     protected static LoadingCache<File, FileCacheEntry<Page>> pageCache;
 
+    /**
+     * Builds the page cache.
+     * @param maxSize the maximum number of pages to keep in the cache.
+     * @param refreshCheckFrequency how often, in seconds, the page files are checked for modifications.
+     * If zero or negative, they're never checked, and it's up to the {@link PageFileWatcher} to refresh them.
+     */
     public static void initPageCache(int maxSize, int refreshCheckFrequency) {
         pageCache =
-                CacheBuilder.newBuilder()
-                        .maximumSize(maxSize)
-                        .refreshAfterWrite(refreshCheckFrequency, TimeUnit.SECONDS)
+                newFileCacheBuilder(maxSize, refreshCheckFrequency)
                         .build(new CacheLoader<File, FileCacheEntry<Page>>() {
 
                             @Override
                             public FileCacheEntry<Page> load(File key) throws Exception {
+                                watchDirectory(key.getParentFile());
                                 return new FileCacheEntry<Page>(loadPage(key), key.lastModified(), false);
                             }
 
@@ -252,6 +347,7 @@ public class DispatcherLogic {
                                         }
                                     });*/
                                     //TODO async?
+                                    clearDispatchCache();
                                     try {
                                         Page page = loadPage(key);
                                         return Futures.immediateFuture(
@@ -273,11 +369,15 @@ public class DispatcherLogic {
 
     protected static LoadingCache<File, ConfigurationCacheEntry> configurationCache;
 
+    /**
+     * Builds the configuration cache.
+     * @param maxSize the maximum number of configurations to keep in the cache.
+     * @param refreshCheckFrequency how often, in seconds, the configuration files are checked for modifications.
+     * If zero or negative, they're never checked, and it's up to the {@link PageFileWatcher} to refresh them.
+     */
     public static void initConfigurationCache(int maxSize, int refreshCheckFrequency) {
         configurationCache =
-                CacheBuilder.newBuilder()
-                        .maximumSize(maxSize)
-                        .refreshAfterWrite(refreshCheckFrequency, TimeUnit.SECONDS)
+                newFileCacheBuilder(maxSize, refreshCheckFrequency)
                         .build(new CacheLoader<File, ConfigurationCacheEntry>() {
 
                             @Override
@@ -300,6 +400,7 @@ public class DispatcherLogic {
                                 } else if (key.lastModified() > oldValue.lastModified) {
                                     //TODO se oldValue.error non dovrei ricaricare (informazioni incomplete) - ?
                                     //TODO async?
+                                    clearDispatchCache();
                                     try {
                                         Object newConf = loadConfiguration(
                                                 key, oldValue.configurationClass);
@@ -322,8 +423,92 @@ public class DispatcherLogic {
                         });
     }
 
+    protected static CacheBuilder<Object, Object> newFileCacheBuilder(int maxSize, int refreshCheckFrequency) {
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maxSize);
+        if(refreshCheckFrequency > 0) {
+            builder = builder.refreshAfterWrite(refreshCheckFrequency, TimeUnit.SECONDS);
+        }
+        return builder;
+    }
+
+    protected static void watchDirectory(File directory) {
+        PageFileWatcher watcher = pageFileWatcher;
+        if(watcher != null && directory != null) {
+            watcher.watch(directory);
+        }
+    }
+
+    /**
+     * Reloads the cached pages and configurations affected by a change to the given file. If the file is a
+     * directory, the page and configuration it contains are reloaded. Entries are reloaded in the calling
+     * thread; meanwhile, other threads keep getting the old values.
+     * @param file the file that changed.
+     */
+    public static void refreshCachedFiles(File file) {
+        clearDispatchCache();
+        File[] candidates = { file, getPageFile(file), new File(file, "configuration.xml") };
+        for(File candidate : candidates) {
+            if(pageCache.getIfPresent(candidate) != null) {
+                logger.debug("Refreshing cached page {}", candidate);
+                pageCache.refresh(candidate);
+            }
+            if(configurationCache.getIfPresent(candidate) != null) {
+                logger.debug("Refreshing cached configuration {}", candidate);
+                configurationCache.refresh(candidate);
+            }
+        }
+    }
+
+    /**
+     * Reloads all the cached pages and configurations that have changed.
+     */
+    public static void refreshCachedFiles() {
+        clearDispatchCache();
+        for(File file : new ArrayList<File>(pageCache.asMap().keySet())) {
+            pageCache.refresh(file);
+        }
+        for(File file : new ArrayList<File>(configurationCache.asMap().keySet())) {
+            configurationCache.refresh(file);
+        }
+    }
+
+    /**
+     * Stops watching page and configuration files, if a watcher was started.
+     */
+    public static synchronized void shutdown() {
+        if(pageFileWatcher != null) {
+            pageFileWatcher.stop();
+            pageFileWatcher = null;
+        }
+    }
+
+    protected static Cache<String, DispatchCacheEntry> dispatchCache;
+
+    public static void initDispatchCache(int maxSize, int refreshCheckFrequency) {
+        dispatchCache =
+                CacheBuilder.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(refreshCheckFrequency, TimeUnit.SECONDS)
+                        .recordStats()
+                        .build();
+    }
+
+    public static void clearDispatchCache() {
+        if(dispatchCache != null) {
+            dispatchCache.invalidateAll();
+        }
+    }
+
+    /**
+     * Returns the hit, miss and eviction counters of the application-wide dispatch cache.
+     */
+    public static CacheStats getDispatchCacheStats() {
+        return dispatchCache.stats();
+    }
+
     public static void clearConfigurationCache() {
         configurationCache.invalidateAll();
+        clearDispatchCache();
     }
 
     /**
@@ -339,6 +524,7 @@ public class DispatcherLogic {
             }
         }
         configurationCache.invalidateAll(keysToInvalidate);
+        clearDispatchCache();
     }
 
     protected static File getPageFile(File directory) {
@@ -357,8 +543,55 @@ public class DispatcherLogic {
     }
 
     public static Page loadPage(InputStream inputStream) throws JAXBException {
-        Unmarshaller unmarshaller = pagesJaxbContext.createUnmarshaller();
-        return (Page) unmarshaller.unmarshal(inputStream);
+        Unmarshaller unmarshaller = JaxbRegistry.acquireUnmarshaller(pagesJaxbContext);
+        try {
+            return (Page) unmarshaller.unmarshal(inputStream);
+        } finally {
+            JaxbRegistry.release(pagesJaxbContext, unmarshaller);
+        }
+    }
+
+    /**
+     * Fills the page cache with the pages stored in a snapshot, skipping those whose page.xml has changed
+     * since the snapshot was written. Those will be loaded from XML as usual.
+     * @param snapshotFile the snapshot file.
+     * @return the number of pages loaded from the snapshot.
+     */
+    public static int loadPagesSnapshot(File snapshotFile) {
+        Snapshot snapshot = Snapshot.read(snapshotFile);
+        if(snapshot == null) {
+            return 0;
+        }
+        int count = 0;
+        Map<File, Page> pages = (Map<File, Page>) snapshot.getContent();
+        for(Map.Entry<File, Page> entry : pages.entrySet()) {
+            File pageFile = entry.getKey();
+            if(snapshot.isUpToDate(pageFile)) {
+                watchDirectory(pageFile.getParentFile());
+                pageCache.put(pageFile, new FileCacheEntry<Page>(entry.getValue(), pageFile.lastModified(), false));
+                count++;
+            } else {
+                logger.debug("Page {} has changed since the snapshot was written", pageFile);
+            }
+        }
+        logger.info("Loaded {} pages from snapshot {}", count, snapshotFile.getAbsolutePath());
+        return count;
+    }
+
+    /**
+     * Writes the pages currently in the cache, as long as they are unchanged on disk, to a snapshot.
+     * @param snapshotFile the snapshot file.
+     */
+    public static void savePagesSnapshot(File snapshotFile) {
+        HashMap<File, Page> pages = new HashMap<File, Page>();
+        for(Map.Entry<File, FileCacheEntry<Page>> entry : pageCache.asMap().entrySet()) {
+            File pageFile = entry.getKey();
+            FileCacheEntry<Page> cacheEntry = entry.getValue();
+            if(!cacheEntry.error && cacheEntry.lastModified == pageFile.lastModified()) {
+                pages.put(pageFile, cacheEntry.object);
+            }
+        }
+        Snapshot.write(new Snapshot(pages, pages.keySet()), snapshotFile);
     }
 
     public static Page getPage(File directory) throws PageNotActiveException {
@@ -377,12 +610,16 @@ public class DispatcherLogic {
 
     public static File saveConfiguration(File directory, Object configuration) throws Exception {
         String configurationPackage = configuration.getClass().getPackage().getName();
-        JAXBContext jaxbContext = JAXBContext.newInstance(configurationPackage);
-        Marshaller marshaller = jaxbContext.createMarshaller();
-        marshaller.setProperty(javax.xml.bind.Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+        JAXBContext jaxbContext = JaxbRegistry.getContext(configurationPackage);
+        Marshaller marshaller = JaxbRegistry.acquireMarshaller(jaxbContext);
         File configurationFile = new File(directory, "configuration.xml");
-        marshaller.marshal(configuration, configurationFile);
+        try {
+            marshaller.marshal(configuration, configurationFile);
+        } finally {
+            JaxbRegistry.release(jaxbContext, marshaller);
+        }
         configurationCache.invalidate(configurationFile);
+        clearDispatchCache();
         return configurationFile;
     }
 
@@ -401,6 +638,7 @@ public class DispatcherLogic {
                             configurationFile.getAbsolutePath());
             }
             T configuration = loadConfiguration(configurationFile, configurationClass);
+            watchDirectory(configurationFile.getParentFile());
             entry = new ConfigurationCacheEntry(
                     configuration, configurationClass, configurationFile.lastModified(), false);
             configurationCache.put(configurationFile, entry);
@@ -429,9 +667,13 @@ public class DispatcherLogic {
         }
         Object configuration;
         String configurationPackage = configurationClass.getPackage().getName();
-        JAXBContext jaxbContext = JAXBContext.newInstance(configurationPackage);
-        Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-        configuration = unmarshaller.unmarshal(new StreamSource(inputStream), configurationClass);
+        JAXBContext jaxbContext = JaxbRegistry.getContext(configurationPackage);
+        Unmarshaller unmarshaller = JaxbRegistry.acquireUnmarshaller(jaxbContext);
+        try {
+            configuration = unmarshaller.unmarshal(new StreamSource(inputStream), configurationClass);
+        } finally {
+            JaxbRegistry.release(jaxbContext, unmarshaller);
+        }
         if(configuration instanceof JAXBElement) {
             configuration = ((JAXBElement) configuration).getValue();
         }
@@ -439,8 +681,12 @@ public class DispatcherLogic {
             logger.error("Invalid configuration: expected " + configurationClass + ", got " + configuration);
             return null;
         }
-        Injections.inject(
-                configuration, ElementsThreadLocals.getServletContext(), ElementsThreadLocals.getHttpServletRequest());
+        ServletContext currentServletContext = ElementsThreadLocals.getServletContext();
+        if(currentServletContext == null) {
+            //Reloaded outside of a request, e.g. by the page watcher thread
+            currentServletContext = servletContext;
+        }
+        Injections.inject(configuration, currentServletContext, ElementsThreadLocals.getHttpServletRequest());
         if(configuration instanceof PageActionConfiguration) {
             ((PageActionConfiguration) configuration).init();
         }
@@ -469,6 +715,98 @@ public class DispatcherLogic {
         }
     }
 
+    /**
+     * Compiles the shared Groovy classes and the action classes of all the pages, then freezes scripting so that
+     * those classes are served without checking their sources for changes.
+     * @param configuration the Portofino configuration.
+     * @param applicationDirectory the application directory, holding the class cache if enabled.
+     * @param pagesDirectory the root of the page tree.
+     * @param groovyClasspath the directory holding the shared Groovy sources.
+     * @param scriptEngine the (non-recompiling) script engine.
+     */
+    public static void freezeScripts(
+            Configuration configuration, File applicationDirectory, File pagesDirectory, File groovyClasspath,
+            GroovyScriptEngine scriptEngine) {
+        freezeScripts(configuration, applicationDirectory, pagesDirectory, groovyClasspath, scriptEngine, false);
+    }
+
+    /**
+     * Like {@link #freezeScripts(Configuration, File, File, File, GroovyScriptEngine)}, optionally discarding the
+     * classes in the class cache first, so that all the pages are recompiled.
+     * @param clearClassCache whether to clear the class cache, if enabled, before compiling.
+     */
+    public static void freezeScripts(
+            Configuration configuration, File applicationDirectory, File pagesDirectory, File groovyClasspath,
+            GroovyScriptEngine scriptEngine, boolean clearClassCache) {
+        long start = System.currentTimeMillis();
+        ScriptingUtil.unfreeze();
+        GroovyClassCache classCache = null;
+        if(configuration.getBoolean(PortofinoProperties.GROOVY_CLASS_CACHE, false)) {
+            File cacheDirectory = new File(applicationDirectory, GROOVY_CLASS_CACHE_DIRECTORY);
+            try {
+                classCache = new GroovyClassCache(cacheDirectory, groovyClasspath, scriptEngine);
+                if(clearClassCache) {
+                    classCache.clear();
+                }
+            } catch (IOException e) {
+                logger.warn("Could not initialize the Groovy class cache in " + cacheDirectory, e);
+            }
+        }
+        Map<File, Class<?>> classes = new HashMap<File, Class<?>>();
+        compileSharedScripts(groovyClasspath, scriptEngine, classes);
+        compileActionClasses(pagesDirectory, scriptEngine, classCache, classes);
+        ScriptingUtil.freeze(classes);
+        clearDispatchCache();
+        logger.info("Scripts compiled and frozen in {} ms", System.currentTimeMillis() - start);
+    }
+
+    protected static void compileSharedScripts(
+            File directory, GroovyScriptEngine scriptEngine, Map<File, Class<?>> classes) {
+        File[] files = directory.listFiles();
+        if(files == null) {
+            return;
+        }
+        for(File file : files) {
+            if(file.isDirectory()) {
+                compileSharedScripts(file, scriptEngine, classes);
+            } else if(file.getName().endsWith(".groovy")) {
+                try {
+                    classes.put(file, scriptEngine.loadScriptByName(file.toURI().toString()));
+                } catch(Throwable t) {
+                    logger.warn("Could not compile " + file.getAbsolutePath(), t);
+                }
+            }
+        }
+    }
+
+    protected static void compileActionClasses(
+            File directory, GroovyScriptEngine scriptEngine, GroovyClassCache classCache,
+            Map<File, Class<?>> classes) {
+        File[] files = directory.listFiles();
+        if(files == null) {
+            return;
+        }
+        for(File file : files) {
+            if(file.isDirectory()) {
+                compileActionClasses(file, scriptEngine, classCache, classes);
+            } else if("action.groovy".equals(file.getName())) {
+                try {
+                    Class<?> actionClass;
+                    if(classCache != null) {
+                        actionClass = classCache.loadClass(file);
+                    } else {
+                        actionClass = scriptEngine.loadScriptByName(file.toURI().toString());
+                    }
+                    if(isValidActionClass(actionClass)) {
+                        classes.put(file, actionClass);
+                    }
+                } catch(Throwable t) {
+                    logger.warn("Could not compile page action " + file.getAbsolutePath(), t);
+                }
+            }
+        }
+    }
+
     public static boolean isValidActionClass(Class<?> actionClass) {
         if (actionClass == null) {
             return false;
@@ -509,37 +847,112 @@ public class DispatcherLogic {
     }
 
     public static PageAction getSubpage(
-            Configuration configuration, PageInstance parentPageInstance, String pathFragment)
+            final Configuration configuration, PageInstance parentPageInstance, String pathFragment)
             throws PageNotActiveException {
         File currentDirectory = parentPageInstance.getChildrenDirectory();
-        File childDirectory = new File(currentDirectory, pathFragment);
-        if(childDirectory.isDirectory() && !PageInstance.DETAIL.equals(childDirectory.getName())) {
-            ChildPage childPage = null;
-            for(ChildPage candidate : parentPageInstance.getLayout().getChildPages()) {
-                if(candidate.getName().equals(childDirectory.getName())) {
-                    childPage = candidate;
-                    break;
+        final File childDirectory = new File(currentDirectory, pathFragment);
+        String parentTemplate = parentPageInstance.getPathTemplate();
+        DispatchCacheEntry parentEntry = getDispatchCacheEntry(parentTemplate, parentPageInstance);
+        Boolean activeChildPage = parentEntry.childPages.get(pathFragment);
+        if(activeChildPage == null) {
+            return null;
+        }
+        if(!activeChildPage) {
+            throw new PageNotActiveException(childDirectory.getAbsolutePath());
+        }
+
+        String template = parentTemplate + "/" + pathFragment;
+        DispatchCacheEntry entry;
+        try {
+            entry = dispatchCache.get(template, new Callable<DispatchCacheEntry>() {
+                public DispatchCacheEntry call() throws Exception {
+                    Page page = DispatcherLogic.getPage(childDirectory);
+                    Class<? extends PageAction> actionClass =
+                            DispatcherLogic.getActionClass(configuration, childDirectory);
+                    File configurationFile = new File(childDirectory, "configuration.xml");
+                    Class<?> configurationClass = PageActionLogic.getConfigurationClass(actionClass);
+                    Object pageConfiguration = null;
+                    boolean configurationError = false;
+                    try {
+                        pageConfiguration = getConfiguration(configurationFile, configurationClass);
+                    } catch (Throwable t) {
+                        logger.error("Couldn't load configuration from " + configurationFile.getAbsolutePath(), t);
+                        //A missing file is a legitimate state of the page, a broken one is retried
+                        configurationError = configurationFile.exists();
+                    }
+                    return new DispatchCacheEntry(
+                            childDirectory, page, actionClass, pageConfiguration,
+                            listChildPages(childDirectory, page.getLayout()), configurationError);
                 }
-            }
-            if(childPage == null) {
-                throw new PageNotActiveException(childDirectory.getAbsolutePath());
-            }
+            });
+        } catch (ExecutionException e) {
+            throw unwrapPageNotActive(childDirectory, e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw unwrapPageNotActive(childDirectory, e.getCause());
+        }
+        if(entry.configurationError) {
+            dispatchCache.invalidate(template);
+        }
 
-            Page page = DispatcherLogic.getPage(childDirectory);
-            Class<? extends PageAction> actionClass =
-                    DispatcherLogic.getActionClass(configuration, childDirectory);
-            try {
-                PageAction pageAction = actionClass.newInstance();
-                PageInstance pageInstance =
-                    new PageInstance(parentPageInstance, childDirectory, page, actionClass);
-                pageInstance.setActionBean(pageAction);
-                configurePageAction(pageAction, pageInstance);
-                return pageAction;
-            } catch (Exception e) {
-                throw new PageNotActiveException(e);
+        try {
+            PageAction pageAction = entry.actionClass.newInstance();
+            PageInstance pageInstance =
+                new PageInstance(parentPageInstance, childDirectory, entry.page, entry.actionClass);
+            pageInstance.setActionBean(pageAction);
+            pageInstance.setConfiguration(entry.configuration);
+            pageAction.setPageInstance(pageInstance);
+            return pageAction;
+        } catch (Exception e) {
+            throw new PageNotActiveException(e);
+        }
+    }
+
+    /**
+     * Returns the dispatch cache entry for a page instance that has already been resolved, building it from the
+     * page instance itself if it's not cached. This is used for the intermediate templates produced by path
+     * parameters (e.g. /orders/{}), whose child pages live in the detail directory.
+     */
+    protected static DispatchCacheEntry getDispatchCacheEntry(
+            String template, final PageInstance pageInstance) throws PageNotActiveException {
+        try {
+            return dispatchCache.get(template, new Callable<DispatchCacheEntry>() {
+                public DispatchCacheEntry call() throws Exception {
+                    return new DispatchCacheEntry(
+                            pageInstance.getDirectory(), pageInstance.getPage(), pageInstance.getActionClass(),
+                            pageInstance.getConfiguration(),
+                            listChildPages(pageInstance.getChildrenDirectory(), pageInstance.getLayout()));
+                }
+            });
+        } catch (ExecutionException e) {
+            throw unwrapPageNotActive(pageInstance.getDirectory(), e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw unwrapPageNotActive(pageInstance.getDirectory(), e.getCause());
+        }
+    }
+
+    protected static Map<String, Boolean> listChildPages(File childrenDirectory, Layout layout) {
+        Set<String> layoutChildPages = new HashSet<String>();
+        for(ChildPage childPage : layout.getChildPages()) {
+            layoutChildPages.add(childPage.getName());
+        }
+        Map<String, Boolean> childPages = new HashMap<String, Boolean>();
+        File[] files = childrenDirectory.listFiles();
+        if(files != null) {
+            for(File file : files) {
+                String name = file.getName();
+                if(file.isDirectory() && !PageInstance.DETAIL.equals(name)) {
+                    childPages.put(name, layoutChildPages.contains(name));
+                }
             }
+        }
+        return childPages;
+    }
+
+    protected static PageNotActiveException unwrapPageNotActive(File directory, Throwable cause) {
+        if(cause instanceof PageNotActiveException) {
+            return (PageNotActiveException) cause;
         } else {
-            return null;
+            return new PageNotActiveException(directory.getAbsolutePath(), cause);
         }
     }
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2005-2016 ManyDesigns srl.  All rights reserved.
+ * http://www.manydesigns.com/
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 3 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package com.manydesigns.portofino.dispatcher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the directories of cached pages and configurations using a {@link WatchService}, and notifies
+ * {@link DispatcherLogic} of the files that changed, so that the affected cache entries can be reloaded.
+ * Events are processed on a dedicated daemon thread: cache entries are reloaded there, while request threads
+ * keep being served the old values.
+ *
+ * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
+ * @author Angelo Lupo          - angelo.lupo@manydesigns.com
+ * @author Giampiero Granatella - giampiero.granatella@manydesigns.com
+ * @author Alessio Stalla       - alessio.stalla@manydesigns.com
+ */
+public class PageFileWatcher implements Runnable {
+    public static final String copyright =
+            "Copyright (C) 2005-2016, ManyDesigns srl";
+
+    public static final Logger logger = LoggerFactory.getLogger(PageFileWatcher.class);
+
+    protected final WatchService watchService;
+    protected final Map<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<Path, WatchKey>();
+    protected Thread thread;
+    protected volatile boolean running;
+
+    public PageFileWatcher() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this, "Portofino page watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.warn("Could not close watch service", e);
+        }
+        if(thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    /**
+     * Starts watching a directory for changes, if it's not watched already.
+     * @param directory the directory to watch.
+     */
+    public void watch(File directory) {
+        Path path = directory.toPath();
+        if(watchedDirectories.containsKey(path)) {
+            return;
+        }
+        synchronized (watchedDirectories) {
+            if(watchedDirectories.containsKey(path) || !directory.isDirectory()) {
+                return;
+            }
+            try {
+                WatchKey key = path.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                watchedDirectories.put(path, key);
+                logger.debug("Watching directory {}", path);
+            } catch (ClosedWatchServiceException e) {
+                logger.debug("Watch service closed, not watching {}", path);
+            } catch (IOException e) {
+                logger.warn("Could not watch directory " + path, e);
+            }
+        }
+    }
+
+    public void run() {
+        while(running) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException e) {
+                break;
+            } catch (ClosedWatchServiceException e) {
+                break;
+            }
+            Path directory = (Path) key.watchable();
+            for(WatchEvent<?> event : key.pollEvents()) {
+                try {
+                    if(event.kind() == OVERFLOW) {
+                        logger.debug("Watch events lost for {}, refreshing all cached files", directory);
+                        DispatcherLogic.refreshCachedFiles();
+                    } else {
+                        Path changed = directory.resolve((Path) event.context());
+                        logger.debug("{}: {}", event.kind(), changed);
+                        DispatcherLogic.refreshCachedFiles(changed.toFile());
+                    }
+                } catch (Throwable t) {
+                    logger.error("Could not handle watch event " + event.kind() + " in " + directory, t);
+                }
+            }
+            if(!key.reset()) {
+                logger.debug("Directory {} is no longer watched", directory);
+                watchedDirectories.remove(directory);
+                try {
+                    DispatcherLogic.refreshCachedFiles(directory.toFile());
+                } catch (Throwable t) {
+                    logger.error("Could not refresh cached files in " + directory, t);
+                }
+            }
+        }
+        logger.debug("Page watcher stopped");
+    }
+}
@@ -22,9 +22,11 @@ package com.manydesigns.portofino.dispatcher;
 
 import com.manydesigns.portofino.pages.Layout;
 import com.manydesigns.portofino.pages.Page;
+import net.sourceforge.stripes.action.Resolution;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
@@ -52,8 +54,11 @@ public class PageInstance {
     protected String title;
     protected String description;
     protected boolean prepared;
+    protected boolean preparationDeferred;
+    protected boolean preparationFailed;
 
     public static final String DETAIL = "_detail";
+    public static final String PATH_PARAMETER_PLACEHOLDER = "{}";
 
     //**************************************************************************
     // Logging
@@ -114,6 +119,23 @@ public class PageInstance {
         }
     }
 
+    /**
+     * Reconstructs the path to this PageInstance like {@link #getPath()}, replacing each parameter with a
+     * placeholder. All the page instances sharing a template resolve to the same page, action class and
+     * configuration.
+     */
+    public String getPathTemplate() {
+        if(getParent() == null) {
+            return "";
+        } else {
+            String template = getParent().getPathTemplate() + "/" + directory.getName();
+            for(int i = 0; i < parameters.size(); i++) {
+                template += "/" + PATH_PARAMETER_PLACEHOLDER;
+            }
+            return template;
+        }
+    }
+
     /**
      * Returns the directory from which this page was loaded.
      */
@@ -213,6 +235,11 @@ public class PageInstance {
         return directory.getName();
     }
 
+    /**
+     * Returns the title of this page instance. If its preparation was deferred and not yet completed, this is
+     * the configured title of the page; callers that need the actual one must call {@link #ensurePrepared()}
+     * first.
+     */
     public String getTitle() {
         return title;
     }
@@ -221,6 +248,9 @@ public class PageInstance {
         this.title = title;
     }
 
+    /**
+     * Returns the description of this page instance. See {@link #getTitle()} regarding deferred preparation.
+     */
     public String getDescription() {
         return description;
     }
@@ -236,4 +266,61 @@ public class PageInstance {
     public void setPrepared(boolean prepared) {
         this.prepared = prepared;
     }
+
+    public boolean isPreparationDeferred() {
+        return preparationDeferred;
+    }
+
+    /**
+     * Marks this page instance as only partially prepared (see {@link DeferrablePageAction}). The remaining
+     * preparation will be performed, at most once per request, the first time {@link #ensurePrepared()} is
+     * called.
+     */
+    public void setPreparationDeferred(boolean preparationDeferred) {
+        this.preparationDeferred = preparationDeferred;
+    }
+
+    /**
+     * Returns whether the deferred preparation of this page instance failed, either with an exception or by
+     * returning a Resolution.
+     */
+    public boolean isPreparationFailed() {
+        return preparationFailed;
+    }
+
+    /**
+     * Completes the preparation of this page instance, if it was deferred. Since the dispatch has already
+     * gone past this page, a Resolution returned by the action at this point can't be executed. Such a
+     * Resolution, like an exception, marks the preparation as failed and the page instance as invalid for the
+     * current request (see {@link DispatcherLogic#INVALID_PAGE_INSTANCE}), as it happens when an eager
+     * preparation fails.
+     */
+    public void ensurePrepared() {
+        if(!preparationDeferred || prepared || actionBean == null) {
+            return;
+        }
+        preparationDeferred = false;
+        logger.debug("Completing deferred preparation of {}", this);
+        try {
+            Resolution resolution = actionBean.preparePage();
+            if(resolution != null) {
+                logger.error("Deferred preparation of {} returned a resolution that can't be executed: {}",
+                        this, resolution);
+                markPreparationFailed();
+            } else {
+                prepared = true;
+            }
+        } catch (Throwable t) {
+            logger.error("Deferred preparation failed for " + this, t);
+            markPreparationFailed();
+        }
+    }
+
+    protected void markPreparationFailed() {
+        preparationFailed = true;
+        HttpServletRequest request = actionBean.getContext() != null ? actionBean.getContext().getRequest() : null;
+        if(request != null && request.getAttribute(DispatcherLogic.INVALID_PAGE_INSTANCE) == null) {
+            request.setAttribute(DispatcherLogic.INVALID_PAGE_INSTANCE, this);
+        }
+    }
 }
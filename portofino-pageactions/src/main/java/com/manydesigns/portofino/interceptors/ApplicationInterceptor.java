@@ -67,25 +67,38 @@ public class ApplicationInterceptor implements Interceptor {
         if (dispatch != null) {
             HttpServletRequest request = actionContext.getRequest();
             logger.debug("Preparing PageActions");
-            for(PageInstance page : dispatch.getPageInstancePath()) {
+            PageInstance[] pageInstancePath = dispatch.getPageInstancePath();
+            for(int i = 0; i < pageInstancePath.length; i++) {
+                PageInstance page = pageInstancePath[i];
                 if(page.getParent() == null) {
                     logger.debug("Not preparing root");
                     continue;
                 }
-                if(page.isPrepared()) {
+                boolean ancestor = i < pageInstancePath.length - 1;
+                if(page.isPrepared() || (ancestor && page.isPreparationDeferred())) {
                     continue;
                 }
-                logger.debug("Preparing PageAction {}", page);
                 PageAction actionBean = page.getActionBean();
                 try {
                     actionBean.setContext(actionContext);
-                    Resolution resolution = actionBean.preparePage();
+                    Resolution resolution;
+                    if(ancestor && actionBean instanceof DeferrablePageAction) {
+                        logger.debug("Checking ancestor PageAction {}, deferring its preparation", page);
+                        resolution = ((DeferrablePageAction) actionBean).prepareAncestorPage();
+                    } else {
+                        logger.debug("Preparing PageAction {}", page);
+                        resolution = actionBean.preparePage();
+                    }
                     if(resolution != null) {
                         logger.debug("PageAction prepare returned a resolution: {}", resolution);
                         request.setAttribute(DispatcherLogic.INVALID_PAGE_INSTANCE, page);
                         return resolution;
                     }
-                    page.setPrepared(true);
+                    if(ancestor && !page.isPrepared() && actionBean instanceof DeferrablePageAction) {
+                        page.setPreparationDeferred(true);
+                    } else {
+                        page.setPrepared(true);
+                    }
                 } catch (Throwable t) {
                     request.setAttribute(DispatcherLogic.INVALID_PAGE_INSTANCE, page);
                     logger.error("PageAction prepare failed for " + page, t);
@@ -34,6 +34,7 @@ import com.manydesigns.portofino.pageactions.form.TableFormAction;
 import com.manydesigns.portofino.pageactions.registry.PageActionRegistry;
 import com.manydesigns.portofino.pageactions.registry.TemplateRegistry;
 import com.manydesigns.portofino.pageactions.text.TextAction;
+import com.manydesigns.portofino.scripting.ScriptingUtil;
 import com.manydesigns.portofino.shiro.SecurityGroovyRealm;
 import groovy.util.GroovyScriptEngine;
 import net.sf.ehcache.CacheManager;
@@ -138,7 +139,7 @@ public class PageactionsModule implements Module {
     @Override
     public void init() {
         logger.debug("Initializing dispatcher");
-        DispatcherLogic.init(configuration);
+        DispatcherLogic.init(configuration, servletContext);
 
         logger.info("Initializing ehcache service");
         cacheManager = CacheManager.newInstance();
@@ -148,13 +149,23 @@ public class PageactionsModule implements Module {
         logger.info("Pages directory: " + pagesDirectory);
         ElementsFileUtils.ensureDirectoryExistsAndWarnIfNotWritable(pagesDirectory);
 
-        if(configuration.getBoolean(PortofinoProperties.GROOVY_PRELOAD_PAGES, false)) {
-            logger.info("Preloading pages");
-            preloadPageActions(pagesDirectory);
+        if(configuration.getBoolean(PortofinoProperties.SNAPSHOT_ENABLED, false)) {
+            logger.info("Loading pages snapshot");
+            DispatcherLogic.loadPagesSnapshot(getPagesSnapshotFile());
         }
-        if(configuration.getBoolean(PortofinoProperties.GROOVY_PRELOAD_CLASSES, false)) {
-            logger.info("Preloading Groovy classes");
-            preloadGroovyClasses(groovyClasspath);
+        if(configuration.getBoolean(PortofinoProperties.GROOVY_FROZEN, false)) {
+            logger.info("Compiling and freezing Groovy scripts");
+            DispatcherLogic.freezeScripts(
+                    configuration, applicationDirectory, pagesDirectory, groovyClasspath, groovyScriptEngine);
+        } else {
+            if(configuration.getBoolean(PortofinoProperties.GROOVY_PRELOAD_PAGES, false)) {
+                logger.info("Preloading pages");
+                preloadPageActions(pagesDirectory);
+            }
+            if(configuration.getBoolean(PortofinoProperties.GROOVY_PRELOAD_CLASSES, false)) {
+                logger.info("Preloading Groovy classes");
+                preloadGroovyClasses(groovyClasspath);
+            }
         }
         servletContext.setAttribute(PAGES_DIRECTORY, pagesDirectory);
 
@@ -221,7 +232,16 @@ public class PageactionsModule implements Module {
         try {
             String securityGroovy = new File(groovyClasspath, "Security.groovy").toURI().toString();
             logger.debug("Security.groovy URL: {}", securityGroovy);
-            SecurityGroovyRealm realm = new SecurityGroovyRealm(groovyScriptEngine, securityGroovy, servletContext);
+            int checkFrequency;
+            if(configuration.getBoolean(PortofinoProperties.GROOVY_FROZEN, false)) {
+                checkFrequency = 0;
+            } else {
+                checkFrequency = configuration.getInt(
+                        PortofinoProperties.GROOVY_SECURITY_CHECK_FREQUENCY,
+                        SecurityGroovyRealm.DEFAULT_CHECK_FREQUENCY);
+            }
+            SecurityGroovyRealm realm =
+                    new SecurityGroovyRealm(groovyScriptEngine, securityGroovy, servletContext, checkFrequency);
             LifecycleUtils.init(realm);
             rsm.setRealm(realm);
             status = ModuleStatus.STARTED;
@@ -234,6 +254,10 @@ public class PageactionsModule implements Module {
         }
     }
 
+    protected File getPagesSnapshotFile() {
+        return new File(applicationDirectory, "pages.snapshot");
+    }
+
     @Override
     public void stop() {
         status = ModuleStatus.STOPPED;
@@ -245,6 +269,12 @@ public class PageactionsModule implements Module {
         environmentLoader.destroyEnvironment(servletContext);
         logger.info("Shutting down cache...");
         cacheManager.shutdown();
+        if(configuration.getBoolean(PortofinoProperties.SNAPSHOT_ENABLED, false)) {
+            logger.info("Saving pages snapshot...");
+            DispatcherLogic.savePagesSnapshot(getPagesSnapshotFile());
+        }
+        DispatcherLogic.shutdown();
+        ScriptingUtil.unfreeze();
         status = ModuleStatus.DESTROYED;
     }
 
@@ -88,6 +88,7 @@ public class Navigation {
         boolean rootSelected = pageInstances.length == 1;
         Page rootPage = rootPageInstance.getPage();
         boolean rootGhost = rootPage.getActualNavigationRoot() == NavigationRoot.GHOST_ROOT;
+        rootPageInstance.ensurePrepared();
         rootNavigationItem = new NavigationItem(
                 rootPageInstance.getTitle(), rootPageInstance.getDescription(), prefix,
                 null, true, rootSelected, rootGhost);
@@ -105,6 +106,7 @@ public class Navigation {
             PageInstance next;
             if (i < pageInstancesLength -1) {
                 next = pageInstances[i+1];
+                next.ensurePrepared();
             } else {
                 next = null;
             }
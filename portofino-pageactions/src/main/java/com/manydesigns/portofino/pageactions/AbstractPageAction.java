@@ -239,14 +239,25 @@ public abstract class AbstractPageAction extends AbstractActionBean implements P
     @Path("{pathFragment}")
     public Object getSubResource(@PathParam("pathFragment") String pathFragment) {
         DispatchElement resource = consumePathFragment(pathFragment);
-        if(resource != this) {
+        if(resource != this && !pageInstance.isPrepared() && !pageInstance.isPreparationDeferred()) {
             if(context == null) {
                 setContext(pageInstance.getParent().getActionBean().getContext());
             }
-            Resolution resolution = preparePage();
+            //This page is an ancestor of the requested resource, so its preparation can be deferred
+            Resolution resolution;
+            if(this instanceof DeferrablePageAction) {
+                resolution = ((DeferrablePageAction) this).prepareAncestorPage();
+            } else {
+                resolution = preparePage();
+            }
             if(resolution != null) {
                 return new TerminalResource(resolution);
             }
+            if(!pageInstance.isPrepared() && this instanceof DeferrablePageAction) {
+                pageInstance.setPreparationDeferred(true);
+            } else {
+                pageInstance.setPrepared(true);
+            }
         }
         return resource;
     }
@@ -566,6 +577,7 @@ public abstract class AbstractPageAction extends AbstractActionBean implements P
             fw.write(script);
             fw.flush();
             fw.close();
+            DispatcherLogic.clearDispatchCache();
             Class<?> scriptClass = DispatcherLogic.getActionClass(portofinoConfiguration, directory, false);
             if(scriptClass == null) {
                 SessionMessages.addErrorMessage(ElementsThreadLocals.getText("script.class.is.not.valid"));
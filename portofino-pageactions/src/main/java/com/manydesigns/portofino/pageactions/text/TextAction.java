@@ -41,6 +41,7 @@ import com.manydesigns.portofino.pages.Page;
 import com.manydesigns.portofino.security.AccessLevel;
 import com.manydesigns.portofino.security.RequiresPermissions;
 import com.manydesigns.portofino.security.SupportsPermissions;
+import com.manydesigns.portofino.stripes.RangeStreamingResolution;
 import net.sourceforge.stripes.action.*;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -52,7 +53,6 @@ import org.apache.shiro.authz.annotation.RequiresAuthentication;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.GET;
 import javax.ws.rs.Produces;
@@ -501,36 +501,24 @@ public class TextAction extends AbstractPageAction {
             return new ErrorResolution(404, "Attachment not found");
         }
 
-        try {
-            String attachmentId = attachment.getId();
-            final File file = RandomUtil.getCodeFile(
-                    pageInstance.getDirectory(), ATTACHMENT_FILE_NAME_PATTERN, attachmentId);
-
-            //Cache
-            HttpServletResponse response = context.getResponse();
-            ServletUtils.markCacheableForever(response);
-
-            //Suggerisce al browser di usare la risorsa che ha in cache invece di riscaricarla - serve ancora?
-            HttpServletRequest request = context.getRequest();
-            if(request.getHeader("If-Modified-Since") != null) {
-                long ifModifiedSince = request.getDateHeader("If-Modified-Since");
-                if(ifModifiedSince >= file.lastModified()) {
-                    return new ErrorResolution(304); //Not modified
-                }
-            }
-
-            InputStream is = new FileInputStream(file);
-            StreamingResolution resolution =
-                    new StreamingResolution(attachment.getContentType(), is)
-                            .setLength(attachment.getSize())
-                            .setFilename(attachment.getFilename())
-                            .setAttachment(isAttachment)
-                            .setLastModified(file.lastModified());
-            return resolution;
-        } catch (IOException e) {
-            logger.error("Download failed", e);
+        String attachmentId = attachment.getId();
+        final File file = RandomUtil.getCodeFile(
+                pageInstance.getDirectory(), ATTACHMENT_FILE_NAME_PATTERN, attachmentId);
+        if(!file.isFile()) {
+            logger.error("Download failed, attachment file not found: {}", file.getAbsolutePath());
             return new ErrorResolution(500, "Attachment error");
         }
+
+        //Cache
+        HttpServletResponse response = context.getResponse();
+        ServletUtils.markCacheableForever(response);
+
+        //Conditional and range requests are handled by the resolution
+        return new RangeStreamingResolution(attachment.getContentType(), file)
+                .setFilename(attachment.getFilename())
+                .setAttachment(isAttachment)
+                .setLastModified(file.lastModified())
+                .setETag(RangeStreamingResolution.createETag(attachmentId, file.length()));
     }
 
     @RequiresPermissions(level = AccessLevel.VIEW, permissions = { PERMISSION_EDIT })
@@ -27,6 +27,7 @@ import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
 import javax.xml.bind.annotation.XmlAttribute;
 import javax.xml.bind.annotation.XmlType;
+import java.io.Serializable;
 
 /**
  * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -36,7 +37,7 @@ import javax.xml.bind.annotation.XmlType;
  */
 @XmlAccessorType(value = XmlAccessType.NONE)
 @XmlType(propOrder = {"order","showInNavigation","name", "container"})
-public class ChildPage {
+public class ChildPage implements Serializable {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
@@ -24,6 +24,7 @@ import com.manydesigns.portofino.security.AccessLevel;
 import org.apache.commons.lang.StringUtils;
 
 import javax.xml.bind.annotation.*;
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -35,7 +36,7 @@ import java.util.Set;
 */
 @XmlAccessorType(XmlAccessType.NONE)
 @XmlType(propOrder = {"accessLevel","name","permissions"})
-public class Group {
+public class Group implements Serializable {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
@@ -26,6 +26,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.xml.bind.annotation.*;
+import java.io.Serializable;
 
 /*
 * @author Paolo Predonzani     - paolo.predonzani@manydesigns.com
@@ -36,7 +37,7 @@ import javax.xml.bind.annotation.*;
 @XmlRootElement
 @XmlAccessorType(value = XmlAccessType.NONE)
 @XmlType(propOrder = {"title","description", "navigationRoot","id","layout","detailLayout","permissions"})
-public class Page {
+public class Page implements Serializable {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
@@ -40,6 +40,10 @@ import org.slf4j.LoggerFactory;
 import javax.servlet.ServletContext;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Realm implementation that delegates to another class, written in Groovy and dynamically reloaded.
@@ -53,6 +57,8 @@ public class SecurityGroovyRealm implements PortofinoRealm, Destroyable {
     public static final String copyright =
             "Copyright (C) 2005-2016, ManyDesigns srl";
 
+    public static final int DEFAULT_CHECK_FREQUENCY = 5;
+
     //--------------------------------------------------------------------------
     // Logger
     //--------------------------------------------------------------------------
@@ -71,34 +77,77 @@ public class SecurityGroovyRealm implements PortofinoRealm, Destroyable {
 
     protected CacheManager cacheManager;
 
+    /**
+     * Checks Security.groovy for changes in the background, so that requests never lock or touch the file system.
+     */
+    protected ScheduledExecutorService refreshExecutor;
+
     //--------------------------------------------------------------------------
     // Constructors
     //--------------------------------------------------------------------------
 
     public SecurityGroovyRealm(GroovyScriptEngine groovyScriptEngine, String scriptUrl, ServletContext servletContext)
             throws ScriptException, ResourceException, InstantiationException, IllegalAccessException {
+        this(groovyScriptEngine, scriptUrl, servletContext, DEFAULT_CHECK_FREQUENCY);
+    }
+
+    /**
+     * @param checkFrequency how often, in seconds, Security.groovy is checked for changes. If zero or negative,
+     * the script is loaded once and never checked again.
+     */
+    public SecurityGroovyRealm(
+            GroovyScriptEngine groovyScriptEngine, String scriptUrl, ServletContext servletContext,
+            int checkFrequency)
+            throws ScriptException, ResourceException, InstantiationException, IllegalAccessException {
         this.groovyScriptEngine = groovyScriptEngine;
         this.scriptUrl = scriptUrl;
         this.servletContext = servletContext;
-        doEnsureDelegate();
+        doRefreshDelegate();
+        if(checkFrequency > 0) {
+            refreshExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "Security.groovy refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            refreshExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    refreshDelegate();
+                }
+            }, checkFrequency, checkFrequency, TimeUnit.SECONDS);
+        }
     }
 
     //--------------------------------------------------------------------------
     // Delegation support
     //--------------------------------------------------------------------------
 
-    private synchronized PortofinoRealm ensureDelegate() {
+    private PortofinoRealm ensureDelegate() {
         if(destroyed) {
             throw new IllegalStateException("This realm has been destroyed.");
         }
+        return security;
+    }
+
+    /**
+     * Reloads Security.groovy if it has changed, swapping in a new delegate. If the script cannot be loaded,
+     * the current delegate is kept.
+     */
+    public synchronized void refreshDelegate() {
+        if(destroyed) {
+            return;
+        }
         try {
-            return doEnsureDelegate();
-        } catch (Exception e) {
-            throw new Error("Security.groovy not found or not loadable", e);
+            doRefreshDelegate();
+        } catch (Throwable e) {
+            logger.error("Security.groovy not found or not loadable, keeping the current realm delegate", e);
         }
     }
 
-    private PortofinoRealm doEnsureDelegate()
+    private PortofinoRealm doRefreshDelegate()
             throws ScriptException, ResourceException, IllegalAccessException, InstantiationException {
         Class<?> scriptClass = groovyScriptEngine.loadScriptByName(scriptUrl);
         if(scriptClass.isInstance(security)) { //Class did not change
@@ -306,10 +355,13 @@ public class SecurityGroovyRealm implements PortofinoRealm, Destroyable {
     }
 
     @Override
-    public void destroy() {
+    public synchronized void destroy() {
         boolean wasDestroyed = destroyed;
         destroyed = true;
         if(!wasDestroyed) {
+            if(refreshExecutor != null) {
+                refreshExecutor.shutdownNow();
+            }
             logger.info("Destroying realm delegate");
             LifecycleUtils.destroy(security);
         }